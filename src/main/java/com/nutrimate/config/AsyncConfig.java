@@ -7,6 +7,9 @@ import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
@@ -23,4 +26,47 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    // Executor riêng cho upload media (Cloudinary) - tách khỏi pool gửi mail, có giới hạn để không tràn thread.
+    // Đầy hàng đợi thì upload luôn trên thread request (chậm hơn nhưng không trả lỗi 500 vì bị từ chối).
+    @Bean(name = "mediaUploadExecutor")
+    public Executor mediaUploadExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(16);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("MediaUpload-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // Executor cho các câu aggregate độc lập của Admin Dashboard chạy song song.
+    // Java 21+: mỗi câu 1 virtual thread (chờ JDBC không giữ platform thread; số câu chạy cùng lúc bị giới hạn
+    // bởi connection pool). Java 17: pool nhỏ cố định. Đầy thì từ chối (AbortPolicy) - dashboard trả kết quả
+    // partial cho bộ đếm đó, không chạy aggregate trên thread request.
+    @Bean(name = "dashboardQueryExecutor")
+    public Executor dashboardQueryExecutor() {
+        ExecutorService virtualThreads = newVirtualThreadPerTaskExecutor();
+        if (virtualThreads != null) {
+            return virtualThreads;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(6);
+        executor.setMaxPoolSize(6);
+        executor.setQueueCapacity(24);
+        executor.setThreadNamePrefix("DashboardQuery-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() qua reflection: build target Java 17, chạy được cả trên JVM 21+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
 }
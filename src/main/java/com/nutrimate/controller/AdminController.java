@@ -6,6 +6,7 @@ import com.nutrimate.entity.User;
 import com.nutrimate.exception.ResourceNotFoundException;
 import com.nutrimate.entity.ExpertProfile;
 import com.nutrimate.repository.UserRepository;
+import com.nutrimate.service.ExpertDirectoryIndex;
 import com.nutrimate.repository.ExpertProfileRepository;
 import com.nutrimate.exception.BadRequestException;
 import io.swagger.v3.oas.annotations.Operation;
@@ -29,10 +30,13 @@ public class AdminController {
 
     private final UserRepository userRepository;
     private final ExpertProfileRepository expertProfileRepository;
+    private final ExpertDirectoryIndex expertDirectoryIndex;
 
-    public AdminController(UserRepository userRepository, ExpertProfileRepository expertProfileRepository) {
+    public AdminController(UserRepository userRepository, ExpertProfileRepository expertProfileRepository,
+                           ExpertDirectoryIndex expertDirectoryIndex) {
         this.userRepository = userRepository;
         this.expertProfileRepository = expertProfileRepository;
+        this.expertDirectoryIndex = expertDirectoryIndex;
     }
 
     // --- 2.1 & 2.2 QUẢN LÝ USER ---
@@ -135,6 +139,7 @@ public class AdminController {
             throw new BadRequestException("Status không hợp lệ. Vui lòng điền 'APPROVED' hoặc 'REJECTED'");
         }
         expertProfileRepository.save(expert);
+        expertDirectoryIndex.onProfileChanged(expert);
         return ResponseEntity.ok(Map.of(
             "message", "Đã cập nhật trạng thái thành công!",
             "status", expert.getStatus(),
@@ -7,12 +7,14 @@ import com.nutrimate.entity.User;
 import com.nutrimate.service.AdminDashboardService;
 import io.swagger.v3.oas.annotations.Operation;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import lombok.RequiredArgsConstructor;
+import java.time.LocalDate;
 import java.util.Map;
 import java.util.List;
 
@@ -39,14 +41,20 @@ public class AdminDashboardController {
     }
 
     // 3. API Danh sách Giao dịch (Phân trang - Mặc định size 20)
-    @Operation(summary = "[Admin] Lịch sử giao dịch (Gộp chung Booking và Subscription)")
+    @Operation(summary = "[Admin] Lịch sử giao dịch (Gộp chung Booking và Subscription). " +
+            "Truyền nextCursor để lấy trang tiếp theo; lọc tùy chọn theo type (BOOKING/SUBSCRIPTION), status, from/to (yyyy-MM-dd)")
     @GetMapping("/transactions")
     // @PreAuthorize("hasRole('ADMIN')") // Mở comment này ra nếu bác đang dùng Spring Security chặn quyền
     public ResponseEntity<Map<String, Object>> getTransactionHistory(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
         
-        return ResponseEntity.ok(dashboardService.getTransactionHistory(page, size));
+        return ResponseEntity.ok(dashboardService.getTransactionHistory(page, size, cursor, type, status, from, to));
     }
 
     @Operation(summary = "[Admin] Lấy danh sách Feedback có phân trang")
@@ -8,6 +8,7 @@ import com.nutrimate.entity.UserSubscription.SubscriptionStatus;
 import com.nutrimate.repository.UserSubscriptionRepository;
 import com.nutrimate.repository.HealthProfileRepository;
 import com.nutrimate.repository.UserRepository;
+import com.nutrimate.service.ExpertDirectoryIndex;
 import com.nutrimate.service.FileUploadService;
 import org.springframework.beans.factory.annotation.Value;
 import jakarta.validation.Valid;
@@ -57,12 +58,14 @@ public class AuthController {
     private final String sessionCookieSameSite;
     private final boolean sessionCookieSecure;
     private final UserSubscriptionRepository userSubscriptionRepository;
+    private final ExpertDirectoryIndex expertDirectoryIndex;
     
     public AuthController(UserRepository userRepository, 
                          HealthProfileRepository healthProfileRepository,
                          FileUploadService fileUploadService,
                          ClientRegistrationRepository clientRegistrationRepository,
                          UserSubscriptionRepository userSubscriptionRepository,
+                         ExpertDirectoryIndex expertDirectoryIndex,
                          @Value("${app.backend.url:http://localhost:8080}") String backendUrl,
                          @Value("${app.frontend.url:http://localhost:5173}") String frontendUrl,
                          @Value("${server.servlet.session.cookie.same-site:lax}") String sessionCookieSameSite,
@@ -76,6 +79,7 @@ public class AuthController {
         this.sessionCookieSameSite = sessionCookieSameSite;
         this.sessionCookieSecure = sessionCookieSecure;
         this.userSubscriptionRepository = userSubscriptionRepository;
+        this.expertDirectoryIndex = expertDirectoryIndex;
     }
 
     /**
@@ -742,6 +746,7 @@ public class AuthController {
         // Lưu vào database
         try {
             userRepository.save(user);
+            expertDirectoryIndex.onUserUpdated(user);
             
             // Trả về thông tin user đã cập nhật
             Map<String, Object> userInfo = new HashMap<>();
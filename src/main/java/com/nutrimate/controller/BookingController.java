@@ -1,5 +1,6 @@
 package com.nutrimate.controller;
 
+import com.nutrimate.dto.BookingPageResponseDTO;
 import com.nutrimate.dto.BookingRequestDTO;
 import com.nutrimate.dto.PriceCheckResponseDTO;
 import com.nutrimate.entity.Booking;
@@ -36,6 +37,10 @@ public class BookingController {
 
     // Helper: Lấy User ID từ sub (cognito_id) - Access Token Cognito mặc định không chứa email
     private String getCurrentUserId(Authentication authentication) {
+        return getCurrentUser(authentication).getId();
+    }
+
+    private User getCurrentUser(Authentication authentication) {
         if (authentication == null || !authentication.isAuthenticated()) {
             throw new BadRequestException("Vui lòng đăng nhập để thực hiện chức năng này");
         }
@@ -58,7 +63,6 @@ public class BookingController {
         }
 
         return userRepository.findByCognitoId(cognitoId)
-                .map(User::getId)
                 .orElseThrow(() -> new ResourceNotFoundException("User không tồn tại trong hệ thống"));
     }
 
@@ -89,7 +93,20 @@ public class BookingController {
     public ResponseEntity<List<Booking>> getMyBookings(
             @Parameter(hidden = true) Authentication authentication) {
         
-        return ResponseEntity.ok(bookingService.getMyBookings(getCurrentUserId(authentication)));
+        User user = getCurrentUser(authentication);
+        return ResponseEntity.ok(bookingService.getMyBookings(user.getId(), user.getRole()));
+    }
+
+    @Operation(summary = "View my booking history page by page (pass nextCursor to load more)")
+    @GetMapping("/bookings/my-bookings/page")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<BookingPageResponseDTO> getMyBookingsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @Parameter(hidden = true) Authentication authentication) {
+
+        User user = getCurrentUser(authentication);
+        return ResponseEntity.ok(bookingService.getMyBookingsPage(user.getId(), user.getRole(), cursor, size));
     }
 
     @Operation(summary = "Xem lượt đặt lịch chuyên gia miễn phí còn lại trong chu kỳ gói hiện tại")
@@ -119,6 +136,16 @@ public class BookingController {
         return ResponseEntity.ok(bookingService.getAllBookings(date));
     }
 
+    @Operation(summary = "[Admin] View all bookings page by page (pass nextCursor to load more)")
+    @GetMapping("/admin/bookings/page")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BookingPageResponseDTO> getAllBookingsPage(
+            @RequestParam(required = false) LocalDate date,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(bookingService.getAllBookingsPage(date, cursor, size));
+    }
+
     @Operation(summary = "Lấy chi tiết 1 lịch hẹn (Booking) theo ID")
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('MEMBER', 'EXPERT', 'ADMIN')")
@@ -1,5 +1,6 @@
 package com.nutrimate.controller;
 
+import com.nutrimate.dto.BookingPageResponseDTO;
 import com.nutrimate.dto.BookingStatusDTO;
 import com.nutrimate.dto.ExpertApplicationDTO;
 import com.nutrimate.entity.Booking;
@@ -41,12 +42,19 @@ public class ExpertController {
     private final UserRepository userRepository;
 
     // 5.1 GET /api/experts (Filter)
-    @Operation(summary = "Search experts")
+    @Operation(summary = "Search experts (filter by rating / price range, specialization; sortBy RATING or PRICE)")
     @GetMapping
-    public ResponseEntity<List<ExpertProfile>> searchExperts(
+    public ResponseEntity<Map<String, Object>> searchExperts(
             @RequestParam(required = false) Float minRating,
-            @RequestParam(required = false) BigDecimal maxPrice) {
-        return ResponseEntity.ok(expertService.searchExperts(minRating, maxPrice));
+            @RequestParam(required = false) Float maxRating,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String specialization,
+            @RequestParam(defaultValue = "RATING") String sortBy,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(expertService.searchExperts(minRating, maxRating, minPrice, maxPrice,
+                specialization, sortBy, page, size));
     }
 
     // 5.2 GET /api/experts/{id}
@@ -66,6 +74,16 @@ public class ExpertController {
         return ResponseEntity.ok(expertService.getMyExpertBookings(userId));
     }
 
+    @Operation(summary = "[Expert] Xem danh sách booking của mình theo trang (truyền nextCursor để tải thêm)")
+    @GetMapping("/my-bookings/page")
+    public ResponseEntity<BookingPageResponseDTO> getMyBookingsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
+        String userId = getCurrentUserId(authentication);
+        return ResponseEntity.ok(expertService.getMyExpertBookingsPage(userId, cursor, size));
+    }
+
     // Helper: Lấy User ID từ sub (cognito_id) - Access Token Cognito mặc định không chứa email
     private String getCurrentUserId(Authentication authentication) {
         if (authentication == null || !authentication.isAuthenticated()) {
@@ -130,16 +148,32 @@ public class ExpertController {
         return ResponseEntity.ok(bookingService.updateStatus(userId, bookingId, req));
     }
 
-    @Operation(summary = "Lấy danh sách khung giờ trống của Expert theo ngày")
+    @Operation(summary = "Lấy danh sách khung giờ trống của Expert theo ngày (date) hoặc theo khoảng ngày (from, to)")
     @GetMapping("/{expertId}/availability")
     public ResponseEntity<Map<String, Object>> getExpertAvailability(
             @PathVariable String expertId,
-            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+            @RequestParam(value = "date", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        if (date != null) {
+            List<String> availableSlots = bookingService.getExpertAvailableSlots(expertId, date);
+            return ResponseEntity.ok(Map.of(
+                    "date", date,
+                    "availableSlots", availableSlots
+            ));
+        }
+        if (from == null || to == null) {
+            throw new BadRequestException("Cần truyền date hoặc cả from và to");
+        }
 
-        List<String> availableSlots = bookingService.getExpertAvailableSlots(expertId, date);
+        List<Map<String, Object>> days = bookingService.getExpertAvailability(expertId, from, to).entrySet().stream()
+                .map(e -> Map.<String, Object>of("date", e.getKey(), "availableSlots", e.getValue()))
+                .toList();
         return ResponseEntity.ok(Map.of(
-                "date", date,
-                "availableSlots", availableSlots
+                "from", from,
+                "to", to,
+                "days", days
         ));
     }
 }
\ No newline at end of file
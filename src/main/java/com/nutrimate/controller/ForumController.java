@@ -21,6 +21,8 @@ import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/forum")
 @Tag(name = "Community Forum", description = "Social features: Posts, Likes, Comments")
@@ -75,6 +77,54 @@ public class ForumController {
         return ResponseEntity.ok(forumService.getNewsFeed(userId, PageRequest.of(page, size)));
     }
 
+    // 10.1b GET Newsfeed theo cursor (Cho phép Guest) - cuộn vô hạn, không bị trùng/sót khi có bài mới
+    @Operation(summary = "Get Newsfeed by cursor (infinite scroll, pass nextCursor to load more)")
+    @GetMapping("/posts/feed")
+    public ResponseEntity<ForumDTO.FeedPageResponse> getNewsFeedByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(hidden = true) Authentication authentication) {
+
+        String userId = null;
+        if (authentication != null && authentication.isAuthenticated()) {
+            try { userId = getCurrentUserId(authentication); } catch (Exception ignored) {}
+        }
+
+        return ResponseEntity.ok(forumService.getNewsFeedByCursor(userId, cursor, size));
+    }
+
+    // 10.1c GET Trending feed (Cho phép Guest)
+    @Operation(summary = "Get trending posts (likes + comments decayed by age)")
+    @GetMapping("/posts/trending")
+    public ResponseEntity<List<ForumDTO.PostResponse>> getTrendingFeed(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(hidden = true) Authentication authentication) {
+
+        String userId = null;
+        if (authentication != null && authentication.isAuthenticated()) {
+            try { userId = getCurrentUserId(authentication); } catch (Exception ignored) {}
+        }
+
+        return ResponseEntity.ok(forumService.getTrendingFeed(userId, page, size));
+    }
+
+    // 10.10 Search posts + comments (Cho phép Guest) - gõ không dấu vẫn tìm được
+    @Operation(summary = "Search posts and comments (diacritic-insensitive)")
+    @GetMapping("/posts/search")
+    public ResponseEntity<ForumDTO.SearchResponse> searchPosts(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "20") int limit,
+            @Parameter(hidden = true) Authentication authentication) {
+
+        String userId = null;
+        if (authentication != null && authentication.isAuthenticated()) {
+            try { userId = getCurrentUserId(authentication); } catch (Exception ignored) {}
+        }
+
+        return ResponseEntity.ok(forumService.searchPosts(userId, query, limit));
+    }
+
     // 10.2 GET Detail
     @Operation(summary = "Get Post Detail + Comments")
     @GetMapping("/posts/{id}")
@@ -90,6 +140,17 @@ public class ForumController {
         return ResponseEntity.ok(forumService.getPostDetail(userId, id));
     }
 
+    // 10.2b GET thêm comment theo cursor (Cho phép Guest)
+    @Operation(summary = "Get more comments of a post by cursor (pass nextCommentCursor / nextCursor)")
+    @GetMapping("/posts/{id}/comments")
+    public ResponseEntity<ForumDTO.CommentPageResponse> getComments(
+            @PathVariable String id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        return ResponseEntity.ok(forumService.getComments(id, cursor, size));
+    }
+
     // 10.3 Create Post (Đã nâng cấp: Nhận cả Ảnh + Video)
     @Operation(summary = "Create new post (Text + Image + Video)")
     @PostMapping(value = "/posts", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
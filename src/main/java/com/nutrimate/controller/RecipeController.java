@@ -57,17 +57,18 @@ public class RecipeController {
     }
 
     // 4.1 Search Public
-    @Operation(summary = "Search recipes (Public)")
+    @Operation(summary = "Search recipes (Public) - keyword is diacritic-insensitive and ranked by relevance")
     @GetMapping
     public ResponseEntity<Page<Recipe>> getRecipes(
             @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) Integer minCal,
             @RequestParam(required = false) Integer maxCal,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy) {
 
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortBy).descending());
-        return ResponseEntity.ok(recipeService.getRecipes(keyword, maxCal, pageable));
+        return ResponseEntity.ok(recipeService.getRecipes(keyword, minCal, maxCal, pageable));
     }
 
     // 4.2 Detail (Có check limit)
@@ -5,6 +5,7 @@ import com.nutrimate.entity.SystemFeedback;
 import com.nutrimate.entity.User;
 import com.nutrimate.repository.SystemFeedbackRepository;
 import com.nutrimate.repository.UserRepository;
+import com.nutrimate.service.DashboardStatsSnapshot;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -33,6 +34,7 @@ public class SystemFeedbackController {
 
     private final SystemFeedbackRepository systemFeedbackRepository;
     private final UserRepository userRepository;
+    private final DashboardStatsSnapshot dashboardStatsSnapshot;
 
     @Operation(summary = "1. Gửi đánh giá hệ thống (Bắt buộc đăng nhập)")
     @PostMapping
@@ -77,6 +79,7 @@ public class SystemFeedbackController {
         feedback.setContent(request.getContent());
 
         systemFeedbackRepository.save(feedback);
+        dashboardStatsSnapshot.onSystemFeedbackCreated();
 
         return ResponseEntity.ok(Map.of("success", true, "message", "Cảm ơn bạn đã đánh giá Nutrimate!"));
     }
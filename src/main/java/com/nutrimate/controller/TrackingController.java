@@ -1,6 +1,7 @@
 package com.nutrimate.controller;
 
 import com.nutrimate.dto.DailyLogResponseDTO;
+import com.nutrimate.dto.TrackingRangeResponseDTO;
 import com.nutrimate.dto.TrackingRequestDTO;
 import com.nutrimate.entity.User;
 import com.nutrimate.exception.BadRequestException;
@@ -11,6 +12,7 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -20,6 +22,8 @@ import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/tracking")
@@ -47,6 +51,23 @@ public class TrackingController {
                 .orElseThrow(() -> new ResourceNotFoundException("User không tồn tại"));
     }
 
+    @Operation(summary = "Get daily + weekly nutrition totals in a date range (yyyy-MM-dd)")
+    @GetMapping("/range")
+    @PreAuthorize("hasRole('MEMBER')")
+    public ResponseEntity<TrackingRangeResponseDTO> getLogsInRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(hidden = true) Authentication authentication) {
+        return ResponseEntity.ok(trackingService.getLogsInRange(getCurrentUserId(authentication), from, to));
+    }
+
+    @Operation(summary = "[Admin] Tracking read cache stats (hit/miss/eviction)")
+    @GetMapping("/cache-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(trackingService.getCacheStats());
+    }
+
     @Operation(summary = "Get food log by date (yyyy-MM-dd)")
     @GetMapping("/{date}")
     @PreAuthorize("hasRole('MEMBER')")
@@ -65,6 +86,24 @@ public class TrackingController {
         return ResponseEntity.ok(trackingService.addFoodLog(getCurrentUserId(authentication), request));
     }
 
+    @Operation(summary = "Add multiple foods to log in one request (mobile sync)")
+    @PostMapping("/log/batch")
+    @PreAuthorize("hasRole('MEMBER')")
+    public ResponseEntity<List<DailyLogResponseDTO>> addFoodLogs(
+            @RequestBody TrackingRequestDTO.BatchAddFoodLog request,
+            @Parameter(hidden = true) Authentication authentication) {
+        return ResponseEntity.ok(trackingService.addFoodLogs(getCurrentUserId(authentication), request));
+    }
+
+    @Operation(summary = "Copy all foods from one day to another")
+    @PostMapping("/copy")
+    @PreAuthorize("hasRole('MEMBER')")
+    public ResponseEntity<DailyLogResponseDTO> copyDay(
+            @RequestBody TrackingRequestDTO.CopyDay request,
+            @Parameter(hidden = true) Authentication authentication) {
+        return ResponseEntity.ok(trackingService.copyDay(getCurrentUserId(authentication), request));
+    }
+
     @Operation(summary = "Update food amount")
     @PutMapping("/log/{id}")
     @PreAuthorize("hasRole('MEMBER')")
@@ -0,0 +1,15 @@
+package com.nutrimate.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+// 1 trang lịch sử booking, phân trang bằng cursor (bookingTime, bookingId) giảm dần
+@Data
+@Builder
+public class BookingPageResponseDTO {
+    private List<BookingResponseDTO> items;
+    private String nextCursor; // null nếu đã hết booking
+    private boolean hasMore;
+}
@@ -1,10 +1,17 @@
 package com.nutrimate.dto;
 
+import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class BookingResponseDTO {
     private String bookingId;
     
@@ -17,8 +24,9 @@ public class BookingResponseDTO {
     private LocalDateTime bookingTime;
     private String status; // Pending, Confirmed...
     private String meetingLink;
+    private String note;
     
     // Thông tin giá
     private Boolean isFreeSession;
     private BigDecimal finalPrice;
-}
\ No newline at end of file
+}
@@ -10,6 +10,9 @@ public class DailyLogResponseDTO {
     private String logId;
     private LocalDate date;
     private Integer totalCalories;
+    private Double totalProtein;
+    private Double totalCarbs;
+    private Double totalFat;
     private List<MealLogDTO> meals;
 
     @Data
@@ -11,4 +11,5 @@ public class DashboardResponseDTO {
     private long totalUsers;
     private long totalTransactions;
     private long totalFeedbacks;
+    private boolean partial; // true nếu có số liệu chưa lấy được từ DB (query quá hạn), đang hiển thị 0
 }
\ No newline at end of file
@@ -27,7 +27,7 @@ public class ForumDTO {
 
     // Response bài viết (Newsfeed)
     @Data
-    @Builder
+    @Builder(toBuilder = true)
     public static class PostResponse {
         private String postId;
         private String authorName;
@@ -43,12 +43,40 @@ public class ForumDTO {
         private boolean isLikedByCurrentUser; // Để hiển thị icon tim đỏ hay trắng
     }
 
+    // Response newsfeed phân trang bằng cursor (không có tổng số trang)
+    @Data
+    @Builder
+    public static class FeedPageResponse {
+        private List<PostResponse> items;
+        private String nextCursor; // null nếu đã hết bài
+        private boolean hasMore;
+    }
+
+    // Response tìm kiếm bài viết (xếp theo độ liên quan + độ mới)
+    @Data
+    @Builder
+    public static class SearchResponse {
+        private String query;
+        private List<PostResponse> items;
+    }
+
     // Response chi tiết bài viết (Kèm comments)
     @Data
     @Builder
     public static class PostDetailResponse {
         private PostResponse post;
-        private List<CommentResponse> comments;
+        private List<CommentResponse> comments; // Chỉ trang comment đầu tiên
+        private String nextCommentCursor;       // Gửi vào /posts/{id}/comments?cursor= để lấy tiếp
+        private boolean hasMoreComments;
+    }
+
+    // Response 1 trang comment (phân trang bằng cursor)
+    @Data
+    @Builder
+    public static class CommentPageResponse {
+        private List<CommentResponse> items;
+        private String nextCursor; // null nếu đã hết comment
+        private boolean hasMore;
     }
 
     // Response comment
@@ -0,0 +1,35 @@
+package com.nutrimate.dto;
+
+import lombok.Data;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class TrackingRangeResponseDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private List<DaySummary> days;   // Mỗi ngày trong khoảng (ngày chưa log = 0)
+    private List<WeekSummary> weeks; // Gộp theo tuần (Thứ 2 -> Chủ nhật)
+
+    @Data
+    public static class DaySummary {
+        private LocalDate date;
+        private String logId; // null nếu ngày đó chưa có log
+        private Integer totalCalories;
+        private Double totalProtein;
+        private Double totalCarbs;
+        private Double totalFat;
+    }
+
+    @Data
+    public static class WeekSummary {
+        private LocalDate weekStart;
+        private LocalDate weekEnd;
+        private Integer loggedDays;
+        private Integer totalCalories;
+        private Double totalProtein;
+        private Double totalCarbs;
+        private Double totalFat;
+        private Double avgCaloriesPerLoggedDay;
+    }
+}
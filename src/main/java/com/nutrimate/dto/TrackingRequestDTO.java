@@ -5,6 +5,7 @@ import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
 import java.time.LocalDate;
+import java.util.List;
 
 @Data
 public class TrackingRequestDTO {
@@ -27,4 +28,20 @@ public class TrackingRequestDTO {
         @NotNull
         private Double amount;
     }
-}
\ No newline at end of file
+
+    // Dùng cho API thêm nhiều món cùng lúc (7.2b)
+    @Data
+    public static class BatchAddFoodLog {
+        @NotNull
+        private List<AddFoodLog> items;
+    }
+
+    // Dùng cho API copy món ăn từ ngày này sang ngày khác (7.2c)
+    @Data
+    public static class CopyDay {
+        @NotNull
+        private LocalDate fromDate;
+        @NotNull
+        private LocalDate toDate;
+    }
+}
@@ -13,7 +13,15 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "`Bookings`") // Dùng backtick để giữ nguyên chữ hoa trên MySQL (trùng với bảng Bookings hiện tại)
+// Dùng backtick để giữ nguyên chữ hoa trên MySQL (trùng với bảng Bookings hiện tại)
+@Table(name = "`Bookings`", indexes = {
+        @Index(name = "idx_booking_time_id", columnList = "booking_time, booking_id"),
+        @Index(name = "idx_booking_expert_time", columnList = "expert_user_id, booking_time"),
+        @Index(name = "idx_booking_member_time", columnList = "member_id, booking_time"),
+        @Index(name = "idx_booking_status_created", columnList = "status, created_at"),
+        // 1 Expert chỉ có tối đa 1 booking PENDING/CONFIRMED tại 1 thời điểm (NULL không tính trùng)
+        @Index(name = "uk_booking_expert_active_time", columnList = "expert_user_id, active_booking_time", unique = true)
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -60,6 +68,12 @@ public class Booking {
     @Column(name = "order_code")
     private Long orderCode;
 
+    // Cột sinh (MySQL): = booking_time khi booking đang giữ slot (PENDING/CONFIRMED), ngược lại NULL.
+    // Chỉ dùng cho unique index chống đặt trùng, app không ghi vào.
+    @Column(name = "active_booking_time", insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) GENERATED ALWAYS AS (IF(status IN ('PENDING', 'CONFIRMED'), booking_time, NULL)) VIRTUAL")
+    private LocalDateTime activeBookingTime;
+
     @Column(name = "is_reminded")
     private Boolean isReminded = false;
 
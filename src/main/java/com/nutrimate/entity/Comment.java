@@ -12,7 +12,7 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "`Comments`") // Dùng backtick để match đúng bảng Comments trong MySQL, tránh bị hạ thành 'comments'
+@Table(name = "`Comments`", indexes = @Index(name = "idx_comment_post_created_id", columnList = "post_id, created_at, comment_id")) // Dùng backtick để match đúng bảng Comments trong MySQL, tránh bị hạ thành 'comments'
 @Getter
 @Setter
 @NoArgsConstructor
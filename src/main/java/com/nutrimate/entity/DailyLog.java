@@ -12,7 +12,7 @@ import java.time.LocalDate;
 
 
 @Entity
-@Table(name = "`Daily_Logs`")
+@Table(name = "`Daily_Logs`", indexes = @Index(name = "idx_daily_log_user_date", columnList = "user_id, log_date"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -35,5 +35,15 @@ public class DailyLog {
     @Column(name = "total_calories_in", nullable = false)
     private Integer totalCaloriesIn;
 
+    // Tổng macro (gram) = Σ recipe.macro * mealLog.amount, cập nhật lúc ghi MealLog
+    @Column(name = "total_protein_g")
+    private Double totalProteinIn = 0.0;
+
+    @Column(name = "total_carbs_g")
+    private Double totalCarbsIn = 0.0;
+
+    @Column(name = "total_fat_g")
+    private Double totalFatIn = 0.0;
+
     private String notes;
 }
\ No newline at end of file
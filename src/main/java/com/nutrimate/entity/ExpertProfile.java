@@ -35,8 +35,22 @@ public class ExpertProfile {
     @Column(name = "years_experience")
     private Integer yearsExperience;
 
+    // Điểm trung bình = ratingSum / ratingCount (giữ giá trị cũ khi chưa có feedback nào).
+    // Chỉ ghi lúc tạo hồ sơ; sau đó do addRating / job đối soát cập nhật -> save cả entity (duyệt, sửa hồ sơ)
+    // không ghi đè điểm vừa được cộng bởi feedback chạy song song.
+    @Column(name = "rating", updatable = false)
     private Float rating;
 
+    // Tổng số sao và số lượt feedback của Expert.
+    // Chỉ được đổi bằng UPDATE nguyên tử (addRating) và job đối soát - entity không ghi đè 2 cột này.
+    @Column(name = "rating_sum", insertable = false, updatable = false,
+            columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long ratingSum;
+
+    @Column(name = "rating_count", insertable = false, updatable = false,
+            columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer ratingCount;
+
     @Column(name = "hourly_rate")
     private BigDecimal hourlyRate;
 
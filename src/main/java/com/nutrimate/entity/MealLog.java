@@ -7,7 +7,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "`Meal_Logs`")
+@Table(name = "`Meal_Logs`", indexes = @Index(name = "idx_meal_log_log_id", columnList = "log_id"))
 @Getter
 @Setter
 @NoArgsConstructor
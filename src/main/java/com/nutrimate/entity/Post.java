@@ -16,7 +16,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "`Posts`")
+@Table(name = "`Posts`", indexes = @Index(name = "idx_post_created_id", columnList = "created_at, post_id"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -48,12 +48,19 @@ public class Post {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
-    @Column(name = "like_count", nullable = false)
+    // Bộ đếm chỉ đổi qua UPDATE atomic (PostRepository.increment*), save(post) không được ghi đè
+    @Column(name = "like_count", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "INT NOT NULL DEFAULT 0")
     private Integer likeCount = 0;
     
-    @Column(name = "comment_count", nullable = false)
+    @Column(name = "comment_count", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "INT NOT NULL DEFAULT 0")
     private Integer commentCount = 0;
 
+    // Điểm trending (log2, forward decay) - chỉ ForumTrendingIndex ghi qua checkpoint, JPA không ghi đè
+    @Column(name = "trending_score", insertable = false, updatable = false)
+    private Double trendingScore;
+
     // 👇 THÊM @JsonIgnore VÀO 2 LIST NÀY ĐỂ SỬA LỖI SWAGGER 500
     
     @OneToMany(mappedBy = "post", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -5,8 +5,12 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.NotFound;
 import org.hibernate.annotations.NotFoundAction;
+
+import java.time.LocalDateTime;
+
 @Entity
 @Table(name = "`Post_Likes`")
 @Getter
@@ -27,4 +31,9 @@ public class PostLike {
     @JoinColumn(name = "user_id", nullable = false)
     @NotFound(action = NotFoundAction.IGNORE)
     private User user;
+
+    // Thời điểm like: bỏ like thì trừ đúng phần điểm trending đã cộng lúc đó (NULL với like cũ trước migration)
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
 }
\ No newline at end of file
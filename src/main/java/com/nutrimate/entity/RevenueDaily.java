@@ -0,0 +1,44 @@
+package com.nutrimate.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Doanh thu cộng dồn theo ngày và nguồn (Booking / Subscription) cho biểu đồ doanh thu Admin.
+ * Được cập nhật trong cùng transaction với webhook thanh toán và đổi trạng thái booking;
+ * job backfill dựng lại toàn bộ từ Bookings / User_Subscriptions.
+ */
+@Entity
+@Table(name = "`Revenue_Daily`", indexes = @Index(name = "uk_revenue_daily_date_source", columnList = "revenue_date, source", unique = true))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueDaily {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "id")
+    private String id;
+
+    @Column(name = "revenue_date", nullable = false)
+    private LocalDate revenueDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "source", nullable = false, length = 20)
+    private Source source;
+
+    @Column(name = "amount", nullable = false, precision = 15, scale = 2)
+    private BigDecimal amount;
+
+    public enum Source {
+        BOOKING,
+        SUBSCRIPTION
+    }
+}
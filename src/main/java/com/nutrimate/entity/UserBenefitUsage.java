@@ -28,7 +28,7 @@ public class UserBenefitUsage {
     @JoinColumn(name = "subscription_id")
     private UserSubscription subscription;
 
-    // --- Cũ: Dành cho Expert ---
+    // --- Cũ: Dành cho Expert (không còn cập nhật - dùng UserSubscription.freeSessionsUsed) ---
     @Column(name = "sessions_used")
     private Integer sessionsUsed; 
 
@@ -13,7 +13,7 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "`User_Subscriptions`")
+@Table(name = "`User_Subscriptions`", indexes = @Index(name = "idx_user_sub_start_id", columnList = "start_date, subscription_id"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -46,6 +46,12 @@ public class UserSubscription {
     @Enumerated(EnumType.STRING)
     private SubscriptionStatus status; // Active, Expired, Cancelled
 
+    // Số lượt free session (booking isFreeSession, chưa hủy/từ chối) có booking_time trong chu kỳ [startDate, endDate].
+    // Chỉ được đổi bằng UPDATE nguyên tử (claim/release) và job đối soát - entity không ghi đè cột này.
+    @Column(name = "free_sessions_used", insertable = false, updatable = false,
+            columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer freeSessionsUsed;
+
     @Column(name = "auto_renew", nullable = false)
     private Boolean autoRenew;
 
@@ -2,72 +2,195 @@ package com.nutrimate.repository;
 
 import com.nutrimate.entity.Booking;
 import com.nutrimate.entity.Booking.BookingStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, String> {
-        // Lịch sử đặt lịch của Member
-        List<Booking> findByMemberIdOrderByBookingTimeDesc(String memberId);
-
-        // Lịch làm việc của Expert
-        List<Booking> findByExpertIdOrderByBookingTimeDesc(String expertId);
-
-        @Query("SELECT b FROM Booking b WHERE :date IS NULL OR DATE(b.bookingTime) = :date")
-        List<Booking> findAllByDate(LocalDate date);
-
-        List<Booking> findByExpertId(String expertId);
+        // --- Lịch sử booking dạng danh sách đầy đủ (API cũ trả List<Booking>) ---
+        // JOIN FETCH member / expert / expert.user để serialize không phát sinh query lazy cho từng dòng
+
+        @Query("SELECT b FROM Booking b LEFT JOIN FETCH b.member LEFT JOIN FETCH b.expert e LEFT JOIN FETCH e.user " +
+                        "WHERE b.member.id = :memberId ORDER BY b.bookingTime DESC, b.id DESC")
+        List<Booking> findMemberBookings(@Param("memberId") String memberId);
+
+        @Query("SELECT b FROM Booking b LEFT JOIN FETCH b.member LEFT JOIN FETCH b.expert e LEFT JOIN FETCH e.user " +
+                        "WHERE b.expert.id = :expertId ORDER BY b.bookingTime DESC, b.id DESC")
+        List<Booking> findExpertBookings(@Param("expertId") String expertId);
+
+        @Query("SELECT b FROM Booking b LEFT JOIN FETCH b.member LEFT JOIN FETCH b.expert e LEFT JOIN FETCH e.user " +
+                        "WHERE b.bookingTime >= :start AND b.bookingTime < :end ORDER BY b.bookingTime DESC, b.id DESC")
+        List<Booking> findBookingsInRange(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+        // --- Lịch sử booking phân trang keyset theo (bookingTime DESC, id DESC) ---
+        // Chỉ lấy các cột cần hiển thị (không nạp entity + quan hệ lazy). Trang đầu truyền afterTime/afterId sentinel.
+        // Cột: id, member.id, member.fullName, expert.id, expert.user.fullName, bookingTime, status,
+        //      meetingLink, note, isFreeSession, finalPrice
+
+        // Lịch sử đặt lịch của Member (index (member_id, booking_time))
+        @Query("SELECT b.id, m.id, m.fullName, e.id, eu.fullName, b.bookingTime, b.status, " +
+                        "b.meetingLink, b.note, b.isFreeSession, b.finalPrice " +
+                        "FROM Booking b LEFT JOIN b.member m LEFT JOIN b.expert e LEFT JOIN e.user eu " +
+                        "WHERE b.member.id = :memberId " +
+                        "AND (b.bookingTime < :afterTime OR (b.bookingTime = :afterTime AND b.id < :afterId)) " +
+                        "ORDER BY b.bookingTime DESC, b.id DESC")
+        List<Object[]> findMemberBookingRows(@Param("memberId") String memberId,
+                        @Param("afterTime") LocalDateTime afterTime,
+                        @Param("afterId") String afterId,
+                        Pageable pageable);
+
+        // Lịch làm việc của Expert (index (expert_user_id, booking_time))
+        @Query("SELECT b.id, m.id, m.fullName, e.id, eu.fullName, b.bookingTime, b.status, " +
+                        "b.meetingLink, b.note, b.isFreeSession, b.finalPrice " +
+                        "FROM Booking b LEFT JOIN b.member m LEFT JOIN b.expert e LEFT JOIN e.user eu " +
+                        "WHERE b.expert.id = :expertId " +
+                        "AND (b.bookingTime < :afterTime OR (b.bookingTime = :afterTime AND b.id < :afterId)) " +
+                        "ORDER BY b.bookingTime DESC, b.id DESC")
+        List<Object[]> findExpertBookingRows(@Param("expertId") String expertId,
+                        @Param("afterTime") LocalDateTime afterTime,
+                        @Param("afterId") String afterId,
+                        Pageable pageable);
+
+        // Admin: booking trong khoảng [start, end) - so sánh trực tiếp booking_time (không bọc DATE())
+        // để dùng được index (booking_time, booking_id)
+        @Query("SELECT b.id, m.id, m.fullName, e.id, eu.fullName, b.bookingTime, b.status, " +
+                        "b.meetingLink, b.note, b.isFreeSession, b.finalPrice " +
+                        "FROM Booking b LEFT JOIN b.member m LEFT JOIN b.expert e LEFT JOIN e.user eu " +
+                        "WHERE b.bookingTime >= :start AND b.bookingTime < :end " +
+                        "AND (b.bookingTime < :afterTime OR (b.bookingTime = :afterTime AND b.id < :afterId)) " +
+                        "ORDER BY b.bookingTime DESC, b.id DESC")
+        List<Object[]> findBookingRowsInRange(@Param("start") LocalDateTime start,
+                        @Param("end") LocalDateTime end,
+                        @Param("afterTime") LocalDateTime afterTime,
+                        @Param("afterId") String afterId,
+                        Pageable pageable);
 
         @Query("SELECT SUM(b.finalPrice) FROM Booking b " +
                         "WHERE b.status = 'COMPLETED' OR b.status = 'DONE' OR b.status = 'CONFIRMED'")
         BigDecimal calculateTotalRevenue();
 
-        @Query("SELECT b FROM Booking b " +
+        // Expert đã có booking đang giữ đúng thời điểm này chưa (dùng index (expert_user_id, booking_time))
+        @Query("SELECT COUNT(b) > 0 FROM Booking b " +
+                        "WHERE b.expert.id = :expertId AND b.bookingTime = :bookingTime AND b.status IN :statuses")
+        boolean existsActiveAt(@Param("expertId") String expertId,
+                        @Param("bookingTime") LocalDateTime bookingTime,
+                        @Param("statuses") List<BookingStatus> statuses);
+
+        // Giờ của các booking đang giữ slot của Expert trong khoảng [start, end) - so sánh trực tiếp
+        // booking_time (không bọc DATE()) để dùng được index (expert_user_id, booking_time)
+        @Query("SELECT b.bookingTime FROM Booking b " +
                         "WHERE b.expert.id = :expertId " +
-                        "AND DATE(b.bookingTime) = :date " +
-                        "AND (b.status = 'PENDING' OR b.status = 'CONFIRMED')")
-        List<Booking> findByExpertAndDateWithActiveStatus(@Param("expertId") String expertId,
-                        @Param("date") LocalDate date);
+                        "AND b.bookingTime >= :start AND b.bookingTime < :end " +
+                        "AND b.status IN :statuses")
+        List<LocalDateTime> findActiveBookingTimesInRange(@Param("expertId") String expertId,
+                        @Param("statuses") List<BookingStatus> statuses,
+                        @Param("start") LocalDateTime start,
+                        @Param("end") LocalDateTime end);
 
         Optional<Booking> findByOrderCode(Long orderCode);
 
-        List<Booking> findByStatusAndCreatedAtBefore(BookingStatus status, LocalDateTime createdAtBefore);
-
-        @Query("SELECT b FROM Booking b WHERE b.bookingTime BETWEEN :start AND :end " +
+        // --- Hết hạn booking PENDING (timer wheel + sweep dự phòng) ---
+        // Nạp timer wheel lúc khởi động: (id, createdAt) của các booking đang chờ thanh toán
+        @Query("SELECT b.id, b.createdAt FROM Booking b WHERE b.status = 'PENDING'")
+        List<Object[]> findPendingDeadlines();
+
+        @Query("SELECT b.id FROM Booking b WHERE b.status = 'PENDING' AND b.createdAt < :cutoff")
+        List<String> findPendingIdsCreatedBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+        // Khóa các dòng còn PENDING trong danh sách và lấy thông tin cho cache
+        // (webhook xác nhận bằng confirmPendingById cũng cần khóa dòng nên chờ tới khi lô này commit):
+        // id, expertId, bookingTime, isFreeSession, memberId
+        @Lock(LockModeType.PESSIMISTIC_WRITE)
+        @Query("SELECT b.id, b.expert.id, b.bookingTime, b.isFreeSession, b.member.id FROM Booking b " +
+                        "WHERE b.id IN :ids AND b.status = 'PENDING'")
+        List<Object[]> lockPendingByIdIn(@Param("ids") Collection<String> ids);
+
+        // Webhook PayOS: PENDING -> CONFIRMED chỉ khi booking còn PENDING (chưa bị hủy do quá hạn).
+        // Trả về 0 nếu booking đã rời PENDING.
+        @Modifying(flushAutomatically = true, clearAutomatically = true)
+        @Query("UPDATE Booking b SET b.status = 'CONFIRMED' WHERE b.id = :id AND b.status = 'PENDING'")
+        int confirmPendingById(@Param("id") String id);
+
+        // Hủy hàng loạt bằng 1 câu UPDATE (không load/save từng entity)
+        @Modifying(clearAutomatically = true)
+        @Query("UPDATE Booking b SET b.status = 'CANCELLED' WHERE b.status = 'PENDING' AND b.id IN :ids")
+        int expirePendingByIdIn(@Param("ids") Collection<String> ids);
+
+        // Booking sắp diễn ra cần nhắc: chỉ lấy id, member.id, bookingTime (không nạp entity)
+        @Query("SELECT b.id, b.member.id, b.bookingTime FROM Booking b WHERE b.bookingTime BETWEEN :start AND :end " +
                 "AND (b.isReminded IS NULL OR b.isReminded = false) " +
-                "AND b.status IN ('PENDING', 'CONFIRMED')")
-        List<Booking> findUpcomingToRemind(@Param("start") LocalDateTime start,
-                                          @Param("end") LocalDateTime end);
-
-        @Query("SELECT COUNT(b) FROM Booking b " +
-                        "WHERE b.member.id = :memberId " +
-                        "AND b.isFreeSession = true " +
-                        "AND b.status IN :statuses " +
-                        "AND b.bookingTime BETWEEN :startTime AND :endTime")
-        long countUsedFreeSessions(@Param("memberId") String memberId,
-                        @Param("statuses") List<BookingStatus> statuses,
-                        @Param("startTime") LocalDateTime startTime,
-                        @Param("endTime") LocalDateTime endTime);
+                "AND b.status IN ('PENDING', 'CONFIRMED') AND b.member IS NOT NULL")
+        List<Object[]> findUpcomingToRemind(@Param("start") LocalDateTime start,
+                                            @Param("end") LocalDateTime end);
 
-        // Dùng cho Biểu đồ doanh thu: Gom tiền Booking theo Tuần/Tháng/Năm (Chỉ tính
-        // đơn đã trả tiền/xong)
-        @Query(value = "SELECT DATE_FORMAT(booking_time, '%Y-%m') as label, SUM(final_price) FROM Bookings WHERE status IN ('CONFIRMED', 'COMPLETED') GROUP BY label ORDER BY label", nativeQuery = true)
-        List<Object[]> getRevenueByMonth();
-
-        @Query(value = "SELECT YEAR(booking_time) as label, SUM(final_price) FROM Bookings WHERE status IN ('CONFIRMED', 'COMPLETED') GROUP BY label ORDER BY label", nativeQuery = true)
-        List<Object[]> getRevenueByYear();
-
-        @Query(value = "SELECT DATE_FORMAT(booking_time, '%x-W%v') as label, SUM(final_price) FROM Bookings WHERE status IN ('CONFIRMED', 'COMPLETED') GROUP BY label ORDER BY label", nativeQuery = true)
-        List<Object[]> getRevenueByWeek();
+        @Modifying(clearAutomatically = true)
+        @Query("UPDATE Booking b SET b.isReminded = true WHERE b.id IN :ids")
+        int markRemindedByIdIn(@Param("ids") Collection<String> ids);
 
         @Query("SELECT COUNT(b) FROM Booking b WHERE b.status IN ('CONFIRMED', 'COMPLETED') AND b.orderCode IS NOT NULL")
         long countSuccessfulBookings();
+
+        // Lịch sử giao dịch admin: gộp Booking + Subscription (có orderCode) bằng UNION ALL ngay trong DB.
+        // Mỗi nhánh tự ORDER BY + LIMIT theo index (thời gian, id) rồi mới gộp -> không quét toàn bảng.
+        // Cột trả về: id, order_code, user_full_name, user_email, type, detail, amount, status, txn_date
+        // Tham số "tắt" bộ lọc: status = '', fromTime/toTime/afterTime = mốc biên (không truyền NULL)
+        @Query(value = "(SELECT b.booking_id AS id, b.order_code, u.full_name AS user_full_name, u.email AS user_email, " +
+                        "'BOOKING' AS type, eu.full_name AS detail, b.final_price AS amount, b.status, b.booking_time AS txn_date " +
+                        "FROM `Bookings` b " +
+                        "LEFT JOIN `Users` u ON u.user_id = b.member_id " +
+                        "LEFT JOIN `Expert_Profiles` e ON e.expert_id = b.expert_user_id " +
+                        "LEFT JOIN `Users` eu ON eu.user_id = e.user_id " +
+                        "WHERE :includeBookings = true AND b.order_code IS NOT NULL " +
+                        "AND (:status = '' OR b.status = :status) " +
+                        "AND b.booking_time >= :fromTime AND b.booking_time < :toTime " +
+                        "AND (b.booking_time < :afterTime OR (b.booking_time = :afterTime AND b.booking_id < :afterId)) " +
+                        "ORDER BY b.booking_time DESC, b.booking_id DESC LIMIT :branchLimit) " +
+                        "UNION ALL " +
+                        "(SELECT s.subscription_id AS id, s.order_code, u.full_name AS user_full_name, u.email AS user_email, " +
+                        "'SUBSCRIPTION' AS type, p.plan_name AS detail, p.price AS amount, s.status, s.start_date AS txn_date " +
+                        "FROM `User_Subscriptions` s " +
+                        "LEFT JOIN `Users` u ON u.user_id = s.user_id " +
+                        "LEFT JOIN `Subscription_Plans` p ON p.plan_id = s.plan_id " +
+                        "WHERE :includeSubscriptions = true AND s.order_code IS NOT NULL " +
+                        "AND (:status = '' OR s.status = :status) " +
+                        "AND s.start_date >= :fromTime AND s.start_date < :toTime " +
+                        "AND (s.start_date < :afterTime OR (s.start_date = :afterTime AND s.subscription_id < :afterId)) " +
+                        "ORDER BY s.start_date DESC, s.subscription_id DESC LIMIT :branchLimit) " +
+                        "ORDER BY txn_date DESC, id DESC LIMIT :limit OFFSET :offset", nativeQuery = true)
+        List<Object[]> findTransactionRows(@Param("includeBookings") boolean includeBookings,
+                        @Param("includeSubscriptions") boolean includeSubscriptions,
+                        @Param("status") String status,
+                        @Param("fromTime") LocalDateTime fromTime,
+                        @Param("toTime") LocalDateTime toTime,
+                        @Param("afterTime") LocalDateTime afterTime,
+                        @Param("afterId") String afterId,
+                        @Param("branchLimit") int branchLimit,
+                        @Param("limit") int limit,
+                        @Param("offset") int offset);
+
+        // Tổng số giao dịch theo cùng bộ lọc (không phụ thuộc cursor) - kết quả được cache ở service
+        @Query(value = "SELECT " +
+                        "(SELECT COUNT(*) FROM `Bookings` b WHERE :includeBookings = true AND b.order_code IS NOT NULL " +
+                        "AND (:status = '' OR b.status = :status) " +
+                        "AND b.booking_time >= :fromTime AND b.booking_time < :toTime) + " +
+                        "(SELECT COUNT(*) FROM `User_Subscriptions` s WHERE :includeSubscriptions = true AND s.order_code IS NOT NULL " +
+                        "AND (:status = '' OR s.status = :status) " +
+                        "AND s.start_date >= :fromTime AND s.start_date < :toTime)", nativeQuery = true)
+        long countTransactions(@Param("includeBookings") boolean includeBookings,
+                        @Param("includeSubscriptions") boolean includeSubscriptions,
+                        @Param("status") String status,
+                        @Param("fromTime") LocalDateTime fromTime,
+                        @Param("toTime") LocalDateTime toTime);
 }
\ No newline at end of file
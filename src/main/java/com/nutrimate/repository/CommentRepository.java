@@ -1,8 +1,13 @@
 package com.nutrimate.repository;
 
 import com.nutrimate.entity.Comment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -10,4 +15,22 @@ public interface CommentRepository extends JpaRepository<Comment, String> {
     List<Comment> findByPostIdOrderByCreatedAtAsc(String postId);
 
     long countByPostId(String postId);
-}
\ No newline at end of file
+
+    // Comment của post theo cursor (cũ -> mới) kèm tác giả - trang đầu (index idx_comment_post_created_id)
+    @Query("SELECT c FROM Comment c LEFT JOIN FETCH c.user WHERE c.post.id = :postId " +
+            "ORDER BY c.createdAt ASC, c.id ASC")
+    List<Comment> findPageByPostId(@Param("postId") String postId, Pageable pageable);
+
+    // Comment của post theo cursor (cũ -> mới) kèm tác giả - các trang sau cursor (createdAt, id)
+    @Query("SELECT c FROM Comment c LEFT JOIN FETCH c.user WHERE c.post.id = :postId " +
+            "AND (c.createdAt > :createdAt OR (c.createdAt = :createdAt AND c.id > :commentId)) " +
+            "ORDER BY c.createdAt ASC, c.id ASC")
+    List<Comment> findPageByPostIdAfter(@Param("postId") String postId,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("commentId") String commentId,
+                                        Pageable pageable);
+
+    // Build index tìm kiếm: quét (id, postId, content) theo chunk keyset
+    @Query("SELECT c.id, c.post.id, c.content FROM Comment c WHERE c.id > :afterId ORDER BY c.id")
+    List<Object[]> findSearchRowsAfter(@Param("afterId") String afterId, Pageable pageable);
+}
@@ -2,12 +2,32 @@ package com.nutrimate.repository;
 
 import com.nutrimate.entity.DailyLog;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface DailyLogRepository extends JpaRepository<DailyLog, String> {
     // Tìm log của user trong một ngày cụ thể
     Optional<DailyLog> findByUserIdAndLogDate(String userId, LocalDate logDate);
+
+    // Lấy log của user trong khoảng ngày (dùng index idx_daily_log_user_date)
+    List<DailyLog> findByUserIdAndLogDateBetweenOrderByLogDateAsc(String userId, LocalDate from, LocalDate to);
+
+    // Cộng/trừ tổng calo + macro ngay trong SQL (atomic): 2 request cùng ngày không ghi đè tổng của nhau
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE DailyLog d SET d.totalCaloriesIn = d.totalCaloriesIn + :calories, " +
+            "d.totalProteinIn = COALESCE(d.totalProteinIn, 0) + :protein, " +
+            "d.totalCarbsIn = COALESCE(d.totalCarbsIn, 0) + :carbs, " +
+            "d.totalFatIn = COALESCE(d.totalFatIn, 0) + :fat " +
+            "WHERE d.id = :logId")
+    int addNutrition(@Param("logId") String logId,
+                     @Param("calories") int calories,
+                     @Param("protein") double protein,
+                     @Param("carbs") double carbs,
+                     @Param("fat") double fat);
 }
\ No newline at end of file
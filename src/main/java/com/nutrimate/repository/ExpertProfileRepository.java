@@ -3,12 +3,14 @@ package com.nutrimate.repository;
 import com.nutrimate.entity.ExpertProfile;
 import com.nutrimate.entity.ExpertProfile.ApprovalStatus;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,9 +26,31 @@ public interface ExpertProfileRepository extends JpaRepository<ExpertProfile, St
     // Tìm các chuyên gia có đánh giá cao
     List<ExpertProfile> findByRatingGreaterThanEqual(Float rating);
 
-    @Query("SELECT e FROM ExpertProfile e WHERE " +
-           "(:minRating IS NULL OR e.rating >= :minRating) AND " +
-           "(:maxPrice IS NULL OR e.hourlyRate <= :maxPrice)")
-    List<ExpertProfile> searchExperts(@Param("minRating") Float minRating, 
-                                      @Param("maxPrice") BigDecimal maxPrice);
+    // --- Tổng sao / số lượt feedback (denormalize từ bảng feedbacks) ---
+    // Cộng 1 feedback: 1 câu UPDATE nguyên tử trên đúng dòng expert (không đọc-sửa-ghi).
+    // MySQL gán từ trái sang phải nên rating tính trước, từ giá trị cũ + điểm mới.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE `Expert_Profiles` SET rating = (rating_sum + :rating) / (rating_count + 1), " +
+            "rating_sum = rating_sum + :rating, rating_count = rating_count + 1 " +
+            "WHERE expert_id = :expertId", nativeQuery = true)
+    int addRating(@Param("expertId") String expertId, @Param("rating") int rating);
+
+    // (ratingSum, ratingCount) của 1 expert
+    @Query("SELECT e.ratingSum, e.ratingCount FROM ExpertProfile e WHERE e.id = :expertId")
+    List<Object[]> findRatingTotals(@Param("expertId") String expertId);
+
+    // Đối soát: duyệt expert theo chunk expert_id
+    @Query("SELECT e.id FROM ExpertProfile e WHERE e.id > :afterId ORDER BY e.id")
+    List<String> findIdsAfter(@Param("afterId") String afterId, Pageable pageable);
+
+    // Tính lại tổng sao / số lượt từ bảng feedbacks cho 1 chunk expert
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE `Expert_Profiles` e LEFT JOIN (" +
+            "SELECT f.expert_id, SUM(f.rating) AS total, COUNT(*) AS cnt FROM feedbacks f " +
+            "WHERE f.expert_id IN (:expertIds) GROUP BY f.expert_id) agg ON agg.expert_id = e.expert_id " +
+            "SET e.rating_sum = COALESCE(agg.total, 0), e.rating_count = COALESCE(agg.cnt, 0), " +
+            "e.rating = IF(agg.cnt > 0, agg.total / agg.cnt, e.rating) " +
+            "WHERE e.expert_id IN (:expertIds)", nativeQuery = true)
+    int reconcileRatings(@Param("expertIds") List<String> expertIds);
 }
\ No newline at end of file
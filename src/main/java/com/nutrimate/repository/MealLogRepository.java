@@ -2,6 +2,9 @@ package com.nutrimate.repository;
 
 import com.nutrimate.entity.MealLog;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
@@ -9,4 +12,15 @@ import java.util.List;
 public interface MealLogRepository extends JpaRepository<MealLog, String> {
     // Lấy tất cả món ăn trong một Daily Log
     List<MealLog> findByDailyLogId(String dailyLogId);
-}
\ No newline at end of file
+
+    // Lấy món ăn của một Daily Log kèm Recipe trong 1 query (dùng index idx_meal_log_log_id)
+    @Query("SELECT m FROM MealLog m LEFT JOIN FETCH m.recipe WHERE m.dailyLog.id = :logId")
+    List<MealLog> findByDailyLogIdWithRecipe(@Param("logId") String logId);
+
+    // Copy toàn bộ món ăn của một Daily Log sang Daily Log khác bằng 1 lệnh INSERT ... SELECT
+    @Modifying
+    @Query(value = "INSERT INTO Meal_Logs (meal_log_id, log_id, recipe_id, meal_type, amount, calories_consumed) " +
+            "SELECT UUID(), :targetLogId, m.recipe_id, m.meal_type, m.amount, m.calories_consumed " +
+            "FROM Meal_Logs m WHERE m.log_id = :sourceLogId", nativeQuery = true)
+    int copyMealLogs(@Param("sourceLogId") String sourceLogId, @Param("targetLogId") String targetLogId);
+}
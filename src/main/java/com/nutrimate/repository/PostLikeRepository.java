@@ -2,8 +2,12 @@ package com.nutrimate.repository;
 
 import com.nutrimate.entity.PostLike;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface PostLikeRepository extends JpaRepository<PostLike, String> {
@@ -12,4 +16,8 @@ public interface PostLikeRepository extends JpaRepository<PostLike, String> {
     
     // Check xem user đã like chưa
     boolean existsByUserIdAndPostId(String userId, String postId);
-}
\ No newline at end of file
+
+    // Lấy các post (trong danh sách) mà user đã like - 1 query cho cả trang newsfeed
+    @Query("SELECT l.post.id FROM PostLike l WHERE l.user.id = :userId AND l.post.id IN :postIds")
+    Set<String> findLikedPostIds(@Param("userId") String userId, @Param("postIds") Collection<String> postIds);
+}
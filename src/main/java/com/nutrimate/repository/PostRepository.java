@@ -4,10 +4,83 @@ import com.nutrimate.entity.Post;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, String> {
     // Lấy bài viết mới nhất trước
     Page<Post> findAllByOrderByCreatedAtDesc(Pageable pageable);
-}
\ No newline at end of file
+
+    // Newsfeed: lấy bài viết mới nhất kèm tác giả trong 1 query (tránh N+1 khi load Post.user)
+    // Thứ tự (createdAt, id) giảm dần giống snapshot trang đầu / keyset: bài trùng createdAt không nhảy trang
+    @Query(value = "SELECT p FROM Post p LEFT JOIN FETCH p.user ORDER BY p.createdAt DESC, p.id DESC",
+            countQuery = "SELECT COUNT(p) FROM Post p")
+    Page<Post> findFeedWithAuthor(Pageable pageable);
+
+    // Newsfeed keyset (cursor): trang đầu - không cần COUNT, dùng index idx_post_created_id
+    @Query("SELECT p FROM Post p LEFT JOIN FETCH p.user ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findFeedFirstPage(Pageable pageable);
+
+    // Newsfeed keyset (cursor): các trang sau - lấy bài cũ hơn cursor (createdAt, id)
+    @Query("SELECT p FROM Post p LEFT JOIN FETCH p.user " +
+            "WHERE p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :postId) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findFeedAfter(@Param("createdAt") LocalDateTime createdAt,
+                             @Param("postId") String postId,
+                             Pageable pageable);
+
+    // Cộng/trừ like_count ngay trong SQL (atomic, không đọc-sửa-ghi cả entity / cột TEXT content)
+    @Modifying
+    @Query("UPDATE Post p SET p.likeCount = CASE WHEN p.likeCount + :delta < 0 THEN 0 ELSE p.likeCount + :delta END " +
+            "WHERE p.id = :postId")
+    int incrementLikeCount(@Param("postId") String postId, @Param("delta") int delta);
+
+    // Cộng/trừ comment_count ngay trong SQL (atomic)
+    @Modifying
+    @Query("UPDATE Post p SET p.commentCount = CASE WHEN p.commentCount + :delta < 0 THEN 0 ELSE p.commentCount + :delta END " +
+            "WHERE p.id = :postId")
+    int incrementCommentCount(@Param("postId") String postId, @Param("delta") int delta);
+
+    // Đọc lại like_count/comment_count mới nhất (entity đã nạp có thể cũ hơn các UPDATE atomic ở trên)
+    @Query("SELECT p.likeCount, p.commentCount FROM Post p WHERE p.id = :postId")
+    List<Object[]> findCountersById(@Param("postId") String postId);
+
+    // Đối soát: duyệt post_id theo từng chunk (keyset theo id)
+    @Query("SELECT p.id FROM Post p WHERE p.id > :afterId ORDER BY p.id")
+    List<String> findIdsAfter(@Param("afterId") String afterId, Pageable pageable);
+
+    // Đối soát: tính lại like_count/comment_count từ Post_Likes/Comments cho 1 chunk post (chỉ ghi dòng bị lệch)
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE Posts p " +
+            "JOIN (SELECT p2.post_id, " +
+            "  (SELECT COUNT(*) FROM Post_Likes l WHERE l.post_id = p2.post_id) AS likes, " +
+            "  (SELECT COUNT(*) FROM Comments c WHERE c.post_id = p2.post_id) AS comments " +
+            "  FROM Posts p2 WHERE p2.post_id IN (:postIds)) t ON t.post_id = p.post_id " +
+            "SET p.like_count = t.likes, p.comment_count = t.comments " +
+            "WHERE p.like_count <> t.likes OR p.comment_count <> t.comments", nativeQuery = true)
+    int reconcileCounters(@Param("postIds") List<String> postIds);
+
+    // Build index tìm kiếm: quét (id, content, createdAt) theo chunk keyset, không load entity/tác giả
+    @Query("SELECT p.id, p.content, p.createdAt FROM Post p WHERE p.id > :afterId ORDER BY p.id")
+    List<Object[]> findSearchRowsAfter(@Param("afterId") String afterId, Pageable pageable);
+
+    // Lấy các bài viết theo danh sách id kèm tác giả (kết quả tìm kiếm)
+    @Query("SELECT p FROM Post p LEFT JOIN FETCH p.user WHERE p.id IN :ids")
+    List<Post> findWithAuthorByIdIn(@Param("ids") Collection<String> ids);
+
+    // Nạp điểm trending lúc khởi động: quét (id, trendingScore, createdAt, likeCount, commentCount) theo chunk, bỏ bài bị ẩn
+    @Query("SELECT p.id, p.trendingScore, p.createdAt, p.likeCount, p.commentCount FROM Post p " +
+            "WHERE p.id > :afterId AND (p.content IS NULL OR p.content <> :hiddenContent) ORDER BY p.id")
+    List<Object[]> findTrendingRowsAfter(@Param("afterId") String afterId,
+                                         @Param("hiddenContent") String hiddenContent,
+                                         Pageable pageable);
+}
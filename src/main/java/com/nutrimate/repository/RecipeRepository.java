@@ -18,16 +18,17 @@ public interface RecipeRepository extends JpaRepository<Recipe, String> {
     // Tìm kiếm công thức theo tên (có phân trang)
     Page<Recipe> findByTitleContainingIgnoreCase(String title, Pageable pageable);
 
+    // Danh sách công thức lọc theo khoảng calories (tìm theo từ khóa đi qua RecipeSearchIndex)
     @Query("SELECT r FROM Recipe r WHERE " +
-            "(:keyword IS NULL OR LOWER(r.title) LIKE LOWER(CONCAT('%', :keyword, '%'))) AND " +
+            "(:minCal IS NULL OR r.calories >= :minCal) AND " +
             "(:maxCal IS NULL OR r.calories <= :maxCal)")
-    Page<Recipe> searchRecipes(@Param("keyword") String keyword,
+    Page<Recipe> findByCaloriesRange(@Param("minCal") Integer minCal,
             @Param("maxCal") Integer maxCal,
             Pageable pageable);
 
-    @Query("SELECT r FROM Recipe r WHERE LOWER(r.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(r.description) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    List<Recipe> findByKeywordInTitleOrDescription(@Param("keyword") String keyword, Pageable pageable);
+    // Build index tìm kiếm: quét (id, title, description, calories) theo chunk keyset
+    @Query("SELECT r.id, r.title, r.description, r.calories FROM Recipe r WHERE r.id > :afterId ORDER BY r.id")
+    List<Object[]> findSearchRowsAfter(@Param("afterId") String afterId, Pageable pageable);
 
     // Lọc công thức Premium
     Page<Recipe> findByIsPremium(Boolean isPremium, Pageable pageable);
@@ -0,0 +1,57 @@
+package com.nutrimate.repository;
+
+import com.nutrimate.entity.RevenueDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevenueDailyRepository extends JpaRepository<RevenueDaily, String> {
+
+    // Cộng (hoặc trừ) doanh thu vào bucket ngày; tạo bucket nếu chưa có (upsert theo unique (revenue_date, source))
+    @Modifying
+    @Query(value = "INSERT INTO `Revenue_Daily` (id, revenue_date, source, amount) VALUES (UUID(), :date, :source, :delta) " +
+            "ON DUPLICATE KEY UPDATE amount = amount + VALUES(amount)", nativeQuery = true)
+    int addRevenue(@Param("date") LocalDate date, @Param("source") String source, @Param("delta") BigDecimal delta);
+
+    // Dữ liệu biểu đồ: (ngày, tổng tiền của cả 2 nguồn) tăng dần theo ngày
+    @Query("SELECT r.revenueDate, SUM(r.amount) FROM RevenueDaily r GROUP BY r.revenueDate ORDER BY r.revenueDate")
+    List<Object[]> sumByDay();
+
+    // --- Rebuild: tính lại rollup từ bảng gốc theo từng ngày (cùng điều kiện với các câu biểu đồ cũ) ---
+
+    // Mọi ngày có thể có doanh thu: ngày có booking/subscription tính tiền + ngày đang có trong rollup
+    @Query(value = "SELECT d FROM (" +
+            "SELECT DISTINCT DATE(booking_time) AS d FROM `Bookings` WHERE status IN ('CONFIRMED', 'COMPLETED') " +
+            "UNION SELECT DISTINCT DATE(start_date) FROM `User_Subscriptions` WHERE status = 'ACTIVE' " +
+            "UNION SELECT revenue_date FROM `Revenue_Daily`) t WHERE d IS NOT NULL ORDER BY d", nativeQuery = true)
+    List<Object> findRevenueDays();
+
+    // Ghi đè bucket BOOKING của 1 ngày bằng tổng tính lại (range trên idx_booking_time_id)
+    @Modifying
+    @Query(value = "INSERT INTO `Revenue_Daily` (id, revenue_date, source, amount) " +
+            "SELECT UUID(), :day, 'BOOKING', COALESCE(SUM(final_price), 0) FROM `Bookings` " +
+            "WHERE status IN ('CONFIRMED', 'COMPLETED') AND booking_time >= :from AND booking_time < :to " +
+            "ON DUPLICATE KEY UPDATE amount = VALUES(amount)", nativeQuery = true)
+    int recomputeBookingDay(@Param("day") LocalDate day,
+                            @Param("from") LocalDateTime from,
+                            @Param("to") LocalDateTime to);
+
+    // Ghi đè bucket SUBSCRIPTION của 1 ngày bằng tổng tính lại (range trên idx_user_sub_start_id)
+    @Modifying
+    @Query(value = "INSERT INTO `Revenue_Daily` (id, revenue_date, source, amount) " +
+            "SELECT UUID(), :day, 'SUBSCRIPTION', COALESCE(SUM(p.price), 0) FROM `User_Subscriptions` s " +
+            "JOIN `Subscription_Plans` p ON s.plan_id = p.plan_id " +
+            "WHERE s.status = 'ACTIVE' AND s.start_date >= :from AND s.start_date < :to " +
+            "ON DUPLICATE KEY UPDATE amount = VALUES(amount)", nativeQuery = true)
+    int recomputeSubscriptionDay(@Param("day") LocalDate day,
+                                 @Param("from") LocalDateTime from,
+                                 @Param("to") LocalDateTime to);
+}
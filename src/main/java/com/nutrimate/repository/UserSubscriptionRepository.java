@@ -2,9 +2,13 @@ package com.nutrimate.repository;
 
 import com.nutrimate.entity.UserSubscription;
 import com.nutrimate.entity.UserSubscription.SubscriptionStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.List;
@@ -22,15 +26,32 @@ public interface UserSubscriptionRepository extends JpaRepository<UserSubscripti
     @Query("SELECT s.plan.planName, COUNT(s) FROM UserSubscription s GROUP BY s.plan.planName")
     List<Object[]> countSubscriptionsByPlan();
 
-    // 2. Dùng cho Biểu đồ doanh thu: Gom tiền mua gói theo Tuần/Tháng/Năm
-    @Query(value = "SELECT DATE_FORMAT(s.start_date, '%Y-%m') as label, SUM(p.price) FROM User_Subscriptions s JOIN `Subscription_Plans` p ON s.plan_id = p.plan_id WHERE s.status = 'ACTIVE' GROUP BY label ORDER BY label", nativeQuery = true)
-    List<Object[]> getRevenueByMonth();
-
-    @Query(value = "SELECT YEAR(s.start_date) as label, SUM(p.price) FROM User_Subscriptions s JOIN `Subscription_Plans` p ON s.plan_id = p.plan_id WHERE s.status = 'ACTIVE' GROUP BY label ORDER BY label", nativeQuery = true)
-    List<Object[]> getRevenueByYear();
-
-    @Query(value = "SELECT DATE_FORMAT(s.start_date, '%x-W%v') as label, SUM(p.price) FROM User_Subscriptions s JOIN `Subscription_Plans` p ON s.plan_id = p.plan_id WHERE s.status = 'ACTIVE' GROUP BY label ORDER BY label", nativeQuery = true)
-    List<Object[]> getRevenueByWeek();
+    // --- Bộ đếm free session theo chu kỳ (cột free_sessions_used) ---
+    // Giữ 1 lượt nếu còn hạn mức: trả về 1 nếu giữ được, 0 nếu đã hết lượt (nguyên tử, không read-modify-write)
+    @Modifying
+    @Query(value = "UPDATE `User_Subscriptions` SET free_sessions_used = free_sessions_used + 1 " +
+            "WHERE subscription_id = :subscriptionId AND free_sessions_used < :limit", nativeQuery = true)
+    int claimFreeSession(@Param("subscriptionId") String subscriptionId, @Param("limit") int limit);
+
+    // Trả lại 1 lượt (booking free bị hủy / từ chối / hết hạn)
+    @Modifying
+    @Query(value = "UPDATE `User_Subscriptions` SET free_sessions_used = free_sessions_used - 1 " +
+            "WHERE subscription_id = :subscriptionId AND free_sessions_used > 0", nativeQuery = true)
+    int releaseFreeSession(@Param("subscriptionId") String subscriptionId);
+
+    // Đối soát: duyệt các gói còn hiệu lực theo chunk subscription_id
+    @Query("SELECT s.id FROM UserSubscription s WHERE s.status = 'Active' AND s.endDate > :now AND s.id > :afterId ORDER BY s.id")
+    List<String> findActiveIdsAfter(@Param("now") LocalDateTime now, @Param("afterId") String afterId, Pageable pageable);
+
+    // Đếm lại free_sessions_used từ Bookings (cùng điều kiện với countUsedFreeSessions trước đây)
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE `User_Subscriptions` s SET s.free_sessions_used = (" +
+            "SELECT COUNT(*) FROM `Bookings` b WHERE b.member_id = s.user_id AND b.is_free_session = true " +
+            "AND b.status IN ('PENDING', 'CONFIRMED', 'COMPLETED', 'DONE') " +
+            "AND b.booking_time BETWEEN s.start_date AND s.end_date) " +
+            "WHERE s.subscription_id IN (:subscriptionIds)", nativeQuery = true)
+    int reconcileFreeSessions(@Param("subscriptionIds") List<String> subscriptionIds);
 
     @Query("SELECT SUM(s.plan.price) FROM UserSubscription s WHERE s.status = 'Active'")
     java.math.BigDecimal calculateTotalRevenue();
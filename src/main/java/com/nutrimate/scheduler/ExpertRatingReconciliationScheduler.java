@@ -0,0 +1,42 @@
+package com.nutrimate.scheduler;
+
+import com.nutrimate.repository.ExpertProfileRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExpertRatingReconciliationScheduler {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final ExpertProfileRepository expertProfileRepository;
+
+    /**
+     * Job 03:30 hằng ngày - tính lại rating_sum / rating_count / rating của Expert từ bảng feedbacks
+     * (backfill dữ liệu cũ + sửa sai lệch). Duyệt theo từng chunk expert_id, mỗi chunk 1 transaction ngắn.
+     */
+    @Scheduled(cron = "0 30 3 * * *", zone = "Asia/Ho_Chi_Minh")
+    public void reconcileExpertRatings() {
+        String afterId = "";
+        int scanned = 0;
+
+        while (true) {
+            List<String> ids = expertProfileRepository.findIdsAfter(afterId, PageRequest.of(0, CHUNK_SIZE));
+            if (ids.isEmpty()) {
+                break;
+            }
+            expertProfileRepository.reconcileRatings(ids);
+            scanned += ids.size();
+            afterId = ids.get(ids.size() - 1);
+        }
+
+        log.info("ExpertRatingReconciliation: đã tính lại rating cho {} expert", scanned);
+    }
+}
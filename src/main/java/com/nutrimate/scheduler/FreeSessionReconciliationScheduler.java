@@ -0,0 +1,44 @@
+package com.nutrimate.scheduler;
+
+import com.nutrimate.repository.UserSubscriptionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FreeSessionReconciliationScheduler {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final UserSubscriptionRepository userSubscriptionRepository;
+
+    /**
+     * Job 03:45 hằng ngày - đếm lại free_sessions_used của các gói còn hiệu lực từ bảng Bookings.
+     * Duyệt theo từng chunk subscription_id, mỗi chunk 1 transaction ngắn.
+     */
+    @Scheduled(cron = "0 45 3 * * *", zone = "Asia/Ho_Chi_Minh")
+    public void reconcileFreeSessions() {
+        LocalDateTime now = LocalDateTime.now();
+        String afterId = "";
+        int scanned = 0;
+
+        while (true) {
+            List<String> ids = userSubscriptionRepository.findActiveIdsAfter(now, afterId, PageRequest.of(0, CHUNK_SIZE));
+            if (ids.isEmpty()) {
+                break;
+            }
+            userSubscriptionRepository.reconcileFreeSessions(ids);
+            scanned += ids.size();
+            afterId = ids.get(ids.size() - 1);
+        }
+
+        log.info("FreeSessionReconciliation: đã đếm lại free_sessions_used cho {} gói còn hiệu lực", scanned);
+    }
+}
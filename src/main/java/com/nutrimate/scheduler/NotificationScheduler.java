@@ -1,11 +1,11 @@
 package com.nutrimate.scheduler;
 
-import com.nutrimate.entity.Booking;
 import com.nutrimate.entity.Notification.NotificationType;
 import com.nutrimate.entity.UserChallenge;
 import com.nutrimate.repository.BookingRepository;
 import com.nutrimate.repository.UserChallengeRepository;
 import com.nutrimate.service.NotificationService;
+import com.nutrimate.service.NotificationService.BatchNotification;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -14,6 +14,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Component
@@ -21,6 +22,8 @@ import java.util.List;
 @Slf4j
 public class NotificationScheduler {
 
+    private static final int BATCH_SIZE = 500;
+
     private final BookingRepository bookingRepository;
     private final UserChallengeRepository userChallengeRepository;
     private final NotificationService notificationService;
@@ -31,17 +34,26 @@ public class NotificationScheduler {
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime start = now.plusHours(1);
         LocalDateTime end = now.plusHours(2);
-        List<Booking> bookings = bookingRepository.findUpcomingToRemind(start, end);
-        for (Booking b : bookings) {
-            if (b.getMember() == null || b.getMember().getId() == null) continue;
-            String userId = b.getMember().getId();
-            String title = "Nhắc lịch hẹn sắp tới";
-            String msg = String.format("Bạn có lịch hẹn với chuyên gia vào lúc %s. Hãy chuẩn bị nhé!",
-                    b.getBookingTime() != null ? b.getBookingTime().toLocalTime().toString() : "");
-            notificationService.createAndPush(userId, title, msg, NotificationType.APPOINTMENT);
-            b.setIsReminded(true);
-            bookingRepository.save(b);
-            log.debug("Reminded user {} for booking {}", userId, b.getId());
+        // 1 query lấy (id, member.id, bookingTime) -> 1 batch insert notification -> 1 UPDATE isReminded mỗi lô.
+        // WebSocket chỉ bắn sau khi commit (trong NotificationService.createAndPushAll).
+        List<Object[]> rows = bookingRepository.findUpcomingToRemind(start, end);
+        for (int i = 0; i < rows.size(); i += BATCH_SIZE) {
+            List<Object[]> chunk = rows.subList(i, Math.min(i + BATCH_SIZE, rows.size()));
+            List<String> bookingIds = new ArrayList<>(chunk.size());
+            List<BatchNotification> notifications = new ArrayList<>(chunk.size());
+            for (Object[] row : chunk) {
+                LocalDateTime bookingTime = (LocalDateTime) row[2];
+                String msg = String.format("Bạn có lịch hẹn với chuyên gia vào lúc %s. Hãy chuẩn bị nhé!",
+                        bookingTime != null ? bookingTime.toLocalTime().toString() : "");
+                bookingIds.add((String) row[0]);
+                notifications.add(new BatchNotification((String) row[1], "Nhắc lịch hẹn sắp tới", msg,
+                        NotificationType.APPOINTMENT));
+            }
+            notificationService.createAndPushAll(notifications);
+            bookingRepository.markRemindedByIdIn(bookingIds);
+        }
+        if (!rows.isEmpty()) {
+            log.debug("Reminded {} upcoming bookings", rows.size());
         }
     }
 
@@ -0,0 +1,43 @@
+package com.nutrimate.scheduler;
+
+import com.nutrimate.repository.PostRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PostCounterReconciliationScheduler {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final PostRepository postRepository;
+
+    /**
+     * Job 03:30 hằng ngày - tính lại like_count/comment_count của Posts từ Post_Likes/Comments.
+     * Duyệt theo từng chunk post_id, mỗi chunk 1 transaction ngắn để không khóa cả bảng.
+     */
+    @Scheduled(cron = "0 30 3 * * *", zone = "Asia/Ho_Chi_Minh")
+    public void reconcilePostCounters() {
+        String afterId = "";
+        int fixed = 0;
+        int scanned = 0;
+
+        while (true) {
+            List<String> ids = postRepository.findIdsAfter(afterId, PageRequest.of(0, CHUNK_SIZE));
+            if (ids.isEmpty()) {
+                break;
+            }
+            fixed += postRepository.reconcileCounters(ids);
+            scanned += ids.size();
+            afterId = ids.get(ids.size() - 1);
+        }
+
+        log.info("PostCounterReconciliation: đã quét {} bài viết, sửa {} bài bị lệch like/comment count", scanned, fixed);
+    }
+}
@@ -0,0 +1,36 @@
+package com.nutrimate.scheduler;
+
+import com.nutrimate.service.RevenueRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RevenueRollupScheduler {
+
+    private final RevenueRollupService revenueRollupService;
+
+    /**
+     * Backfill lần đầu: bảng Revenue_Daily mới tạo (rỗng) thì dựng từ Bookings / User_Subscriptions.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (revenueRollupService.isEmpty()) {
+            log.info("RevenueRollup: Revenue_Daily đang rỗng, bắt đầu backfill");
+            revenueRollupService.rebuild();
+        }
+    }
+
+    /**
+     * Job 04:00 hằng ngày - dựng lại Revenue_Daily để sửa sai lệch do dữ liệu đổi ngoài luồng nghiệp vụ.
+     */
+    @Scheduled(cron = "0 0 4 * * *", zone = "Asia/Ho_Chi_Minh")
+    public void rebuildRevenueRollup() {
+        revenueRollupService.rebuild();
+    }
+}
@@ -9,20 +9,26 @@ import com.nutrimate.repository.BookingRepository;
 import com.nutrimate.repository.UserRepository;
 import com.nutrimate.repository.UserSubscriptionRepository;
 import com.nutrimate.repository.FeedbackRepository;
+import com.nutrimate.repository.RevenueDailyRepository;
 import com.nutrimate.repository.SystemFeedbackRepository;
-import lombok.RequiredArgsConstructor;
+import com.nutrimate.dto.TransactionDTO;
+import com.nutrimate.exception.BadRequestException;
+import com.nutrimate.util.KeysetCursor;
+import com.nutrimate.util.TtlLruCache;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.IsoFields;
 import java.util.stream.Collectors;
 import java.util.List;
 import java.util.Map;
 
 @Service
-@RequiredArgsConstructor
 public class AdminDashboardService {
 
     private final UserRepository userRepository;
@@ -30,32 +36,38 @@ public class AdminDashboardService {
     private final FeedbackRepository feedbackRepository; 
     private final UserSubscriptionRepository userSubscriptionRepository;
     private final SystemFeedbackRepository systemFeedbackRepository;
+    private final DashboardStatsSnapshot dashboardStatsSnapshot;
+    private final RevenueDailyRepository revenueDailyRepository;
+
+    private static final int MAX_TRANSACTION_PAGE_SIZE = 100;
+    // Mốc biên thay cho NULL khi không lọc theo ngày / trang đầu tiên (native query không bind NULL cho so sánh)
+    private static final LocalDateTime MIN_TRANSACTION_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TRANSACTION_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    // Cache tổng số giao dịch theo bộ lọc: COUNT chỉ chạy lại sau TTL, không chạy mỗi lần chuyển trang
+    private final TtlLruCache<String, Long> transactionCountCache;
+
+    public AdminDashboardService(UserRepository userRepository,
+                                 BookingRepository bookingRepository,
+                                 FeedbackRepository feedbackRepository,
+                                 UserSubscriptionRepository userSubscriptionRepository,
+                                 SystemFeedbackRepository systemFeedbackRepository,
+                                 DashboardStatsSnapshot dashboardStatsSnapshot,
+                                 RevenueDailyRepository revenueDailyRepository,
+                                 @Value("${app.admin.transactions.count-ttl-seconds:60}") long countTtlSeconds) {
+        this.userRepository = userRepository;
+        this.bookingRepository = bookingRepository;
+        this.feedbackRepository = feedbackRepository;
+        this.userSubscriptionRepository = userSubscriptionRepository;
+        this.systemFeedbackRepository = systemFeedbackRepository;
+        this.dashboardStatsSnapshot = dashboardStatsSnapshot;
+        this.revenueDailyRepository = revenueDailyRepository;
+        this.transactionCountCache = new TtlLruCache<>(256, countTtlSeconds * 1000);
+    }
 
+    // Số liệu tổng quan: đọc từ snapshot in-memory (cập nhật theo sự kiện + đối soát định kỳ), không aggregate mỗi lần
     public DashboardResponseDTO getDashboardStats() {
-        // 1. Tính tổng doanh thu từ 2 nguồn (Giữ nguyên như cũ)
-        BigDecimal bookingRevenue = bookingRepository.calculateTotalRevenue();
-        BigDecimal subRevenue = userSubscriptionRepository.calculateTotalRevenue();
-        
-        BigDecimal totalRevenue = BigDecimal.ZERO;
-        if (bookingRevenue != null) {
-            totalRevenue = totalRevenue.add(bookingRevenue);
-        }
-        if (subRevenue != null) {
-            totalRevenue = totalRevenue.add(subRevenue);
-        }
-        
-        // 2. Tính tổng số lượng giao dịch THÀNH CÔNG (Đã lọc)
-        long successfulBookings = bookingRepository.countSuccessfulBookings();
-        long successfulSubscriptions = userSubscriptionRepository.countPaidActiveSubscriptions();
-        
-        long totalTransactions = successfulBookings + successfulSubscriptions;
-        
-        return DashboardResponseDTO.builder()
-                .totalUsers(userRepository.count())
-                .totalTransactions(totalTransactions)
-                .totalFeedbacks(systemFeedbackRepository.count())
-                .totalRevenue(totalRevenue)
-                .build();
+        return dashboardStatsSnapshot.get();
     }
     
     public Page<User> getPaginatedUsers(int page, int size) {
@@ -64,67 +76,91 @@ public class AdminDashboardService {
     }
 
     // Lấy danh sách Giao dịch (Phân trang)
-    public Map<String, Object> getTransactionHistory(int page, int size) {
-        List<com.nutrimate.dto.TransactionDTO> allTransactions = new java.util.ArrayList<>();
-
-        // 1. Lấy tất cả giao dịch Booking (chỉ lấy những đơn có orderCode)
-        // Nếu file repository của bác chưa có hàm findAll thì dùng hàm mặc định
-        List<com.nutrimate.entity.Booking> bookings = bookingRepository.findAll();
-        for (com.nutrimate.entity.Booking b : bookings) {
-            if (b.getOrderCode() != null) {
-                allTransactions.add(com.nutrimate.dto.TransactionDTO.builder()
-                        .orderCode(b.getOrderCode())
-                        .userFullName(b.getMember() != null ? b.getMember().getFullName() : "Khách ẩn danh")
-                        .userEmail(b.getMember() != null ? b.getMember().getEmail() : "")
-                        .type("BOOKING")
-                        .description("Đặt lịch chuyên gia " + (b.getExpert() != null ? b.getExpert().getUser().getFullName() : ""))
-                        .amount(b.getFinalPrice() != null ? b.getFinalPrice().doubleValue() : 0.0)
-                        .status(b.getStatus() != null ? b.getStatus().name() : "UNKNOWN")
-                        // Nếu entity Booking của bác dùng tên biến khác (như createdAt), hãy đổi lại chỗ này:
-                        .transactionDate(b.getBookingTime() != null ? b.getBookingTime() : java.time.LocalDateTime.now())
-                        .build());
-            }
+    // Gộp Booking + Subscription bằng UNION ALL trong DB, sắp xếp mới nhất lên đầu.
+    // Có cursor -> phân trang keyset (không OFFSET); không có cursor -> dùng page như cũ.
+    public Map<String, Object> getTransactionHistory(int page, int size, String cursor, String type,
+                                                     String status, LocalDate from, LocalDate to) {
+        if (page < 0) {
+            throw new BadRequestException("page phải >= 0");
         }
-
-        // 2. Lấy tất cả giao dịch Mua gói Subscription (chỉ lấy những đơn có orderCode)
-        List<com.nutrimate.entity.UserSubscription> subscriptions = userSubscriptionRepository.findAll();
-        for (com.nutrimate.entity.UserSubscription s : subscriptions) {
-            if (s.getOrderCode() != null) {
-                allTransactions.add(com.nutrimate.dto.TransactionDTO.builder()
-                        .orderCode(s.getOrderCode())
-                        .userFullName(s.getUser() != null ? s.getUser().getFullName() : "Khách ẩn danh")
-                        .userEmail(s.getUser() != null ? s.getUser().getEmail() : "")
-                        .type("SUBSCRIPTION")
-                        .description("Đăng ký gói " + (s.getPlan() != null ? s.getPlan().getPlanName() : ""))
-                        .amount(s.getPlan() != null && s.getPlan().getPrice() != null ? s.getPlan().getPrice().doubleValue() : 0.0)
-                        .status(s.getStatus() != null ? s.getStatus().name() : "UNKNOWN")
-                        // Nếu chưa có startDate (PENDING), dùng thời gian hiện tại để sort không bị lỗi
-                        .transactionDate(s.getStartDate() != null ? s.getStartDate() : java.time.LocalDateTime.now())
-                        .build());
-            }
+        if (size < 1 || size > MAX_TRANSACTION_PAGE_SIZE) {
+            throw new BadRequestException("size phải nằm trong khoảng 1-" + MAX_TRANSACTION_PAGE_SIZE);
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new BadRequestException("from phải trước hoặc bằng to");
         }
 
-        // 3. Sắp xếp danh sách tổng hợp theo thời gian (Mới nhất lên đầu)
-        allTransactions.sort((t1, t2) -> t2.getTransactionDate().compareTo(t1.getTransactionDate()));
+        String normalizedType = type == null || type.isBlank() ? null : type.trim().toUpperCase();
+        if (normalizedType != null && !"BOOKING".equals(normalizedType) && !"SUBSCRIPTION".equals(normalizedType)) {
+            throw new BadRequestException("type chỉ nhận BOOKING hoặc SUBSCRIPTION");
+        }
+        boolean includeBookings = normalizedType == null || "BOOKING".equals(normalizedType);
+        boolean includeSubscriptions = normalizedType == null || "SUBSCRIPTION".equals(normalizedType);
+        String statusFilter = status == null ? "" : status.trim();
+        LocalDateTime fromTime = from != null ? from.atStartOfDay() : MIN_TRANSACTION_TIME;
+        LocalDateTime toTime = to != null ? to.plusDays(1).atStartOfDay() : MAX_TRANSACTION_TIME;
+
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int offset = after != null ? 0 : page * size;
+
+        // Lấy dư 1 dòng để biết còn trang sau hay không
+        List<Object[]> rows = bookingRepository.findTransactionRows(
+                includeBookings, includeSubscriptions, statusFilter, fromTime, toTime,
+                after != null ? after.time() : MAX_TRANSACTION_TIME,
+                after != null ? after.id() : "",
+                offset + size + 1, size + 1, offset);
+
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
+        List<TransactionDTO> transactions = rows.stream().map(this::toTransactionDTO).collect(Collectors.toList());
 
-        // 4. Xử lý phân trang (Pagination) thủ công bằng Java
-        int totalItems = allTransactions.size();
+        String countKey = normalizedType + "|" + statusFilter.toUpperCase() + "|" + fromTime + "|" + toTime;
+        long totalItems = transactionCountCache.getOrLoad(countKey, () -> bookingRepository.countTransactions(
+                includeBookings, includeSubscriptions, statusFilter, fromTime, toTime));
         int totalPages = (int) Math.ceil((double) totalItems / size);
-        int start = Math.min(page * size, totalItems);
-        int end = Math.min(start + size, totalItems);
 
-        List<com.nutrimate.dto.TransactionDTO> pagedTransactions = allTransactions.subList(start, end);
+        String nextCursor = null;
+        if (hasMore && !rows.isEmpty()) {
+            Object[] last = rows.get(rows.size() - 1);
+            nextCursor = KeysetCursor.encode(toLocalDateTime(last[8]), last[0].toString());
+        }
 
-        // 5. Đóng gói trả về Frontend
         Map<String, Object> response = new java.util.HashMap<>();
-        response.put("transactions", pagedTransactions);
-        response.put("currentPage", page);
+        response.put("transactions", transactions);
+        response.put("currentPage", after != null ? null : page);
         response.put("totalItems", totalItems);
         response.put("totalPages", totalPages);
+        response.put("nextCursor", nextCursor);
+        response.put("hasMore", hasMore);
 
         return response;
     }
 
+    // Map 1 dòng UNION (id, order_code, user_full_name, user_email, type, detail, amount, status, txn_date)
+    private TransactionDTO toTransactionDTO(Object[] row) {
+        boolean isBooking = "BOOKING".equals(row[4]);
+        String detail = row[5] != null ? row[5].toString() : "";
+        return TransactionDTO.builder()
+                .orderCode(row[1] != null ? ((Number) row[1]).longValue() : null)
+                .userFullName(row[2] != null ? row[2].toString() : "Khách ẩn danh")
+                .userEmail(row[3] != null ? row[3].toString() : "")
+                .type(row[4].toString())
+                .description((isBooking ? "Đặt lịch chuyên gia " : "Đăng ký gói ") + detail)
+                .amount(row[6] != null ? ((Number) row[6]).doubleValue() : 0.0)
+                .status(row[7] != null ? row[7].toString() : "UNKNOWN")
+                .transactionDate(toLocalDateTime(row[8]))
+                .build();
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof java.sql.Timestamp ts) {
+            return ts.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+
     public Page<Feedback> getPaginatedFeedbacks(int page, int size) {
         // Sắp xếp feedback mới nhất lên đầu
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
@@ -151,39 +187,32 @@ public class AdminDashboardService {
     }
 
     // --- 3. BIỂU ĐỒ DOANH THU (GỘP CẢ BOOKING + MUA GÓI) ---
+    // Đọc bucket theo ngày từ Revenue_Daily rồi gộp lên tuần/tháng/năm (nhãn giống DATE_FORMAT cũ)
     public List<ChartDTO> getRevenueGrowthChart(String period) {
-        List<Object[]> bookingRev;
-        List<Object[]> subRev;
-
-        // Lấy dữ liệu từ cả 2 nguồn
-        if ("year".equalsIgnoreCase(period)) {
-            bookingRev = bookingRepository.getRevenueByYear();
-            subRev = userSubscriptionRepository.getRevenueByYear();
-        } else if ("week".equalsIgnoreCase(period)) {
-            bookingRev = bookingRepository.getRevenueByWeek();
-            subRev = userSubscriptionRepository.getRevenueByWeek();
-        } else {
-            bookingRev = bookingRepository.getRevenueByMonth();
-            subRev = userSubscriptionRepository.getRevenueByMonth();
-        }
+        List<Object[]> dailyRevenue = revenueDailyRepository.sumByDay();
 
         // Dùng TreeMap để gộp tiền lại và tự động sắp xếp theo thứ tự thời gian tăng dần
         Map<String, Double> mergedRevenue = new java.util.TreeMap<>();
 
-        for (Object[] row : bookingRev) {
-            String label = row[0].toString();
+        for (Object[] row : dailyRevenue) {
+            String label = revenueLabel((LocalDate) row[0], period);
             Double amount = row[1] != null ? ((Number) row[1]).doubleValue() : 0.0;
-            mergedRevenue.put(label, mergedRevenue.getOrDefault(label, 0.0) + amount);
-        }
-
-        for (Object[] row : subRev) {
-            String label = row[0].toString();
-            Double amount = row[1] != null ? ((Number) row[1]).doubleValue() : 0.0;
-            mergedRevenue.put(label, mergedRevenue.getOrDefault(label, 0.0) + amount);
+            mergedRevenue.merge(label, amount, Double::sum);
         }
 
         return mergedRevenue.entrySet().stream()
                 .map(entry -> new ChartDTO(entry.getKey(), entry.getValue()))
                 .collect(Collectors.toList());
     }
+
+    // year: 2026 | week: 2026-W03 (tuần ISO, = '%x-W%v') | month: 2026-01
+    private static String revenueLabel(LocalDate date, String period) {
+        if ("year".equalsIgnoreCase(period)) {
+            return String.valueOf(date.getYear());
+        }
+        if ("week".equalsIgnoreCase(period)) {
+            return String.format("%d-W%02d", date.get(IsoFields.WEEK_BASED_YEAR), date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+        }
+        return String.format("%d-%02d", date.getYear(), date.getMonthValue());
+    }
 }
\ No newline at end of file
@@ -10,7 +10,6 @@ import com.nutrimate.repository.RecipeRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
@@ -38,6 +37,8 @@ public class AiCoachService {
 
     private final HealthProfileRepository healthProfileRepository;
     private final RecipeRepository recipeRepository;
+    private final RecipeSearchIndex recipeSearchIndex;
+    private final RecipeService recipeService;
     private final RestTemplate restTemplate;
 
     public String getAdviceFromAi(String userId, String userMessage) {
@@ -101,9 +102,11 @@ public class AiCoachService {
     private List<Recipe> fetchRelevantRecipes(String userMessage) {
         String keyword = extractSearchKeyword(userMessage);
         if (keyword != null && !keyword.isBlank()) {
-            List<Recipe> byKeyword = recipeRepository.findByKeywordInTitleOrDescription(
-                    keyword, PageRequest.of(0, RAG_RECIPE_LIMIT));
-            if (!byKeyword.isEmpty()) return byKeyword;
+            // Index in-memory (không phân biệt dấu), khớp ít nhất 1 từ, xếp theo độ liên quan
+            List<String> ids = recipeSearchIndex.search(keyword, null, null, RecipeSearchIndex.MatchMode.ANY_TERM);
+            if (!ids.isEmpty()) {
+                return recipeService.getRecipesInOrder(ids.subList(0, Math.min(RAG_RECIPE_LIMIT, ids.size())));
+            }
         }
         List<Recipe> random = recipeRepository.findRandomRecipes();
         return random.size() > RAG_RECIPE_LIMIT ? random.subList(0, RAG_RECIPE_LIMIT) : random;
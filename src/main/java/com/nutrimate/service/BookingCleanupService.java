@@ -3,34 +3,162 @@ package com.nutrimate.service;
 import com.nutrimate.entity.Booking;
 import com.nutrimate.entity.Booking.BookingStatus;
 import com.nutrimate.repository.BookingRepository;
-import lombok.RequiredArgsConstructor;
+import com.nutrimate.util.AfterCommit;
+import com.nutrimate.util.HashedTimerWheel;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Tự hủy booking PENDING quá hạn thanh toán (15 phút kể từ lúc tạo).
+ * - Timer wheel in-memory: mỗi booking PENDING được hẹn giờ đúng deadline, nạp lại từ DB lúc khởi động.
+ *   Tick chạy trên thread riêng (không dùng chung thread @Scheduled với các job khác) để job dài không làm trễ hạn hủy.
+ * - Đến hạn: 1 câu UPDATE ... WHERE status = 'PENDING' AND id IN (...) cho cả lô.
+ * - Sweep định kỳ (thưa hơn) chỉ để dự phòng (vd: booking tạo từ instance khác), cũng bằng UPDATE hàng loạt.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class BookingCleanupService {
 
+    public static final Duration PENDING_TIMEOUT = Duration.ofMinutes(15);
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 1024; // 1 vòng ~ 17 phút > PENDING_TIMEOUT
+    private static final int BATCH_SIZE = 500;
+
     private final BookingRepository bookingRepository;
+    private final ExpertAvailabilityCache expertAvailabilityCache;
+    private final FreeSessionCounter freeSessionCounter;
+    private final TransactionTemplate transactionTemplate;
+    private final HashedTimerWheel<String> expiryWheel =
+            new HashedTimerWheel<>(TICK_MILLIS, WHEEL_SIZE, System.currentTimeMillis());
+    private final ScheduledExecutorService expiryTicker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "BookingExpiry-tick");
+        thread.setDaemon(true);
+        return thread;
+    });
 
-    @Scheduled(fixedRate = 60000)
-    public void cleanupExpiredPendingBookings() {
-        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(15);
-        List<Booking> expired = bookingRepository.findByStatusAndCreatedAtBefore(BookingStatus.PENDING, cutoff);
+    public BookingCleanupService(BookingRepository bookingRepository,
+                                 ExpertAvailabilityCache expertAvailabilityCache,
+                                 FreeSessionCounter freeSessionCounter,
+                                 TransactionTemplate transactionTemplate) {
+        this.bookingRepository = bookingRepository;
+        this.expertAvailabilityCache = expertAvailabilityCache;
+        this.freeSessionCounter = freeSessionCounter;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Nạp deadline của các booking đang PENDING vào timer wheel (deadline đã qua sẽ hủy ở tick đầu tiên)
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedExpiryWheel() {
+        List<Object[]> rows = bookingRepository.findPendingDeadlines();
+        for (Object[] row : rows) {
+            LocalDateTime createdAt = (LocalDateTime) row[1];
+            schedule((String) row[0], createdAt != null ? createdAt : LocalDateTime.now());
+        }
+        log.info("BookingCleanup: đã nạp {} booking PENDING vào timer wheel", rows.size());
+        expiryTicker.scheduleWithFixedDelay(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
 
-        if (expired.isEmpty()) {
+    @PreDestroy
+    public void stopExpiryTicker() {
+        expiryTicker.shutdownNow();
+    }
+
+    // Booking mới ở trạng thái PENDING: hẹn giờ hủy sau khi commit
+    public void scheduleExpiry(Booking booking) {
+        if (booking.getStatus() != BookingStatus.PENDING) {
             return;
         }
+        LocalDateTime createdAt = booking.getCreatedAt() != null ? booking.getCreatedAt() : LocalDateTime.now();
+        AfterCommit.run(() -> schedule(booking.getId(), createdAt));
+    }
 
-        expired.forEach(b -> b.setStatus(BookingStatus.CANCELLED));
-        bookingRepository.saveAll(expired);
+    // Booking rời PENDING (đã thanh toán / hủy / từ chối): gỡ khỏi timer wheel
+    public void cancelExpiry(String bookingId) {
+        AfterCommit.run(() -> expiryWheel.cancel(bookingId));
+    }
 
-        log.info("BookingCleanup: Đã hủy {} booking PENDING quá hạn 15 phút", expired.size());
+    // Mỗi tick: lấy các booking đến hạn và hủy theo lô.
+    // Không để exception thoát ra ngoài - ScheduledExecutorService sẽ dừng hẳn lịch chạy nếu task ném lỗi.
+    void tick() {
+        List<String> due = expiryWheel.advance(System.currentTimeMillis());
+        int total = 0;
+        for (int i = 0; i < due.size(); i += BATCH_SIZE) {
+            List<String> batch = due.subList(i, Math.min(i + BATCH_SIZE, due.size()));
+            try {
+                total += expire(batch);
+            } catch (RuntimeException e) {
+                // Lô lỗi (vd: mất kết nối DB) sẽ được sweep dự phòng xử lý lại
+                log.warn("BookingCleanup: hủy {} booking quá hạn thất bại: {}", batch.size(), e.toString());
+            }
+        }
+        if (total > 0) {
+            log.info("BookingCleanup: Đã hủy {} booking PENDING quá hạn {} phút", total, PENDING_TIMEOUT.toMinutes());
+        }
+    }
+
+    // Dự phòng: quét các booking PENDING quá hạn mà timer wheel không biết (theo index (status, created_at))
+    @Scheduled(fixedRateString = "${app.booking.expiry-sweep-ms:300000}")
+    public void cleanupExpiredPendingBookings() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(PENDING_TIMEOUT);
+        int total = 0;
+        while (true) {
+            List<String> ids = bookingRepository.findPendingIdsCreatedBefore(cutoff, PageRequest.of(0, BATCH_SIZE));
+            if (ids.isEmpty()) {
+                break;
+            }
+            int expired = expire(ids);
+            total += expired;
+            if (expired == 0) {
+                break; // Tránh lặp vô hạn nếu lô này đã bị xử lý ở nơi khác
+            }
+        }
+        if (total > 0) {
+            log.info("BookingCleanup (sweep): Đã hủy {} booking PENDING quá hạn {} phút", total, PENDING_TIMEOUT.toMinutes());
+        }
     }
-}
 
+    // Hủy 1 lô booking còn PENDING trong danh sách id; trả về số booking đã hủy
+    private int expire(List<String> ids) {
+        Integer expired = transactionTemplate.execute(status -> {
+            // Khóa + lấy thông tin các dòng còn PENDING (dòng đã thanh toán xong thì bỏ qua)
+            List<Object[]> pending = bookingRepository.lockPendingByIdIn(ids);
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            List<String> pendingIds = pending.stream().map(row -> (String) row[0]).toList();
+            int updated = bookingRepository.expirePendingByIdIn(pendingIds);
+
+            // PENDING không tính doanh thu / giao dịch nên bộ đếm dashboard và rollup doanh thu không đổi
+            for (Object[] row : pending) {
+                LocalDateTime bookingTime = (LocalDateTime) row[2];
+                if (row[1] != null && bookingTime != null) {
+                    expertAvailabilityCache.onSlotReleased((String) row[1], bookingTime);
+                }
+                if (Boolean.TRUE.equals(row[3]) && row[4] != null) {
+                    freeSessionCounter.release((String) row[4], bookingTime);
+                }
+            }
+            return updated;
+        });
+        return expired != null ? expired : 0;
+    }
+
+    private void schedule(String bookingId, LocalDateTime createdAt) {
+        long deadline = createdAt.plus(PENDING_TIMEOUT).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        expiryWheel.schedule(bookingId, deadline);
+    }
+}
@@ -1,28 +1,35 @@
 package com.nutrimate.service;
 
+import com.nutrimate.dto.BookingPageResponseDTO;
 import com.nutrimate.dto.BookingRequestDTO;
+import com.nutrimate.dto.BookingResponseDTO;
 import com.nutrimate.dto.BookingStatusDTO;
 import com.nutrimate.dto.PriceCheckResponseDTO;
 import com.nutrimate.entity.*;
 import com.nutrimate.entity.Booking.BookingStatus;
+import com.nutrimate.entity.User.UserRole;
 import com.nutrimate.exception.BadRequestException;
 import com.nutrimate.exception.ForbiddenException;
 import com.nutrimate.exception.ResourceNotFoundException;
 import com.nutrimate.repository.*;
+import com.nutrimate.util.KeysetCursor;
+import com.nutrimate.util.StripedLocks;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
-import java.util.LinkedHashSet;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 @Service
 @RequiredArgsConstructor
 public class BookingService {
@@ -30,17 +37,28 @@ public class BookingService {
     private final BookingRepository bookingRepository;
     private final ExpertProfileRepository expertProfileRepository;
     private final UserSubscriptionRepository subscriptionRepository;
-    private final UserBenefitUsageRepository benefitUsageRepository;
     private final UserRepository userRepository;
-
-    private static final List<String> FIXED_TIME_SLOTS = List.of(
-            // Sáng
-            "08:00", "09:00", "10:00", "11:00",
-            // Chiều
-            "13:30", "14:30", "15:30", "16:30",
-            // Tối
-            "19:00", "20:00", "21:00"
-    );
+    private final DashboardStatsSnapshot dashboardStatsSnapshot;
+    private final RevenueRollupService revenueRollupService;
+    private final ExpertAvailabilityCache expertAvailabilityCache;
+    private final FreeSessionCounter freeSessionCounter;
+    private final BookingCleanupService bookingCleanupService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private static final int MAX_AVAILABILITY_DAYS = 62;
+    private static final String SLOT_TAKEN_MESSAGE = "Khung giờ này đã có người đặt, vui lòng chọn giờ khác";
+    // Trạng thái đang giữ slot của Expert (khớp cột sinh active_booking_time)
+    private static final List<BookingStatus> ACTIVE_STATUSES = List.of(BookingStatus.PENDING, BookingStatus.CONFIRMED);
+    private static final int BOOKING_LOCK_STRIPES = 64;
+    private static final long BOOKING_LOCK_WAIT_MS = 200;
+    private static final String SLOT_UNIQUE_KEY = "uk_booking_expert_active_time";
+    private static final int MAX_BOOKING_PAGE_SIZE = 100;
+    // Giới hạn của kiểu DATETIME trên MySQL, dùng làm khoảng/cursor mặc định
+    private static final LocalDateTime MIN_BOOKING_TIME = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_BOOKING_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private final StripedLocks expertBookingLocks = new StripedLocks(BOOKING_LOCK_STRIPES);
 
     // Helper nội bộ: thông tin free sessions còn lại cho user
     private static class FreeSessionInfo {
@@ -81,18 +99,8 @@ public class BookingService {
             return new FreeSessionInfo(true, 0, 0, 0, sub);
         }
 
-        List<BookingStatus> statuses = List.of(
-                BookingStatus.PENDING,
-                BookingStatus.CONFIRMED,
-                BookingStatus.COMPLETED,
-                BookingStatus.DONE
-        );
-        long used = bookingRepository.countUsedFreeSessions(
-                userId,
-                statuses,
-                sub.getStartDate(),
-                sub.getEndDate()
-        );
+        // Đọc bộ đếm duy trì sẵn trên gói, không COUNT lại Bookings
+        long used = FreeSessionCounter.used(sub);
         long remaining = Math.max(0, total - used);
         return new FreeSessionInfo(true, total, used, remaining, sub);
     }
@@ -116,12 +124,54 @@ public class BookingService {
                 .build();
     }
 
-    @Transactional
+    // Đặt lịch: slot đã bận theo cache bitmask thì trả lỗi ngay (không chờ lock, không xuống DB).
+    // Còn lại khóa theo Expert để các request cùng Expert xếp hàng; kiểm tra slot + insert + commit nằm trong lock.
+    // Lock chỉ chờ có giới hạn: stripe bị expert khác giữ lâu thì đi tiếp không lock, vì unique
+    // (expert_user_id, active_booking_time) ở DB mới là chốt chặn cuối (kể cả khi chạy nhiều instance).
     public Booking createBooking(String userId, BookingRequestDTO req) {
+        if (req.getBookingTime() != null
+                && expertAvailabilityCache.isCachedBusy(req.getExpertId(), req.getBookingTime())) {
+            throw new BadRequestException(SLOT_TAKEN_MESSAGE);
+        }
+        ReentrantLock lock = expertBookingLocks.lockFor(req.getExpertId());
+        boolean locked = tryLock(lock);
+        try {
+            return transactionTemplate.execute(status -> doCreateBooking(userId, req));
+        } catch (DataIntegrityViolationException e) {
+            if (isSlotConflict(e)) {
+                throw new BadRequestException(SLOT_TAKEN_MESSAGE);
+            }
+            throw e;
+        } finally {
+            if (locked) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static boolean tryLock(ReentrantLock lock) {
+        try {
+            return lock.tryLock(BOOKING_LOCK_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Chỉ vi phạm unique slot mới là "đã có người đặt"; lỗi ràng buộc khác (FK, NOT NULL...) ném tiếp
+    private static boolean isSlotConflict(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.contains(SLOT_UNIQUE_KEY);
+    }
+
+    private Booking doCreateBooking(String userId, BookingRequestDTO req) {
         User member = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
         ExpertProfile expertProfile = expertProfileRepository.findById(req.getExpertId())
                 .orElseThrow(() -> new ResourceNotFoundException("Expert not found"));
+        if (bookingRepository.existsActiveAt(expertProfile.getId(), req.getBookingTime(), ACTIVE_STATUSES)) {
+            throw new BadRequestException(SLOT_TAKEN_MESSAGE);
+        }
         BigDecimal basePrice = expertProfile.getHourlyRate();
         FreeSessionInfo info = calculateFreeSessions(userId);
         boolean wantFree = Boolean.TRUE.equals(req.getUseFreeSession());
@@ -132,18 +182,15 @@ public class BookingService {
         booking.setBookingTime(req.getBookingTime());
         booking.setNote(req.getNote());
 
-        if (wantFree && info.hasSubscription && info.remaining > 0 && info.total > 0) {
+        // Giữ lượt free bằng UPDATE nguyên tử (còn lượt mới tăng) -> 2 request song song không vượt hạn mức
+        boolean freeClaimed = wantFree && info.hasSubscription && info.remaining > 0 && info.total > 0
+                && freeSessionCounter.claim(info.subscription, info.total, req.getBookingTime());
+
+        if (freeClaimed) {
             booking.setIsFreeSession(true);
             booking.setOriginalPrice(basePrice);
             booking.setFinalPrice(BigDecimal.ZERO);
             booking.setStatus(BookingStatus.CONFIRMED); // Free session: auto-confirm, không cần PayOS
-
-            // Đồng bộ bảng usage cũ nếu đang dùng
-            if (info.subscription != null) {
-                UserBenefitUsage usage = getOrCreateUsage(userId, info.subscription);
-                usage.setSessionsUsed(Optional.ofNullable(usage.getSessionsUsed()).orElse(0) + 1);
-                benefitUsageRepository.save(usage);
-            }
         } else {
             booking.setIsFreeSession(false);
             booking.setOriginalPrice(basePrice);
@@ -153,22 +200,49 @@ public class BookingService {
 
         booking.setMeetingLink(null);
 
-        return bookingRepository.save(booking);
+        Booking saved = bookingRepository.saveAndFlush(booking); // flush ngay để lỗi unique slot nổi lên tại đây
+        dashboardStatsSnapshot.onBookingStatusChanged(saved, null);
+        revenueRollupService.onBookingStatusChanged(saved, null);
+        expertAvailabilityCache.onBookingStatusChanged(saved, null);
+        bookingCleanupService.scheduleExpiry(saved);
+        return saved;
     }
 
-    // Lịch sử booking của Expert (chỉ những booking được assign cho expert này)
-    public List<Booking> getMyExpertBookings(String expertUserId) {
-        return bookingRepository.findByExpertIdOrderByBookingTimeDesc(expertUserId);
+    // Lịch sử booking của Expert (chỉ những booking được assign cho expert này).
+    // Trả nguyên danh sách Booking như trước (giữ tương thích client); member/expert/expert.user nạp cùng 1 query
+    public List<Booking> getMyExpertBookings(String expertId) {
+        return bookingRepository.findExpertBookings(expertId);
     }
 
-    // 5.5 LỊCH SỬ BOOKING (Member - những booking mình đặt)
-    public List<Booking> getMyBookings(String userId) {
-        // Tìm xem user là Member hay Expert
-        // Ở đây mình thử tìm cả 2, cái nào có dữ liệu thì trả về
-        List<Booking> asMember = bookingRepository.findByMemberIdOrderByBookingTimeDesc(userId);
-        if (!asMember.isEmpty()) return asMember;
-        
-        return bookingRepository.findByExpertIdOrderByBookingTimeDesc(userId);
+    // Như trên nhưng phân trang bằng cursor (bookingTime, id) giảm dần, mỗi trang 1 query chỉ lấy cột cần hiển thị
+    public BookingPageResponseDTO getMyExpertBookingsPage(String expertId, String cursor, int size) {
+        int pageSize = clampPageSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        return toBookingPage(bookingRepository.findExpertBookingRows(expertId,
+                afterTime(after), afterId(after), PageRequest.of(0, pageSize + 1)), pageSize);
+    }
+
+    // 5.5 LỊCH SỬ BOOKING: Expert xem lịch làm việc của mình, các role khác xem những booking mình đặt.
+    // Role lấy từ User đã đăng nhập (không đoán theo việc có booking Member hay không).
+    public List<Booking> getMyBookings(String userId, UserRole role) {
+        if (role == UserRole.EXPERT) {
+            return expertProfileRepository.findByUserId(userId)
+                    .map(expert -> bookingRepository.findExpertBookings(expert.getId()))
+                    .orElse(List.of());
+        }
+        return bookingRepository.findMemberBookings(userId);
+    }
+
+    public BookingPageResponseDTO getMyBookingsPage(String userId, UserRole role, String cursor, int size) {
+        if (role == UserRole.EXPERT) {
+            return expertProfileRepository.findByUserId(userId)
+                    .map(expert -> getMyExpertBookingsPage(expert.getId(), cursor, size))
+                    .orElseGet(() -> toBookingPage(List.of(), clampPageSize(size)));
+        }
+        int pageSize = clampPageSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        return toBookingPage(bookingRepository.findMemberBookingRows(userId,
+                afterTime(after), afterId(after), PageRequest.of(0, pageSize + 1)), pageSize);
     }
 
     // 5.6 UPDATE TRẠNG THÁI (Cho Expert)
@@ -240,12 +314,74 @@ public class BookingService {
 
         // 5. Cập nhật trạng thái và lưu
         booking.setStatus(newStatus);
-        return bookingRepository.save(booking);
+        Booking saved = bookingRepository.save(booking);
+        dashboardStatsSnapshot.onBookingStatusChanged(saved, currentStatus);
+        revenueRollupService.onBookingStatusChanged(saved, currentStatus);
+        expertAvailabilityCache.onBookingStatusChanged(saved, currentStatus);
+        freeSessionCounter.onBookingStatusChanged(saved, currentStatus);
+        bookingCleanupService.cancelExpiry(saved.getId());
+        return saved;
     }
 
-    // 5.7 ADMIN XEM ALL
+    // 5.7 ADMIN XEM ALL (nguyên danh sách như trước)
     public List<Booking> getAllBookings(LocalDate date) {
-        return bookingRepository.findAllByDate(date);
+        return bookingRepository.findBookingsInRange(rangeStart(date), rangeEnd(date));
+    }
+
+    public BookingPageResponseDTO getAllBookingsPage(LocalDate date, String cursor, int size) {
+        int pageSize = clampPageSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        return toBookingPage(bookingRepository.findBookingRowsInRange(rangeStart(date), rangeEnd(date),
+                afterTime(after), afterId(after), PageRequest.of(0, pageSize + 1)), pageSize);
+    }
+
+    // Lọc theo khoảng [00:00 ngày date, 00:00 ngày sau) thay vì DATE(booking_time) = date để dùng được index
+    private static LocalDateTime rangeStart(LocalDate date) {
+        return date != null ? date.atStartOfDay() : MIN_BOOKING_TIME;
+    }
+
+    private static LocalDateTime rangeEnd(LocalDate date) {
+        return date != null ? date.plusDays(1).atStartOfDay() : MAX_BOOKING_TIME;
+    }
+
+    private static int clampPageSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_BOOKING_PAGE_SIZE);
+    }
+
+    // Trang đầu (chưa có cursor): sentinel lớn hơn mọi booking_time
+    private static LocalDateTime afterTime(KeysetCursor after) {
+        return after != null ? after.time() : MAX_BOOKING_TIME;
+    }
+
+    private static String afterId(KeysetCursor after) {
+        return after != null ? after.id() : "";
+    }
+
+    // rows lấy dư 1 dòng để biết còn trang sau hay không
+    private static BookingPageResponseDTO toBookingPage(List<Object[]> rows, int pageSize) {
+        boolean hasMore = rows.size() > pageSize;
+        List<Object[]> page = hasMore ? rows.subList(0, pageSize) : rows;
+        List<BookingResponseDTO> items = page.stream()
+                .map(row -> BookingResponseDTO.builder()
+                        .bookingId((String) row[0])
+                        .memberId((String) row[1])
+                        .memberName((String) row[2])
+                        .expertId((String) row[3])
+                        .expertName((String) row[4])
+                        .bookingTime((LocalDateTime) row[5])
+                        .status(row[6] != null ? ((BookingStatus) row[6]).name() : null)
+                        .meetingLink((String) row[7])
+                        .note((String) row[8])
+                        .isFreeSession((Boolean) row[9])
+                        .finalPrice((BigDecimal) row[10])
+                        .build())
+                .toList();
+        BookingResponseDTO last = items.isEmpty() ? null : items.get(items.size() - 1);
+        return BookingPageResponseDTO.builder()
+                .items(items)
+                .nextCursor(hasMore && last != null ? KeysetCursor.encode(last.getBookingTime(), last.getBookingId()) : null)
+                .hasMore(hasMore)
+                .build();
     }
 
     /**
@@ -267,38 +403,37 @@ public class BookingService {
         }
 
         booking.setStatus(BookingStatus.CANCELLED);
-        return bookingRepository.save(booking);
+        Booking saved = bookingRepository.save(booking);
+        dashboardStatsSnapshot.onBookingStatusChanged(saved, status);
+        revenueRollupService.onBookingStatusChanged(saved, status);
+        expertAvailabilityCache.onBookingStatusChanged(saved, status);
+        freeSessionCounter.onBookingStatusChanged(saved, status);
+        bookingCleanupService.cancelExpiry(saved.getId());
+        return saved;
     }
 
     /**
      * Lấy danh sách khung giờ còn trống của một Expert trong ngày.
      */
     public List<String> getExpertAvailableSlots(String expertId, LocalDate date) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm");
-
-        List<Booking> bookings = bookingRepository.findByExpertAndDateWithActiveStatus(expertId, date);
-
-        Set<String> busySlots = new LinkedHashSet<>();
-        for (Booking b : bookings) {
-            LocalTime time = b.getBookingTime().toLocalTime();
-            busySlots.add(time.format(formatter));
-        }
-
-        return FIXED_TIME_SLOTS.stream()
-                .filter(slot -> !busySlots.contains(slot))
-                .toList();
+        int busyMask = expertAvailabilityCache.getBusyMasks(expertId, date, date).get(date);
+        return ExpertAvailabilityCache.availableSlots(busyMask);
     }
 
-    // Helper: Lấy hoặc tạo Usage record
-    private UserBenefitUsage getOrCreateUsage(String userId, UserSubscription sub) {
-        return benefitUsageRepository.findByUserId(userId)
-                .orElseGet(() -> {
-                    UserBenefitUsage u = new UserBenefitUsage();
-                    u.setUserId(userId);
-                    u.setSubscription(sub);
-                    u.setSessionsUsed(0);
-                    return benefitUsageRepository.save(u);
-                });
+    /**
+     * Khung giờ còn trống của một Expert cho từng ngày trong [from, to] (tối đa MAX_AVAILABILITY_DAYS ngày).
+     */
+    public Map<LocalDate, List<String>> getExpertAvailability(String expertId, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new BadRequestException("from phải trước hoặc bằng to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) + 1 > MAX_AVAILABILITY_DAYS) {
+            throw new BadRequestException("Chỉ xem được tối đa " + MAX_AVAILABILITY_DAYS + " ngày mỗi lần");
+        }
+        Map<LocalDate, List<String>> result = new java.util.LinkedHashMap<>();
+        expertAvailabilityCache.getBusyMasks(expertId, from, to)
+                .forEach((day, mask) -> result.put(day, ExpertAvailabilityCache.availableSlots(mask)));
+        return result;
     }
 
     /**
@@ -29,6 +29,7 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
     private final SubscriptionPlanRepository planRepository;
     private final UserSubscriptionRepository userSubscriptionRepository;
     private final UserBenefitUsageRepository benefitUsageRepository;
+    private final DashboardStatsSnapshot dashboardStatsSnapshot;
     
     @Override
     public OAuth2User loadUser(OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
@@ -116,6 +117,7 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
             
             try {
                 User savedUser = userRepository.save(newUser);
+                dashboardStatsSnapshot.onUserCreated();
                 System.out.println(">>> ✅ Đã lưu User mới vào bảng Users: " + email);
                 System.out.println(">>> 💾 User ID: " + newUser.getId());
                 assignFreeSubscription(savedUser);
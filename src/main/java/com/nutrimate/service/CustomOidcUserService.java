@@ -28,6 +28,7 @@ public class CustomOidcUserService extends OidcUserService {
     private final SubscriptionPlanRepository planRepository;
     private final UserSubscriptionRepository userSubscriptionRepository;
     private final UserBenefitUsageRepository benefitUsageRepository;
+    private final DashboardStatsSnapshot dashboardStatsSnapshot;
     
     @Override
     public OidcUser loadUser(OidcUserRequest userRequest) throws OAuth2AuthenticationException {
@@ -115,6 +116,7 @@ public class CustomOidcUserService extends OidcUserService {
             
             try {
                 User savedUser = userRepository.save(newUser);
+                dashboardStatsSnapshot.onUserCreated();
                 System.out.println(">>> ✅ Đã lưu User mới vào bảng Users: " + email);
                 System.out.println(">>> 💾 User ID: " + savedUser.getId());
                 assignFreeSubscription(savedUser);
@@ -0,0 +1,356 @@
+package com.nutrimate.service;
+
+import com.nutrimate.dto.DashboardResponseDTO;
+import com.nutrimate.entity.Booking;
+import com.nutrimate.entity.Booking.BookingStatus;
+import com.nutrimate.entity.UserSubscription;
+import com.nutrimate.entity.UserSubscription.SubscriptionStatus;
+import com.nutrimate.repository.BookingRepository;
+import com.nutrimate.repository.SystemFeedbackRepository;
+import com.nutrimate.repository.UserRepository;
+import com.nutrimate.repository.UserSubscriptionRepository;
+import com.nutrimate.util.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bộ đếm tổng quan của Admin Dashboard giữ trong bộ nhớ (doanh thu, số user, số giao dịch, số feedback).
+ * - Webhook thanh toán / đổi trạng thái booking / đăng ký user: cộng trừ delta sau khi commit.
+ * - Job định kỳ đối soát lại toàn bộ từ DB để sửa sai lệch (vd: dữ liệu sửa tay trong DB).
+ *   Các câu aggregate chạy song song, mỗi câu trong 1 transaction read-only có statement timeout thật
+ *   (JDBC setQueryTimeout - DB tự hủy câu chạy quá hạn); câu nào quá hạn / bị từ chối thì giữ giá trị cũ.
+ *   Delta commit sau khi câu query chốt snapshot được ghi lại và cộng lên kết quả query, không bị ghi đè mất
+ *   và không bị đếm 2 lần.
+ * Quy tắc tính giữ nguyên như các câu aggregate cũ trong BookingRepository / UserSubscriptionRepository.
+ */
+@Component
+@Slf4j
+public class DashboardStatsSnapshot {
+
+    // = BookingRepository.calculateTotalRevenue
+    private static final Set<BookingStatus> REVENUE_BOOKING_STATUSES =
+            EnumSet.of(BookingStatus.CONFIRMED, BookingStatus.COMPLETED, BookingStatus.DONE);
+    // = BookingRepository.countSuccessfulBookings (kèm orderCode != null)
+    private static final Set<BookingStatus> SUCCESSFUL_BOOKING_STATUSES =
+            EnumSet.of(BookingStatus.CONFIRMED, BookingStatus.COMPLETED);
+
+    private final UserRepository userRepository;
+    private final BookingRepository bookingRepository;
+    private final UserSubscriptionRepository userSubscriptionRepository;
+    private final SystemFeedbackRepository systemFeedbackRepository;
+    private final Executor dashboardQueryExecutor;
+    private final TransactionTemplate queryTransaction;
+    private final long queryTimeoutMs;
+    private final long retryIntervalMs;
+    private final AtomicLong lastRetryAt = new AtomicLong();
+
+    // Mỗi bộ đếm lưu riêng theo nguồn để khi 1 câu query quá hạn vẫn giữ được giá trị cũ của nguồn đó.
+    // null = chưa nạp được lần nào.
+    private boolean loaded;
+    private BigDecimal bookingRevenue;
+    private BigDecimal subscriptionRevenue;
+    private Long bookingTransactions;
+    private Long subscriptionTransactions;
+    private Long totalUsers;
+    private Long totalFeedbacks;
+    // Nhật ký delta của các câu đối soát đang chạy (mỗi câu 1 bản, mở ngay sau khi câu đó chốt snapshot DB)
+    private final List<Deltas> inFlight = new ArrayList<>();
+
+    public DashboardStatsSnapshot(UserRepository userRepository,
+                                  BookingRepository bookingRepository,
+                                  UserSubscriptionRepository userSubscriptionRepository,
+                                  SystemFeedbackRepository systemFeedbackRepository,
+                                  @Qualifier("dashboardQueryExecutor") Executor dashboardQueryExecutor,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.admin.dashboard.query-timeout-ms:3000}") long queryTimeoutMs,
+                                  @Value("${app.admin.dashboard.retry-ms:30000}") long retryIntervalMs) {
+        this.userRepository = userRepository;
+        this.bookingRepository = bookingRepository;
+        this.userSubscriptionRepository = userSubscriptionRepository;
+        this.systemFeedbackRepository = systemFeedbackRepository;
+        this.dashboardQueryExecutor = dashboardQueryExecutor;
+        this.queryTimeoutMs = queryTimeoutMs;
+        // Timeout của transaction được Spring áp vào từng query (jakarta.persistence.query.timeout -> JDBC
+        // setQueryTimeout), đơn vị giây: future.cancel(true) không dừng được câu đang chạy trên DB
+        this.queryTransaction = new TransactionTemplate(transactionManager);
+        this.queryTransaction.setReadOnly(true);
+        this.queryTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.queryTransaction.setTimeout((int) Math.max(1, (queryTimeoutMs + 999) / 1000));
+        this.retryIntervalMs = retryIntervalMs;
+    }
+
+    /** Phần đóng góp của 1 booking/subscription vào doanh thu và số giao dịch thành công. */
+    public record Contribution(BigDecimal revenue, long transactions) {
+        public static final Contribution NONE = new Contribution(BigDecimal.ZERO, 0);
+    }
+
+    public DashboardResponseDTO get() {
+        synchronized (this) {
+            if (loaded && !isPartial()) {
+                return toDTO();
+            }
+        }
+        retryMissing();
+        synchronized (this) {
+            return toDTO();
+        }
+    }
+
+    // Nạp lúc khởi động và đối soát định kỳ với DB
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.admin.dashboard.reconcile-ms:600000}",
+            initialDelayString = "${app.admin.dashboard.reconcile-ms:600000}")
+    public void reconcile() {
+        refresh(false);
+    }
+
+    // Còn bộ đếm chưa nạp được (lần trước bị timeout): chỉ query lại các nguồn đó, tối đa 1 lần mỗi retryIntervalMs.
+    // Request đến trong khoảng chờ nhận luôn kết quả partial thay vì dồn thêm aggregate lên DB đang chậm.
+    private void retryMissing() {
+        long now = System.currentTimeMillis();
+        long last = lastRetryAt.get();
+        if (now - last < retryIntervalMs || !lastRetryAt.compareAndSet(last, now)) {
+            return;
+        }
+        refresh(true);
+    }
+
+    private void refresh(boolean onlyMissing) {
+        boolean bookingRevenueMissing;
+        boolean subRevenueMissing;
+        boolean bookingTxMissing;
+        boolean subTxMissing;
+        boolean usersMissing;
+        boolean feedbacksMissing;
+        synchronized (this) {
+            bookingRevenueMissing = !onlyMissing || bookingRevenue == null;
+            subRevenueMissing = !onlyMissing || subscriptionRevenue == null;
+            bookingTxMissing = !onlyMissing || bookingTransactions == null;
+            subTxMissing = !onlyMissing || subscriptionTransactions == null;
+            usersMissing = !onlyMissing || totalUsers == null;
+            feedbacksMissing = !onlyMissing || totalFeedbacks == null;
+        }
+        // Mỗi câu 1 nhật ký delta riêng, mở đúng lúc câu đó chốt snapshot DB (xem query())
+        Deltas bookingRevenueJ = new Deltas();
+        Deltas subRevenueJ = new Deltas();
+        Deltas bookingTxJ = new Deltas();
+        Deltas subTxJ = new Deltas();
+        Deltas usersJ = new Deltas();
+        Deltas feedbacksJ = new Deltas();
+        // Các câu độc lập nhau -> chạy song song, tổng thời gian ~ câu chậm nhất thay vì tổng các câu
+        CompletableFuture<BigDecimal> bookingRevenueF = query(bookingRevenueMissing, bookingRevenueJ,
+                () -> nz(bookingRepository.calculateTotalRevenue()));
+        CompletableFuture<BigDecimal> subRevenueF = query(subRevenueMissing, subRevenueJ,
+                () -> nz(userSubscriptionRepository.calculateTotalRevenue()));
+        CompletableFuture<Long> bookingTxF = query(bookingTxMissing, bookingTxJ, bookingRepository::countSuccessfulBookings);
+        CompletableFuture<Long> subTxF = query(subTxMissing, subTxJ, userSubscriptionRepository::countPaidActiveSubscriptions);
+        CompletableFuture<Long> usersF = query(usersMissing, usersJ, userRepository::count);
+        CompletableFuture<Long> feedbacksF = query(feedbacksMissing, feedbacksJ, systemFeedbackRepository::count);
+
+        // Timeout tính chung từ lúc bắt đầu: các câu đã chạy song song nên chờ tuần tự không cộng dồn thời gian
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(queryTimeoutMs);
+        BigDecimal newBookingRevenue = await(bookingRevenueF, deadline, "bookingRevenue");
+        BigDecimal newSubRevenue = await(subRevenueF, deadline, "subscriptionRevenue");
+        Long newBookingTx = await(bookingTxF, deadline, "bookingTransactions");
+        Long newSubTx = await(subTxF, deadline, "subscriptionTransactions");
+        Long newUsers = await(usersF, deadline, "users");
+        Long newFeedbacks = await(feedbacksF, deadline, "feedbacks");
+
+        synchronized (this) {
+            for (Deltas journal : List.of(bookingRevenueJ, subRevenueJ, bookingTxJ, subTxJ, usersJ, feedbacksJ)) {
+                journal.closed = true; // câu quá hạn mà chạy tiếp thì không mở nhật ký nữa
+                inFlight.remove(journal);
+            }
+            DashboardResponseDTO previous = loaded ? toDTO() : null;
+            // Kết quả query (snapshot DB) + các delta commit sau snapshot đó
+            if (newBookingRevenue != null) bookingRevenue = newBookingRevenue.add(bookingRevenueJ.bookingRevenue);
+            if (newSubRevenue != null) subscriptionRevenue = newSubRevenue.add(subRevenueJ.subscriptionRevenue);
+            if (newBookingTx != null) bookingTransactions = newBookingTx + bookingTxJ.bookingTransactions;
+            if (newSubTx != null) subscriptionTransactions = newSubTx + subTxJ.subscriptionTransactions;
+            if (newUsers != null) totalUsers = newUsers + usersJ.users;
+            if (newFeedbacks != null) totalFeedbacks = newFeedbacks + feedbacksJ.feedbacks;
+            loaded = true;
+
+            DashboardResponseDTO current = toDTO();
+            if (previous != null && !previous.equals(current)) {
+                log.info("DashboardStats: đối soát lệch {} -> {}", previous, current);
+            }
+        }
+    }
+
+    // run = false: không query, kết quả null (giữ nguyên bộ đếm).
+    // Trong transaction REPEATABLE READ: đọc nhẹ 1 dòng để InnoDB chốt snapshot, RỒI mới mở nhật ký, rồi chạy aggregate.
+    // Delta commit trước snapshot đã nằm trong kết quả query và không vào nhật ký; commit sau snapshot thì ngược lại
+    // -> không đếm 2 lần / không mất (chỉ còn khe rất nhỏ giữa lúc DB commit và lúc callback afterCommit chạy).
+    // Executor từ chối (đầy) -> future lỗi, bộ đếm đó giữ giá trị cũ / báo partial thay vì chạy trên thread gọi
+    private <T> CompletableFuture<T> query(boolean run, Deltas journal, Supplier<T> supplier) {
+        if (!run) {
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> queryTransaction.execute(status -> {
+                userRepository.existsById("");
+                openJournal(journal);
+                return supplier.get();
+            }), dashboardQueryExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private synchronized void openJournal(Deltas journal) {
+        if (!journal.closed) {
+            inFlight.add(journal);
+        }
+    }
+
+    // Trả về null nếu không query, câu query lỗi hoặc quá hạn (giữ giá trị cũ của bộ đếm đó)
+    private <T> T await(CompletableFuture<T> future, long deadlineNanos, String name) {
+        try {
+            long remaining = Math.max(0, deadlineNanos - System.nanoTime());
+            return future.get(remaining, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            future.cancel(true);
+            log.warn("DashboardStats: không lấy được {} trong {}ms ({}), giữ giá trị cũ", name, queryTimeoutMs, e.toString());
+            return null;
+        }
+    }
+
+    public static Contribution contributionOf(Booking booking) {
+        return contributionOf(booking, booking.getStatus());
+    }
+
+    public static Contribution contributionOf(Booking booking, BookingStatus status) {
+        if (status == null) {
+            return Contribution.NONE;
+        }
+        BigDecimal revenue = REVENUE_BOOKING_STATUSES.contains(status) ? nz(booking.getFinalPrice()) : BigDecimal.ZERO;
+        long transactions = SUCCESSFUL_BOOKING_STATUSES.contains(status) && booking.getOrderCode() != null ? 1 : 0;
+        return new Contribution(revenue, transactions);
+    }
+
+    public static Contribution contributionOf(UserSubscription sub) {
+        if (sub == null || sub.getStatus() != SubscriptionStatus.Active) {
+            return Contribution.NONE;
+        }
+        BigDecimal revenue = sub.getPlan() != null ? nz(sub.getPlan().getPrice()) : BigDecimal.ZERO;
+        return new Contribution(revenue, sub.getOrderCode() != null ? 1 : 0);
+    }
+
+    // Booking đổi trạng thái (oldStatus = null khi vừa tạo mới)
+    public void onBookingStatusChanged(Booking booking, BookingStatus oldStatus) {
+        Contribution before = contributionOf(booking, oldStatus);
+        Contribution after = contributionOf(booking);
+        BigDecimal revenueDelta = after.revenue().subtract(before.revenue());
+        long transactionDelta = after.transactions() - before.transactions();
+        if (revenueDelta.signum() == 0 && transactionDelta == 0) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                if (bookingRevenue != null) bookingRevenue = bookingRevenue.add(revenueDelta);
+                if (bookingTransactions != null) bookingTransactions += transactionDelta;
+                for (Deltas journal : inFlight) {
+                    journal.bookingRevenue = journal.bookingRevenue.add(revenueDelta);
+                    journal.bookingTransactions += transactionDelta;
+                }
+            }
+        });
+    }
+
+    // Subscription thay đổi (kích hoạt / đổi gói): cộng phần chênh lệch trước/sau sau khi commit
+    public void onSubscriptionChanged(Contribution before, Contribution after) {
+        BigDecimal revenueDelta = after.revenue().subtract(before.revenue());
+        long transactionDelta = after.transactions() - before.transactions();
+        if (revenueDelta.signum() == 0 && transactionDelta == 0) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                if (subscriptionRevenue != null) subscriptionRevenue = subscriptionRevenue.add(revenueDelta);
+                if (subscriptionTransactions != null) subscriptionTransactions += transactionDelta;
+                for (Deltas journal : inFlight) {
+                    journal.subscriptionRevenue = journal.subscriptionRevenue.add(revenueDelta);
+                    journal.subscriptionTransactions += transactionDelta;
+                }
+            }
+        });
+    }
+
+    // Bộ đếm chưa nạp (null) thì chỉ ghi vào nhật ký của lần đối soát đang chạy (nếu có)
+    public void onUserCreated() {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                if (totalUsers != null) totalUsers++;
+                inFlight.forEach(journal -> journal.users++);
+            }
+        });
+    }
+
+    public void onSystemFeedbackCreated() {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                if (totalFeedbacks != null) totalFeedbacks++;
+                inFlight.forEach(journal -> journal.feedbacks++);
+            }
+        });
+    }
+
+    private boolean isPartial() {
+        return bookingRevenue == null || subscriptionRevenue == null
+                || bookingTransactions == null || subscriptionTransactions == null
+                || totalUsers == null || totalFeedbacks == null;
+    }
+
+    private DashboardResponseDTO toDTO() {
+        return DashboardResponseDTO.builder()
+                .totalUsers(nz(totalUsers))
+                .totalTransactions(nz(bookingTransactions) + nz(subscriptionTransactions))
+                .totalFeedbacks(nz(totalFeedbacks))
+                .totalRevenue(nz(bookingRevenue).add(nz(subscriptionRevenue)))
+                .partial(isPartial())
+                .build();
+    }
+
+    // Delta đã commit sau khi 1 câu đối soát chốt snapshot DB
+    private static final class Deltas {
+        private boolean closed;
+        private BigDecimal bookingRevenue = BigDecimal.ZERO;
+        private BigDecimal subscriptionRevenue = BigDecimal.ZERO;
+        private long bookingTransactions;
+        private long subscriptionTransactions;
+        private long users;
+        private long feedbacks;
+    }
+
+    private static BigDecimal nz(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private static long nz(Long value) {
+        return value != null ? value : 0L;
+    }
+}
@@ -0,0 +1,157 @@
+package com.nutrimate.service;
+
+import com.nutrimate.entity.Booking;
+import com.nutrimate.entity.Booking.BookingStatus;
+import com.nutrimate.repository.BookingRepository;
+import com.nutrimate.util.AfterCommit;
+import com.nutrimate.util.TtlLruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Khung giờ đã bị đặt của từng Expert theo ngày, lưu dạng bitmask trên FIXED_TIME_SLOTS
+ * (bit i = 1 nghĩa là slot i đã có booking PENDING/CONFIRMED).
+ * - Tạo booking: bật bit sau khi commit (nếu ngày đó đang có trong cache).
+ * - Hủy / từ chối / hết hạn / hoàn thành: xóa key ngày đó để lần đọc sau tính lại từ DB.
+ * - Cả 2 trường hợp đều tăng thế hệ của key: mask nạp từ DB chạy chen giữa bị bỏ, không ghi đè cập nhật.
+ * Xem nhiều ngày chỉ cần 1 query theo khoảng booking_time (dùng được index) cho các ngày chưa có trong cache.
+ */
+@Component
+public class ExpertAvailabilityCache {
+
+    public static final List<LocalTime> FIXED_TIME_SLOTS = List.of(
+            // Sáng
+            LocalTime.of(8, 0), LocalTime.of(9, 0), LocalTime.of(10, 0), LocalTime.of(11, 0),
+            // Chiều
+            LocalTime.of(13, 30), LocalTime.of(14, 30), LocalTime.of(15, 30), LocalTime.of(16, 30),
+            // Tối
+            LocalTime.of(19, 0), LocalTime.of(20, 0), LocalTime.of(21, 0)
+    );
+
+    private static final List<BookingStatus> ACTIVE_STATUSES = List.of(BookingStatus.PENDING, BookingStatus.CONFIRMED);
+
+    private final BookingRepository bookingRepository;
+    private final TtlLruCache<Key, Integer> busyMasks;
+
+    public ExpertAvailabilityCache(BookingRepository bookingRepository,
+                                   @Value("${app.booking.availability-cache.max-size:20000}") int maxSize,
+                                   @Value("${app.booking.availability-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.bookingRepository = bookingRepository;
+        this.busyMasks = new TtlLruCache<>(maxSize, ttlSeconds * 1000);
+    }
+
+    /** Bitmask slot đã bận cho từng ngày trong [from, to], theo thứ tự ngày. */
+    public Map<LocalDate, Integer> getBusyMasks(String expertId, LocalDate from, LocalDate to) {
+        Map<LocalDate, Integer> result = new LinkedHashMap<>();
+        // Thế hệ của từng ngày bị miss, lấy trước khi query: ngày bị đặt/hủy trong lúc query thì không put mask cũ
+        Map<LocalDate, Long> generations = new HashMap<>();
+        LocalDate firstMissing = null;
+        LocalDate lastMissing = null;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            Key key = new Key(expertId, day);
+            Integer mask = busyMasks.get(key);
+            result.put(day, mask);
+            if (mask == null) {
+                generations.put(day, busyMasks.generation(key));
+                if (firstMissing == null) firstMissing = day;
+                lastMissing = day;
+            }
+        }
+
+        if (firstMissing != null) {
+            Map<LocalDate, Integer> loaded = loadMasks(expertId, firstMissing, lastMissing);
+            for (Map.Entry<LocalDate, Integer> entry : result.entrySet()) {
+                if (entry.getValue() == null) {
+                    int mask = loaded.getOrDefault(entry.getKey(), 0);
+                    entry.setValue(mask);
+                    busyMasks.putIfUnchanged(new Key(expertId, entry.getKey()), mask, generations.get(entry.getKey()));
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Slot đã bận theo bitmask đang có trong cache (không truy vấn DB); ngày chưa có trong cache -> false. */
+    public boolean isCachedBusy(String expertId, LocalDateTime bookingTime) {
+        int bit = slotBit(bookingTime.toLocalTime());
+        if (bit == 0) {
+            return false;
+        }
+        Integer mask = busyMasks.get(new Key(expertId, bookingTime.toLocalDate()));
+        return mask != null && (mask & bit) != 0;
+    }
+
+    public static List<String> availableSlots(int busyMask) {
+        List<String> slots = new ArrayList<>();
+        for (int i = 0; i < FIXED_TIME_SLOTS.size(); i++) {
+            if ((busyMask & (1 << i)) == 0) {
+                slots.add(FIXED_TIME_SLOTS.get(i).toString()); // LocalTime.toString() = "HH:mm"
+            }
+        }
+        return slots;
+    }
+
+    // Booking đổi trạng thái (oldStatus = null khi vừa tạo mới)
+    public void onBookingStatusChanged(Booking booking, BookingStatus oldStatus) {
+        if (booking.getExpert() == null || booking.getBookingTime() == null) {
+            return;
+        }
+        boolean wasActive = oldStatus != null && ACTIVE_STATUSES.contains(oldStatus);
+        boolean isActive = ACTIVE_STATUSES.contains(booking.getStatus());
+        if (wasActive == isActive) {
+            return;
+        }
+        if (isActive) {
+            Key key = new Key(booking.getExpert().getId(), booking.getBookingTime().toLocalDate());
+            int bit = slotBit(booking.getBookingTime().toLocalTime());
+            if (bit != 0) {
+                AfterCommit.run(() -> busyMasks.updateIfPresent(key, mask -> mask | bit));
+            }
+        } else {
+            onSlotReleased(booking.getExpert().getId(), booking.getBookingTime());
+        }
+    }
+
+    // Booking thôi giữ slot (hủy / từ chối / hết hạn / hoàn thành)
+    public void onSlotReleased(String expertId, LocalDateTime bookingTime) {
+        // Có thể còn booking khác cùng slot -> không tự tắt bit, để lần đọc sau tính lại
+        Key key = new Key(expertId, bookingTime.toLocalDate());
+        busyMasks.invalidate(key);
+        AfterCommit.run(() -> busyMasks.invalidate(key));
+    }
+
+    public Map<String, Object> stats() {
+        return busyMasks.stats();
+    }
+
+    private Map<LocalDate, Integer> loadMasks(String expertId, LocalDate from, LocalDate to) {
+        List<LocalDateTime> times = bookingRepository.findActiveBookingTimesInRange(
+                expertId, ACTIVE_STATUSES, from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        Map<LocalDate, Integer> masks = new HashMap<>();
+        for (LocalDateTime time : times) {
+            int bit = slotBit(time.toLocalTime());
+            if (bit != 0) {
+                masks.merge(time.toLocalDate(), bit, (a, b) -> a | b);
+            }
+        }
+        return masks;
+    }
+
+    // Chỉ giờ trùng đúng 1 slot cố định mới chiếm slot đó (giống cách so "HH:mm" trước đây)
+    private static int slotBit(LocalTime time) {
+        int index = FIXED_TIME_SLOTS.indexOf(time.withSecond(0).withNano(0));
+        return index >= 0 ? 1 << index : 0;
+    }
+
+    private record Key(String expertId, LocalDate date) {
+    }
+}
@@ -0,0 +1,244 @@
+package com.nutrimate.service;
+
+import com.nutrimate.entity.ExpertProfile;
+import com.nutrimate.entity.ExpertProfile.ApprovalStatus;
+import com.nutrimate.entity.User;
+import com.nutrimate.repository.ExpertProfileRepository;
+import com.nutrimate.util.AfterCommit;
+import com.nutrimate.util.TextNormalizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Danh bạ Expert đã duyệt (APPROVED) giữ trong bộ nhớ cho /api/experts, không quét bảng Expert_Profiles mỗi request.
+ * - 2 danh sách sắp sẵn: theo rating giảm dần và theo hourlyRate tăng dần. Khoảng min/max của khóa sắp xếp
+ *   được cắt bằng binary search; không có lọc phụ thì phân trang chỉ là subList.
+ * - Duyệt hồ sơ / sửa hồ sơ / feedback mới: thay đúng 1 expert trong snapshot (copy-on-write) sau khi commit.
+ * - Nạp lúc khởi động và nạp lại định kỳ để sửa sai lệch (vd: dữ liệu sửa tay trong DB); thay đổi commit
+ *   trong lúc đang nạp được ghi lại và áp lên kết quả nạp, không bị snapshot mới ghi đè mất.
+ */
+@Component
+@Slf4j
+public class ExpertDirectoryIndex {
+
+    public enum SortBy {
+        RATING, PRICE
+    }
+
+    /** 1 trang kết quả tìm kiếm + tổng số expert khớp bộ lọc. */
+    public record SearchResult(List<ExpertProfile> items, int totalItems) {
+    }
+
+    // rating = null xếp cuối danh sách rating, hourlyRate = null xếp cuối danh sách giá
+    private record Entry(ExpertProfile profile, float rating, BigDecimal price, String specialization) {
+    }
+
+    private record Snapshot(Map<String, Entry> byId, List<Entry> byRating, List<Entry> byPrice) {
+        static final Snapshot EMPTY = new Snapshot(Map.of(), List.of(), List.of());
+    }
+
+    private static final float NO_RATING = -1f;
+    private static final Comparator<Entry> BY_RATING_DESC = Comparator.comparingDouble((Entry e) -> e.rating()).reversed()
+            .thenComparing(e -> e.profile().getId());
+    private static final Comparator<Entry> BY_PRICE_ASC = Comparator.comparing(Entry::price,
+                    Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(e -> e.profile().getId());
+
+    private final ExpertProfileRepository expertProfileRepository;
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private final Object reloadLock = new Object();
+    // Các apply() chạy trong lúc reload đang query (null = không có reload); value null = gỡ khỏi danh bạ
+    private Map<String, Entry> appliedDuringReload;
+
+    public ExpertDirectoryIndex(ExpertProfileRepository expertProfileRepository) {
+        this.expertProfileRepository = expertProfileRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.experts.directory.reload-ms:1800000}",
+            initialDelayString = "${app.experts.directory.reload-ms:1800000}")
+    public void reload() {
+        synchronized (reloadLock) {
+            synchronized (this) {
+                appliedDuringReload = new HashMap<>();
+            }
+            try {
+                List<ExpertProfile> approved = expertProfileRepository.findByStatus(ApprovalStatus.APPROVED);
+                Map<String, Entry> byId = new HashMap<>();
+                for (ExpertProfile profile : approved) {
+                    byId.put(profile.getId(), toEntry(profile));
+                }
+                synchronized (this) {
+                    // Thay đổi commit trong lúc query mới hơn (hoặc bằng) dữ liệu vừa đọc -> ghi đè lên kết quả query
+                    appliedDuringReload.forEach((expertId, entry) -> {
+                        if (entry != null) {
+                            byId.put(expertId, entry);
+                        } else {
+                            byId.remove(expertId);
+                        }
+                    });
+                    List<Entry> byRating = new ArrayList<>(byId.values());
+                    byRating.sort(BY_RATING_DESC);
+                    List<Entry> byPrice = new ArrayList<>(byId.values());
+                    byPrice.sort(BY_PRICE_ASC);
+                    snapshot = new Snapshot(byId, byRating, byPrice);
+                }
+                log.info("ExpertDirectory: đã nạp {} expert", byId.size());
+            } finally {
+                synchronized (this) {
+                    appliedDuringReload = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lọc theo khoảng rating / giá, chuyên môn (không phân biệt dấu) rồi cắt trang.
+     * Giữ quy tắc cũ: có truyền minRating/maxPrice thì expert thiếu rating/giá bị loại.
+     */
+    public SearchResult search(Float minRating, Float maxRating, BigDecimal minPrice, BigDecimal maxPrice,
+                               String specialization, SortBy sortBy, int page, int size) {
+        Snapshot current = snapshot;
+        boolean byPrice = sortBy == SortBy.PRICE;
+        List<Entry> sorted = byPrice ? current.byPrice() : current.byRating();
+
+        // Khoảng [from, to) thỏa điều kiện trên khóa sắp xếp, tìm bằng binary search
+        int from;
+        int to;
+        if (byPrice) {
+            from = minPrice == null ? 0
+                    : firstMatch(sorted, e -> e.price() == null || e.price().compareTo(minPrice) >= 0);
+            if (maxPrice != null) {
+                to = firstMatch(sorted, e -> e.price() == null || e.price().compareTo(maxPrice) > 0);
+            } else {
+                to = minPrice != null ? firstMatch(sorted, e -> e.price() == null) : sorted.size();
+            }
+        } else {
+            from = maxRating == null ? 0 : firstMatch(sorted, e -> e.rating() <= maxRating);
+            if (minRating != null) {
+                to = firstMatch(sorted, e -> e.rating() < minRating || e.rating() == NO_RATING);
+            } else {
+                to = maxRating != null ? firstMatch(sorted, e -> e.rating() == NO_RATING) : sorted.size();
+            }
+        }
+        List<Entry> range = sorted.subList(from, Math.max(from, to));
+
+        String folded = specialization == null || specialization.isBlank() ? null : TextNormalizer.fold(specialization.trim());
+        Predicate<Entry> secondary = byPrice
+                ? e -> matchesRating(e, minRating, maxRating)
+                : e -> matchesPrice(e, minPrice, maxPrice);
+        boolean needsFilter = folded != null
+                || (byPrice ? minRating != null || maxRating != null : minPrice != null || maxPrice != null);
+
+        int offset = Math.max(page, 0) * size;
+        if (!needsFilter) {
+            List<ExpertProfile> items = range.subList(Math.min(offset, range.size()), Math.min(offset + size, range.size()))
+                    .stream().map(Entry::profile).toList();
+            return new SearchResult(items, range.size());
+        }
+
+        List<ExpertProfile> items = new ArrayList<>(size);
+        int total = 0;
+        for (Entry entry : range) {
+            if (!secondary.test(entry) || (folded != null && !entry.specialization().contains(folded))) {
+                continue;
+            }
+            if (total >= offset && items.size() < size) {
+                items.add(entry.profile());
+            }
+            total++;
+        }
+        return new SearchResult(items, total);
+    }
+
+    // Hồ sơ expert thay đổi (duyệt / từ chối / rating mới): cập nhật snapshot sau khi commit
+    public void onProfileChanged(ExpertProfile profile) {
+        AfterCommit.run(() -> apply(profile.getId(),
+                profile.getStatus() == ApprovalStatus.APPROVED ? toEntry(profile) : null));
+    }
+
+    // User sửa tên / avatar: nếu là expert trong danh bạ thì nạp lại hồ sơ (kèm User mới)
+    public void onUserUpdated(User user) {
+        if (user.getRole() != User.UserRole.EXPERT) {
+            return;
+        }
+        AfterCommit.run(() -> expertProfileRepository.findByUserId(user.getId())
+                .filter(profile -> snapshot.byId().containsKey(profile.getId()))
+                .ifPresent(profile -> apply(profile.getId(), toEntry(profile))));
+    }
+
+    // Thay entry của 1 expert (updated = null nghĩa là gỡ khỏi danh bạ)
+    private synchronized void apply(String expertId, Entry updated) {
+        if (appliedDuringReload != null) {
+            appliedDuringReload.put(expertId, updated);
+        }
+        Snapshot current = snapshot;
+        Map<String, Entry> byId = new HashMap<>(current.byId());
+        List<Entry> byRating = new ArrayList<>(current.byRating());
+        List<Entry> byPrice = new ArrayList<>(current.byPrice());
+
+        Entry old = byId.remove(expertId);
+        if (old != null) {
+            byRating.remove(Collections.binarySearch(byRating, old, BY_RATING_DESC));
+            byPrice.remove(Collections.binarySearch(byPrice, old, BY_PRICE_ASC));
+        }
+        if (updated != null) {
+            byId.put(expertId, updated);
+            byRating.add(insertionPoint(byRating, updated, BY_RATING_DESC), updated);
+            byPrice.add(insertionPoint(byPrice, updated, BY_PRICE_ASC), updated);
+        }
+        snapshot = new Snapshot(byId, byRating, byPrice);
+    }
+
+    private static Entry toEntry(ExpertProfile profile) {
+        return new Entry(profile,
+                profile.getRating() != null ? profile.getRating() : NO_RATING,
+                profile.getHourlyRate(),
+                TextNormalizer.fold(profile.getSpecialization()));
+    }
+
+    private static boolean matchesRating(Entry e, Float minRating, Float maxRating) {
+        if (minRating == null && maxRating == null) return true;
+        if (e.rating() == NO_RATING) return false;
+        return (minRating == null || e.rating() >= minRating) && (maxRating == null || e.rating() <= maxRating);
+    }
+
+    private static boolean matchesPrice(Entry e, BigDecimal minPrice, BigDecimal maxPrice) {
+        if (minPrice == null && maxPrice == null) return true;
+        if (e.price() == null) return false;
+        return (minPrice == null || e.price().compareTo(minPrice) >= 0)
+                && (maxPrice == null || e.price().compareTo(maxPrice) <= 0);
+    }
+
+    // Vị trí đầu tiên mà predicate đúng (predicate phải đơn điệu false...false true...true trên list)
+    private static int firstMatch(List<Entry> sorted, Predicate<Entry> predicate) {
+        int lo = 0;
+        int hi = sorted.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (predicate.test(sorted.get(mid))) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    private static int insertionPoint(List<Entry> sorted, Entry entry, Comparator<Entry> comparator) {
+        int index = Collections.binarySearch(sorted, entry, comparator);
+        return index >= 0 ? index : -index - 1;
+    }
+}
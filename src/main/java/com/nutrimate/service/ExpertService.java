@@ -6,8 +6,8 @@ import com.nutrimate.entity.ExpertProfile.ApprovalStatus;
 import com.nutrimate.entity.User;
 import com.nutrimate.exception.ResourceNotFoundException;
 import com.nutrimate.repository.ExpertProfileRepository;
-import com.nutrimate.repository.BookingRepository;
 import com.nutrimate.repository.UserRepository;
+import com.nutrimate.dto.BookingPageResponseDTO;
 import com.nutrimate.dto.ExpertApplicationDTO;
 import com.nutrimate.exception.BadRequestException;
 import jakarta.transaction.Transactional;
@@ -16,29 +16,45 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class ExpertService {
-    private final BookingRepository bookingRepository;
+    private final BookingService bookingService;
     private final ExpertProfileRepository expertRepository;
     private final UserRepository userRepository;
     private final FileUploadService fileUploadService;
+    private final ExpertDirectoryIndex expertDirectoryIndex;
+
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
 
     // 5.1 Search
-    public List<ExpertProfile> searchExperts(Float minRating, BigDecimal maxPrice) {
-        // 1. Chỉ lấy những Expert đã được DUYỆT (APPROVED)
-        // (Thay vì dùng findAll() như cũ)
-        List<ExpertProfile> experts = expertRepository.findByStatus(ExpertProfile.ApprovalStatus.APPROVED);
-
-        // 2. Lọc tiếp theo Rating và Price (nếu user có truyền vào)
-        return experts.stream()
-                .filter(e -> minRating == null || (e.getRating() != null && e.getRating() >= minRating))
-                .filter(e -> maxPrice == null
-                        || (e.getHourlyRate() != null && e.getHourlyRate().compareTo(maxPrice) <= 0))
-                .toList();
+    // Chỉ Expert đã được DUYỆT (APPROVED), đọc từ danh bạ in-memory (không query DB)
+    public Map<String, Object> searchExperts(Float minRating, Float maxRating, BigDecimal minPrice, BigDecimal maxPrice,
+                                             String specialization, String sortBy, int page, int size) {
+        ExpertDirectoryIndex.SortBy sort;
+        try {
+            sort = sortBy == null ? ExpertDirectoryIndex.SortBy.RATING
+                    : ExpertDirectoryIndex.SortBy.valueOf(sortBy.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("sortBy không hợp lệ. Vui lòng điền 'RATING' hoặc 'PRICE'");
+        }
+        int pageSize = Math.min(Math.max(size, 1), MAX_SEARCH_PAGE_SIZE);
+        int pageNumber = Math.max(page, 0);
+
+        ExpertDirectoryIndex.SearchResult result = expertDirectoryIndex.search(
+                minRating, maxRating, minPrice, maxPrice, specialization, sort, pageNumber, pageSize);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("experts", result.items());
+        response.put("currentPage", pageNumber);
+        response.put("totalItems", result.totalItems());
+        response.put("totalPages", (result.totalItems() + pageSize - 1) / pageSize);
+        return response;
     }
 
     // 5.2 Get Detail
@@ -48,14 +64,21 @@ public class ExpertService {
     }
 
     public List<Booking> getMyExpertBookings(String userId) {
-        // 1. Từ User ID -> Tìm ra hồ sơ Expert
+        return bookingService.getMyExpertBookings(approvedExpertOf(userId).getId());
+    }
+
+    public BookingPageResponseDTO getMyExpertBookingsPage(String userId, String cursor, int size) {
+        return bookingService.getMyExpertBookingsPage(approvedExpertOf(userId).getId(), cursor, size);
+    }
+
+    // Từ User ID -> Tìm ra hồ sơ Expert đã được duyệt
+    private ExpertProfile approvedExpertOf(String userId) {
         ExpertProfile expert = expertRepository.findByUserId(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Bạn chưa đăng ký hồ sơ chuyên gia!"));
         if (expert.getStatus() != ExpertProfile.ApprovalStatus.APPROVED) {
            throw new BadRequestException("Hồ sơ của bạn chưa được duyệt.");
         }
-
-        return bookingRepository.findByExpertId(expert.getId());
+        return expert;
     }
 
     @Transactional
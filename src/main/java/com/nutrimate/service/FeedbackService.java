@@ -8,12 +8,13 @@ import com.nutrimate.exception.BadRequestException;
 import com.nutrimate.exception.ForbiddenException;
 import com.nutrimate.exception.ResourceNotFoundException;
 import com.nutrimate.repository.BookingRepository;
+import com.nutrimate.repository.ExpertProfileRepository;
 import com.nutrimate.repository.FeedbackRepository;
 import com.nutrimate.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
@@ -26,6 +27,8 @@ public class FeedbackService {
     private final FeedbackRepository feedbackRepository;
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
+    private final ExpertProfileRepository expertProfileRepository;
+    private final ExpertDirectoryIndex expertDirectoryIndex;
 
     @Transactional
     public Feedback createFeedback(String memberId, FeedbackCreateRequest req) {
@@ -66,28 +69,43 @@ public class FeedbackService {
         feedback.setRating(req.getRating());
         feedback.setComment(req.getComment());
 
-        return feedbackRepository.save(feedback);
+        Feedback saved = feedbackRepository.save(feedback);
+
+        // 8. Cộng sao vào tổng của Expert bằng 1 câu UPDATE nguyên tử, rồi đọc lại hồ sơ để cập nhật danh bạ
+        if (booking.getExpert() != null) {
+            String expertId = booking.getExpert().getId();
+            expertProfileRepository.addRating(expertId, req.getRating());
+            expertProfileRepository.findById(expertId).ifPresent(expertDirectoryIndex::onProfileChanged);
+        }
+        return saved;
     }
 
     public Map<String, Object> getExpertFeedbacks(String expertId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
         
         // Lấy danh sách feedback
-        Page<Feedback> feedbackPage = feedbackRepository.findByExpertId(expertId, pageable);
+        List<Feedback> feedbacks = feedbackRepository.findByExpertId(expertId, pageable);
         
-        // Lấy điểm trung bình
-        Double avgRating = feedbackRepository.getAverageRatingByExpertId(expertId);
+        // Tổng sao / số lượt đọc từ Expert_Profiles (không AVG / COUNT trên bảng feedbacks)
+        List<Object[]> totals = expertProfileRepository.findRatingTotals(expertId);
+        long ratingSum = 0;
+        long ratingCount = 0;
+        if (!totals.isEmpty()) {
+            Object[] row = totals.get(0);
+            ratingSum = row[0] != null ? ((Number) row[0]).longValue() : 0;
+            ratingCount = row[1] != null ? ((Number) row[1]).longValue() : 0;
+        }
         
         // Đóng gói trả về cho Frontend
         Map<String, Object> response = new HashMap<>();
-        response.put("feedbacks", feedbackPage.getContent());
-        response.put("currentPage", feedbackPage.getNumber());
-        response.put("totalItems", feedbackPage.getTotalElements());
-        response.put("totalPages", feedbackPage.getTotalPages());
+        response.put("feedbacks", feedbacks);
+        response.put("currentPage", page);
+        response.put("totalItems", ratingCount);
+        response.put("totalPages", size > 0 ? (int) ((ratingCount + size - 1) / size) : 0);
         
         // Làm tròn 1 chữ số thập phân (VD: 4.56 -> 4.6)
-        response.put("averageRating", avgRating != null ? Math.round(avgRating * 10.0) / 10.0 : 0.0);
-        response.put("totalReviews", feedbackPage.getTotalElements());
+        response.put("averageRating", ratingCount > 0 ? Math.round(ratingSum * 10.0 / ratingCount) / 10.0 : 0.0);
+        response.put("totalReviews", ratingCount);
 
         return response;
     }
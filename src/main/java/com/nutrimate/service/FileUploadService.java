@@ -2,19 +2,35 @@ package com.nutrimate.service;
 
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class FileUploadService {
 
+    private static final Pattern VERSION_SEGMENT = Pattern.compile("(?:^|/)v\\d+/");
+
     private final Cloudinary cloudinary;
+    private final Executor mediaUploadExecutor;
+
+    public FileUploadService(Cloudinary cloudinary,
+                             @Qualifier("mediaUploadExecutor") Executor mediaUploadExecutor) {
+        this.cloudinary = cloudinary;
+        this.mediaUploadExecutor = mediaUploadExecutor;
+    }
 
     public String uploadFile(MultipartFile file) throws IOException {
         // Thêm option "resource_type", "auto" cực kỳ quan trọng ở đây
@@ -24,4 +40,111 @@ public class FileUploadService {
                 ));
         return uploadResult.get("url").toString();
     }
-}
\ No newline at end of file
+
+    /**
+     * Upload ảnh + video cùng lúc trên executor riêng (file null/rỗng thì bỏ qua, url = null).
+     * Gọi hàm này NGOÀI transaction để không giữ connection DB trong lúc chờ Cloudinary.
+     * 1 file lỗi thì xóa file còn lại (nếu đã upload xong) để không để file mồ côi trên Cloudinary.
+     */
+    public UploadedMedia uploadMediaParallel(MultipartFile imageFile, MultipartFile videoFile) throws IOException {
+        CompletableFuture<UploadedAsset> image = uploadAsync(imageFile);
+        CompletableFuture<UploadedAsset> video = uploadAsync(videoFile);
+        try {
+            CompletableFuture.allOf(image, video).join(); // chờ cả 2 xong (kể cả khi 1 bên lỗi)
+            return new UploadedMedia(urlOf(image.join()), urlOf(video.join()));
+        } catch (CompletionException e) {
+            deleteQuietly(image);
+            deleteQuietly(video);
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw new IOException(cause != null ? cause.getMessage() : e.getMessage(), cause);
+        }
+    }
+
+    private CompletableFuture<UploadedAsset> uploadAsync(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Map uploadResult = cloudinary.uploader().upload(file.getBytes(),
+                        ObjectUtils.asMap("resource_type", "auto"));
+                return new UploadedAsset(uploadResult.get("url").toString(),
+                        String.valueOf(uploadResult.get("public_id")),
+                        String.valueOf(uploadResult.get("resource_type")));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, mediaUploadExecutor);
+    }
+
+    // Xóa file đã upload thành công của 1 future (bỏ qua nếu future lỗi / không có file)
+    private void deleteQuietly(CompletableFuture<UploadedAsset> upload) {
+        if (upload.isCompletedExceptionally()) {
+            return;
+        }
+        UploadedAsset asset = upload.getNow(null);
+        if (asset != null) {
+            destroyQuietly(asset);
+        }
+    }
+
+    private void destroyQuietly(UploadedAsset asset) {
+        try {
+            cloudinary.uploader().destroy(asset.publicId(), ObjectUtils.asMap("resource_type", asset.resourceType()));
+        } catch (Exception e) {
+            log.warn("Không xóa được file mồ côi {} trên Cloudinary: {}", asset.publicId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Xóa các file đã upload nhưng không dùng tới (vd: ghi DB lỗi sau khi upload, hoặc file cũ bị thay thế).
+     * Chạy trên executor upload, lỗi chỉ ghi log - không làm hỏng request đã xong.
+     */
+    public void deleteMedia(UploadedMedia media) {
+        if (media != null) {
+            deleteUrls(media.imageUrl(), media.videoUrl());
+        }
+    }
+
+    public void deleteUrls(String... urls) {
+        for (String url : urls) {
+            UploadedAsset asset = parseAssetUrl(url);
+            if (asset != null) {
+                mediaUploadExecutor.execute(() -> destroyQuietly(asset));
+            }
+        }
+    }
+
+    // URL Cloudinary: .../<resource_type>/upload/[<transform>/][v<version>/]<public_id>.<ext>
+    static UploadedAsset parseAssetUrl(String url) {
+        if (url == null || url.isBlank()) {
+            return null;
+        }
+        int upload = url.indexOf("/upload/");
+        if (upload < 0) {
+            return null;
+        }
+        String resourceType = url.substring(url.lastIndexOf('/', upload - 1) + 1, upload);
+        String path = url.substring(upload + "/upload/".length());
+        Matcher version = VERSION_SEGMENT.matcher(path);
+        if (version.find()) {
+            path = path.substring(version.end());
+        }
+        int dot = path.lastIndexOf('.');
+        String publicId = dot > path.lastIndexOf('/') ? path.substring(0, dot) : path;
+        return publicId.isEmpty() ? null : new UploadedAsset(url, publicId, resourceType);
+    }
+
+    private static String urlOf(UploadedAsset asset) {
+        return asset != null ? asset.url() : null;
+    }
+
+    public record UploadedMedia(String imageUrl, String videoUrl) {
+    }
+
+    record UploadedAsset(String url, String publicId, String resourceType) {
+    }
+}
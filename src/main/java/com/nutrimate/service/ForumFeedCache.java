@@ -0,0 +1,88 @@
+package com.nutrimate.service;
+
+import com.nutrimate.dto.ForumDTO;
+import com.nutrimate.util.AfterCommit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Snapshot dùng chung của trang đầu newsfeed (N bài mới nhất, chưa gắn cờ like của từng user).
+ * - Tạo/sửa/xóa/ẩn bài: bỏ snapshot, request kế tiếp nạp lại.
+ * - Like/comment: chỉ cộng/trừ số đếm sau khi commit (thay bài đó bằng bản copy, snapshot cũ không đổi).
+ * Có TTL để tự làm mới phòng khi có thay đổi đi đường khác (vd: job đối soát số đếm).
+ */
+@Component
+public class ForumFeedCache {
+
+    // Số bài giữ trong snapshot (= size tối đa của 1 trang feed)
+    public static final int SNAPSHOT_SIZE = 50;
+
+    private final long ttlMillis;
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public ForumFeedCache(@Value("${app.forum.feed-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    public Snapshot getOrLoad(Supplier<Snapshot> loader) {
+        Snapshot current = snapshot;
+        if (current != null && System.currentTimeMillis() - current.loadedAt() < ttlMillis) {
+            return current;
+        }
+        long expectedVersion = version.get();
+        Snapshot fresh = loader.get();
+        // Chỉ lưu nếu không có thay đổi nào xen vào trong lúc đang nạp
+        synchronized (this) {
+            if (version.get() == expectedVersion) {
+                snapshot = fresh;
+            }
+        }
+        return fresh;
+    }
+
+    public void invalidate() {
+        doInvalidate();
+        AfterCommit.run(this::doInvalidate);
+    }
+
+    // Không sửa DTO đang dùng chung (request khác có thể đang đọc / serialize): thay bằng bản copy trong snapshot mới
+    public void adjustCounts(String postId, int likeDelta, int commentDelta) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                Snapshot current = snapshot;
+                if (current == null) return;
+                List<ForumDTO.PostResponse> posts = current.posts();
+                for (int i = 0; i < posts.size(); i++) {
+                    ForumDTO.PostResponse post = posts.get(i);
+                    if (post.getPostId().equals(postId)) {
+                        List<ForumDTO.PostResponse> updated = new ArrayList<>(posts);
+                        updated.set(i, post.toBuilder()
+                                .likeCount(Math.max(0, nz(post.getLikeCount()) + likeDelta))
+                                .commentCount(Math.max(0, nz(post.getCommentCount()) + commentDelta))
+                                .build());
+                        snapshot = new Snapshot(updated, current.totalElements(), current.loadedAt());
+                        return;
+                    }
+                }
+            }
+        });
+    }
+
+    private synchronized void doInvalidate() {
+        version.incrementAndGet();
+        snapshot = null;
+    }
+
+    private static int nz(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    public record Snapshot(List<ForumDTO.PostResponse> posts, long totalElements, long loadedAt) {
+    }
+}
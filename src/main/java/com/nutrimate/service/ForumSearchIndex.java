@@ -0,0 +1,182 @@
+package com.nutrimate.service;
+
+import com.nutrimate.repository.CommentRepository;
+import com.nutrimate.repository.PostRepository;
+import com.nutrimate.util.AfterCommit;
+import com.nutrimate.util.InvertedIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Index tìm kiếm full-text cho Forum (nội dung bài viết + comment, không phân biệt dấu).
+ * - Build lại từ DB lúc khởi động (quét theo chunk, chỉ lấy id/content/createdAt) vào index mới, xong mới thay thế.
+ * - Cập nhật từng phần sau khi commit: tạo/sửa/xóa/ẩn bài, tạo/sửa/xóa comment.
+ * Xếp hạng = điểm liên quan (nội dung bài x2, comment x1) x hệ số độ mới.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ForumSearchIndex {
+
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+    private static final double POST_WEIGHT = 2.0;
+    private static final double COMMENT_WEIGHT = 1.0;
+    // Bài cũ hơn ~30 ngày giảm dần về còn 50% điểm
+    private static final double RECENCY_HALF_LIFE_DAYS = 30.0;
+
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+
+    // Index hiện hành; rebuild dựng bản mới bên cạnh rồi thay thế nguyên khối (search không thấy index dở dang)
+    private volatile State state = new State();
+    private final Object rebuildLock = new Object();
+    // Các thay đổi áp dụng trong lúc rebuild đang quét DB (null = không có rebuild), phát lại lên index mới trước khi swap
+    private List<Consumer<State>> appliedDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                appliedDuringRebuild = new ArrayList<>();
+            }
+            try {
+                long start = System.currentTimeMillis();
+                State fresh = new State();
+                int posts = loadPosts(fresh);
+                int comments = loadComments(fresh);
+                synchronized (this) {
+                    // Thay đổi commit trong lúc quét mới hơn (hoặc bằng) dữ liệu vừa đọc -> phát lại theo đúng thứ tự
+                    appliedDuringRebuild.forEach(change -> change.accept(fresh));
+                    state = fresh;
+                }
+                log.info("ForumSearchIndex: đã index {} bài viết, {} comment trong {} ms",
+                        posts, comments, System.currentTimeMillis() - start);
+            } finally {
+                synchronized (this) {
+                    appliedDuringRebuild = null;
+                }
+            }
+        }
+    }
+
+    private int loadPosts(State target) {
+        String afterId = "";
+        int posts = 0;
+        while (true) {
+            List<Object[]> rows = postRepository.findSearchRowsAfter(afterId, PageRequest.of(0, REBUILD_CHUNK_SIZE));
+            if (rows.isEmpty()) break;
+            for (Object[] row : rows) {
+                String postId = (String) row[0];
+                String content = (String) row[1];
+                if (ForumService.HIDDEN_CONTENT.equals(content)) {
+                    target.hiddenPosts().add(postId);
+                }
+                target.indexPost(postId, content, (LocalDateTime) row[2]);
+            }
+            posts += rows.size();
+            afterId = (String) rows.get(rows.size() - 1)[0];
+        }
+        return posts;
+    }
+
+    private int loadComments(State target) {
+        String afterId = "";
+        int comments = 0;
+        while (true) {
+            List<Object[]> rows = commentRepository.findSearchRowsAfter(afterId, PageRequest.of(0, REBUILD_CHUNK_SIZE));
+            if (rows.isEmpty()) break;
+            for (Object[] row : rows) {
+                target.index().put(commentKey((String) row[0]), (String) row[1], (String) row[2], COMMENT_WEIGHT);
+            }
+            comments += rows.size();
+            afterId = (String) rows.get(rows.size() - 1)[0];
+        }
+        return comments;
+    }
+
+    /** Trả về postId theo thứ tự liên quan giảm dần (đã bỏ bài bị ẩn). */
+    public List<String> search(String query, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        State current = state;
+        return current.index().top(query, limit, postId -> current.hiddenPosts().contains(postId)
+                ? 0 : recencyFactor(current.postCreatedAt().get(postId), now));
+    }
+
+    // --- Cập nhật từng phần (chạy sau commit) ---
+
+    public void indexPost(String postId, String content, LocalDateTime createdAt) {
+        AfterCommit.run(() -> apply(target -> target.indexPost(postId, content, createdAt)));
+    }
+
+    public void hidePost(String postId) {
+        AfterCommit.run(() -> apply(target -> {
+            target.hiddenPosts().add(postId);
+            target.index().removeDocument(postId);
+        }));
+    }
+
+    public void removePost(String postId) {
+        AfterCommit.run(() -> apply(target -> {
+            target.index().removeDocument(postId);
+            target.postCreatedAt().remove(postId);
+            target.hiddenPosts().remove(postId);
+        }));
+    }
+
+    public void indexComment(String commentId, String postId, String content) {
+        AfterCommit.run(() -> apply(target -> target.index().put(commentKey(commentId), postId, content, COMMENT_WEIGHT)));
+    }
+
+    public void removeComment(String commentId) {
+        AfterCommit.run(() -> apply(target -> target.index().removeSource(commentKey(commentId))));
+    }
+
+    private synchronized void apply(Consumer<State> change) {
+        if (appliedDuringRebuild != null) {
+            appliedDuringRebuild.add(change);
+        }
+        change.accept(state);
+    }
+
+    private static double recencyFactor(LocalDateTime createdAt, LocalDateTime now) {
+        if (createdAt == null) return 0.5;
+        double ageDays = Math.max(0, Duration.between(createdAt, now).toHours() / 24.0);
+        return 0.5 + 0.5 * Math.pow(0.5, ageDays / RECENCY_HALF_LIFE_DAYS);
+    }
+
+    private static String postKey(String postId) {
+        return "P:" + postId;
+    }
+
+    private static String commentKey(String commentId) {
+        return "C:" + commentId;
+    }
+
+    private record State(InvertedIndex<String> index, Map<String, LocalDateTime> postCreatedAt,
+                         Set<String> hiddenPosts) {
+
+        State() {
+            this(new InvertedIndex<>(), new ConcurrentHashMap<>(), ConcurrentHashMap.newKeySet());
+        }
+
+        void indexPost(String postId, String content, LocalDateTime createdAt) {
+            if (createdAt != null) {
+                postCreatedAt.put(postId, createdAt);
+            }
+            index.put(postKey(postId), postId, content, POST_WEIGHT);
+        }
+    }
+}
@@ -8,17 +8,26 @@ import com.nutrimate.exception.AccessDeniedException;
 import com.nutrimate.exception.ResourceNotFoundException;
 import com.nutrimate.service.FileUploadService;
 import com.nutrimate.repository.*;
+import com.nutrimate.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,9 +39,20 @@ public class ForumService {
     private final PostLikeRepository likeRepository;
     private final UserRepository userRepository;
     private final FileUploadService fileUploadService;
+    private final ForumFeedCache forumFeedCache;
+    private final ForumSearchIndex forumSearchIndex;
+    private final ForumTrendingIndex forumTrendingIndex;
+    private final TransactionTemplate transactionTemplate;
 
     private static final long MAX_IMAGE_SIZE = 5 * 1024 * 1024; // 5MB
     private static final long MAX_VIDEO_SIZE = 20 * 1024 * 1024; // 20MB
+    private static final int MAX_FEED_PAGE_SIZE = 50;
+    private static final int MAX_SEARCH_RESULTS = 50;
+
+    // Nội dung thay thế khi Admin ẩn bài (index tìm kiếm dùng để nhận biết bài bị ẩn lúc build lại)
+    public static final String HIDDEN_CONTENT = "[Content hidden by Admin due to community guidelines violation]";
+    private static final int DEFAULT_COMMENT_PAGE_SIZE = 20;
+    private static final int MAX_COMMENT_PAGE_SIZE = 100;
     
     private void validateFileSize(MultipartFile file, long maxSize, String type) {
         if (file != null && !file.isEmpty() && file.getSize() > maxSize) {
@@ -41,17 +61,134 @@ public class ForumService {
     }
 
     // 10.1 Get Newsfeed
+    // Số query cố định mỗi trang: 1 (post + tác giả) + 1 (count) + 1 (like của user, nếu đã login)
+    // Trang đầu (page=0) lấy từ snapshot dùng chung: 0 query cho khách, 1 query (like) cho user đã login
     public Page<ForumDTO.PostResponse> getNewsFeed(String currentUserId, Pageable pageable) {
-        Page<Post> posts = postRepository.findAllByOrderByCreatedAtDesc(pageable);
-        
-        List<ForumDTO.PostResponse> dtos = posts.stream().map(post -> {
-            boolean isLiked = currentUserId != null && likeRepository.existsByUserIdAndPostId(currentUserId, post.getId());
-            return mapToPostDTO(post, isLiked);
-        }).collect(Collectors.toList());
+        if (pageable.getPageNumber() == 0 && pageable.getPageSize() <= ForumFeedCache.SNAPSHOT_SIZE
+                && pageable.getSort().isUnsorted()) {
+            ForumFeedCache.Snapshot snapshot = forumFeedCache.getOrLoad(this::loadFeedSnapshot);
+            List<ForumDTO.PostResponse> dtos = overlayLikes(currentUserId,
+                    firstN(snapshot.posts(), pageable.getPageSize()));
+            return new PageImpl<>(dtos, pageable, snapshot.totalElements());
+        }
+
+        Page<Post> posts = postRepository.findFeedWithAuthor(pageable);
+        Set<String> likedPostIds = findLikedPostIds(currentUserId, posts.getContent());
+
+        List<ForumDTO.PostResponse> dtos = posts.stream()
+                .map(post -> mapToPostDTO(post, likedPostIds.contains(post.getId())))
+                .collect(Collectors.toList());
 
         return new PageImpl<>(dtos, pageable, posts.getTotalElements());
     }
 
+    // 10.1b Newsfeed theo cursor (createdAt, postId) - không OFFSET, không COUNT
+    public ForumDTO.FeedPageResponse getNewsFeedByCursor(String currentUserId, String cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_FEED_PAGE_SIZE);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+
+        if (after == null && pageSize <= ForumFeedCache.SNAPSHOT_SIZE) {
+            ForumFeedCache.Snapshot snapshot = forumFeedCache.getOrLoad(this::loadFeedSnapshot);
+            List<ForumDTO.PostResponse> items = overlayLikes(currentUserId, firstN(snapshot.posts(), pageSize));
+            boolean hasMore = snapshot.totalElements() > items.size();
+            ForumDTO.PostResponse lastItem = items.isEmpty() ? null : items.get(items.size() - 1);
+            return ForumDTO.FeedPageResponse.builder()
+                    .items(items)
+                    .nextCursor(hasMore && lastItem != null
+                            ? KeysetCursor.encode(lastItem.getCreatedAt(), lastItem.getPostId()) : null)
+                    .hasMore(hasMore)
+                    .build();
+        }
+
+        // Lấy dư 1 bản ghi để biết còn trang sau hay không
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<Post> posts = after == null
+                ? postRepository.findFeedFirstPage(limit)
+                : postRepository.findFeedAfter(after.time(), after.id(), limit);
+
+        boolean hasMore = posts.size() > pageSize;
+        if (hasMore) {
+            posts = posts.subList(0, pageSize);
+        }
+        Set<String> likedPostIds = findLikedPostIds(currentUserId, posts);
+
+        Post last = posts.isEmpty() ? null : posts.get(posts.size() - 1);
+        return ForumDTO.FeedPageResponse.builder()
+                .items(posts.stream()
+                        .map(post -> mapToPostDTO(post, likedPostIds.contains(post.getId())))
+                        .collect(Collectors.toList()))
+                .nextCursor(hasMore && last != null ? KeysetCursor.encode(last.getCreatedAt(), last.getId()) : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    // Helper: Lấy tập post mà user đã like trong danh sách (1 query IN thay vì mỗi post 1 query)
+    private Set<String> findLikedPostIds(String currentUserId, List<Post> posts) {
+        return findLikedPostIdsByIds(currentUserId, posts.stream().map(Post::getId).collect(Collectors.toList()));
+    }
+
+    private Set<String> findLikedPostIdsByIds(String currentUserId, List<String> postIds) {
+        if (currentUserId == null || postIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return likeRepository.findLikedPostIds(currentUserId, postIds);
+    }
+
+    // Helper: Load bài viết theo danh sách id đã xếp hạng (1 query kèm tác giả + 1 query like), giữ nguyên thứ tự
+    private List<ForumDTO.PostResponse> loadPostsInOrder(String currentUserId, List<String> rankedIds) {
+        if (rankedIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<String, Post> postsById = postRepository.findWithAuthorByIdIn(rankedIds).stream()
+                .collect(Collectors.toMap(Post::getId, p -> p));
+        Set<String> likedPostIds = findLikedPostIdsByIds(currentUserId, rankedIds);
+        return rankedIds.stream()
+                .map(postsById::get)
+                .filter(Objects::nonNull)
+                .map(post -> mapToPostDTO(post, likedPostIds.contains(post.getId())))
+                .collect(Collectors.toList());
+    }
+
+    // Helper: Nạp snapshot trang đầu newsfeed (N bài mới nhất + tổng số bài), chưa gắn cờ like
+    private ForumFeedCache.Snapshot loadFeedSnapshot() {
+        List<ForumDTO.PostResponse> posts = postRepository
+                .findFeedFirstPage(PageRequest.of(0, ForumFeedCache.SNAPSHOT_SIZE)).stream()
+                .map(post -> mapToPostDTO(post, false))
+                .collect(Collectors.toList());
+        return new ForumFeedCache.Snapshot(posts, postRepository.count(), System.currentTimeMillis());
+    }
+
+    // Helper: Copy các bài trong snapshot dùng chung + gắn cờ like của user hiện tại (không sửa snapshot)
+    private List<ForumDTO.PostResponse> overlayLikes(String currentUserId, List<ForumDTO.PostResponse> shared) {
+        Set<String> likedPostIds = findLikedPostIdsByIds(currentUserId,
+                shared.stream().map(ForumDTO.PostResponse::getPostId).collect(Collectors.toList()));
+        return shared.stream()
+                .map(post -> post.toBuilder().isLikedByCurrentUser(likedPostIds.contains(post.getPostId())).build())
+                .collect(Collectors.toList());
+    }
+
+    private static <T> List<T> firstN(List<T> list, int n) {
+        return list.size() <= n ? list : list.subList(0, n);
+    }
+
+    // 10.1c Newsfeed "trending" (like + comment giảm dần theo thời gian) - đọc từ top-K in-memory, không quét bảng
+    public List<ForumDTO.PostResponse> getTrendingFeed(String currentUserId, int page, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_FEED_PAGE_SIZE);
+        List<String> rankedIds = forumTrendingIndex.topPostIds(Math.max(page, 0) * pageSize, pageSize);
+        return loadPostsInOrder(currentUserId, rankedIds);
+    }
+
+    // 10.10 Tìm kiếm bài viết/comment (không phân biệt dấu) qua index in-memory - không quét bảng Posts
+    public ForumDTO.SearchResponse searchPosts(String currentUserId, String query, int limit) {
+        int max = Math.min(Math.max(limit, 1), MAX_SEARCH_RESULTS);
+        List<String> rankedIds = forumSearchIndex.search(query, max);
+
+        return ForumDTO.SearchResponse.builder()
+                .query(query)
+                .items(loadPostsInOrder(currentUserId, rankedIds))
+                .build();
+    }
+
     // 10.2 Get Post Detail
     public ForumDTO.PostDetailResponse getPostDetail(String currentUserId, String postId) {
         Post post = postRepository.findById(postId)
@@ -59,72 +196,107 @@ public class ForumService {
         
         boolean isLiked = currentUserId != null && likeRepository.existsByUserIdAndPostId(currentUserId, postId);
         
-        List<ForumDTO.CommentResponse> comments = commentRepository.findByPostIdOrderByCreatedAtAsc(postId)
-                .stream().map(this::mapToCommentDTO).collect(Collectors.toList());
+        ForumDTO.CommentPageResponse firstPage = loadCommentPage(postId, null, DEFAULT_COMMENT_PAGE_SIZE);
 
         return ForumDTO.PostDetailResponse.builder()
                 .post(mapToPostDTO(post, isLiked))
-                .comments(comments)
+                .comments(firstPage.getItems())
+                .nextCommentCursor(firstPage.getNextCursor())
+                .hasMoreComments(firstPage.isHasMore())
                 .build();
     }
 
-    @Transactional
+    // 10.2b Lấy thêm comment của post theo cursor (cũ -> mới)
+    public ForumDTO.CommentPageResponse getComments(String postId, String cursor, int size) {
+        if (!postRepository.existsById(postId)) {
+            throw new ResourceNotFoundException("Post not found (ID: " + postId + ")");
+        }
+        return loadCommentPage(postId, KeysetCursor.decode(cursor), size);
+    }
+
+    // Helper: 1 trang comment + tác giả (JOIN FETCH, không N+1), lấy dư 1 bản ghi để biết còn trang sau
+    private ForumDTO.CommentPageResponse loadCommentPage(String postId, KeysetCursor after, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_COMMENT_PAGE_SIZE);
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<Comment> comments = after == null
+                ? commentRepository.findPageByPostId(postId, limit)
+                : commentRepository.findPageByPostIdAfter(postId, after.time(), after.id(), limit);
+
+        boolean hasMore = comments.size() > pageSize;
+        if (hasMore) {
+            comments = comments.subList(0, pageSize);
+        }
+        Comment last = comments.isEmpty() ? null : comments.get(comments.size() - 1);
+        return ForumDTO.CommentPageResponse.builder()
+                .items(comments.stream().map(this::mapToCommentDTO).collect(Collectors.toList()))
+                .nextCursor(hasMore && last != null ? KeysetCursor.encode(last.getCreatedAt(), last.getId()) : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    // Upload ảnh + video song song, NGOÀI transaction; sau đó mới ghi DB trong 1 transaction ngắn.
+    // Upload lỗi -> không ghi gì vào DB. Ghi DB lỗi -> xóa file vừa upload.
     public ForumDTO.PostResponse createPost(String userId, String content, MultipartFile imageFile, MultipartFile videoFile) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        
         validateFileSize(imageFile, MAX_IMAGE_SIZE, "ảnh");
         validateFileSize(videoFile, MAX_VIDEO_SIZE, "video");
 
-        Post post = new Post();
-        post.setUser(user);
-        post.setContent(content);
-        
-        try {
-            if (imageFile != null && !imageFile.isEmpty()) {
-                post.setImageUrl(fileUploadService.uploadFile(imageFile));
-            }
-            if (videoFile != null && !videoFile.isEmpty()) {
-                post.setVideoUrl(fileUploadService.uploadFile(videoFile));
-            }
-        } catch (IOException e) {
-            throw new BadRequestException("Lỗi upload media: " + e.getMessage());
-        }
-        
-        post.setLikeCount(0);
-        post.setCommentCount(0);
-        postRepository.save(post);
-        return mapToPostDTO(post, false);
+        FileUploadService.UploadedMedia media = uploadMedia(imageFile, videoFile, "Lỗi upload media: ");
+
+        ForumDTO.PostResponse response = inTransactionOrDeleteMedia(media, () -> {
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
+            Post post = new Post();
+            post.setUser(user);
+            post.setContent(content);
+            post.setImageUrl(media.imageUrl());
+            post.setVideoUrl(media.videoUrl());
+            postRepository.save(post);
+            forumSearchIndex.indexPost(post.getId(), post.getContent(), post.getCreatedAt());
+            forumTrendingIndex.onPostCreated(post.getId(), post.getCreatedAt());
+            return mapToPostDTO(post, false);
+        });
+        forumFeedCache.invalidate();
+        return response;
     }
 
-    // 10.4 Update Post
-    @Transactional
+    // 10.4 Update Post (kiểm tra quyền trước, upload ngoài transaction, rồi ghi trong transaction ngắn)
     public ForumDTO.PostResponse updatePost(String userId, String postId, String content, MultipartFile imageFile, MultipartFile videoFile) {
-        Post post = postRepository.findById(postId)
+        Post existing = postRepository.findById(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
         
-        if (!post.getUser().getId().equals(userId)) {
+        if (!existing.getUser().getId().equals(userId)) {
             throw new ForbiddenException("You are not authorized to edit this post");
         }
 
         validateFileSize(imageFile, MAX_IMAGE_SIZE, "ảnh");
         validateFileSize(videoFile, MAX_VIDEO_SIZE, "video");
 
-        post.setContent(content);
-        
-        try {
-            if (imageFile != null && !imageFile.isEmpty()) {
-                post.setImageUrl(fileUploadService.uploadFile(imageFile));
+        FileUploadService.UploadedMedia media = uploadMedia(imageFile, videoFile, "Lỗi upload media: ");
+
+        List<String> replacedUrls = new ArrayList<>();
+        ForumDTO.PostResponse response = inTransactionOrDeleteMedia(media, () -> {
+            Post post = postRepository.findById(postId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
+
+            post.setContent(content);
+            if (media.imageUrl() != null) {
+                replacedUrls.add(post.getImageUrl());
+                post.setImageUrl(media.imageUrl());
             }
-            if (videoFile != null && !videoFile.isEmpty()) {
-                post.setVideoUrl(fileUploadService.uploadFile(videoFile));
+            if (media.videoUrl() != null) {
+                replacedUrls.add(post.getVideoUrl());
+                post.setVideoUrl(media.videoUrl());
             }
-        } catch (IOException e) {
-            throw new BadRequestException("Lỗi upload media: " + e.getMessage());
-        }
-
-        post.setUpdatedAt(LocalDateTime.now());
-        return mapToPostDTO(postRepository.save(post), likeRepository.existsByUserIdAndPostId(userId, postId));
+            post.setUpdatedAt(LocalDateTime.now());
+            forumSearchIndex.indexPost(postId, post.getContent(), post.getCreatedAt());
+            postRepository.save(post);
+            return withCurrentCounters(mapToPostDTO(post, likeRepository.existsByUserIdAndPostId(userId, postId)));
+        });
+        forumFeedCache.invalidate();
+        // Đã commit: file cũ bị thay thế không còn được tham chiếu
+        fileUploadService.deleteUrls(replacedUrls.toArray(String[]::new));
+        return response;
     }
 
     // 10.5 Delete Post
@@ -138,6 +310,9 @@ public class ForumService {
         }
         
         postRepository.delete(post);
+        forumFeedCache.invalidate();
+        forumSearchIndex.removePost(postId);
+        forumTrendingIndex.remove(postId);
     }
 
     // 11.1 ADMIN: Delete Post
@@ -146,6 +321,9 @@ public class ForumService {
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
         postRepository.delete(post);
+        forumFeedCache.invalidate();
+        forumSearchIndex.removePost(postId);
+        forumTrendingIndex.remove(postId);
     }
 
     // 11.2 ADMIN: Hide Post
@@ -154,76 +332,86 @@ public class ForumService {
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
 
-        post.setContent("[Content hidden by Admin due to community guidelines violation]");
+        post.setContent(HIDDEN_CONTENT);
         post.setImageUrl(null);
         post.setUpdatedAt(LocalDateTime.now());
+        forumFeedCache.invalidate();
+        forumSearchIndex.hidePost(postId);
+        forumTrendingIndex.remove(postId);
 
-        return mapToPostDTO(postRepository.save(post), false);
+        postRepository.save(post);
+        return withCurrentCounters(mapToPostDTO(post, false));
     }
 
     // 10.6 Toggle Like
     @Transactional
     public void toggleLike(String userId, String postId) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
+        if (!postRepository.existsById(postId)) {
+            throw new ResourceNotFoundException("Post not found");
+        }
         
         Optional<PostLike> existingLike = likeRepository.findByUserIdAndPostId(userId, postId);
         
         if (existingLike.isPresent()) {
-            likeRepository.delete(existingLike.get());
-            post.setLikeCount(Math.max(0, post.getLikeCount() - 1));
+            PostLike like = existingLike.get();
+            likeRepository.delete(like);
+            postRepository.incrementLikeCount(postId, -1);
+            forumFeedCache.adjustCounts(postId, -1, 0);
+            // Trừ điểm trending tại thời điểm like gốc (like cũ chưa có created_at: coi như lúc đăng bài)
+            forumTrendingIndex.onLike(postId, false,
+                    like.getCreatedAt() != null ? like.getCreatedAt() : like.getPost().getCreatedAt());
         } else {
             User user = userRepository.findById(userId)
                     .orElseThrow(() -> new ResourceNotFoundException("User not found"));
             PostLike newLike = new PostLike();
-            newLike.setPost(post);
+            newLike.setPost(postRepository.getReferenceById(postId));
             newLike.setUser(user);
             likeRepository.save(newLike);
-            post.setLikeCount(post.getLikeCount() + 1);
+            postRepository.incrementLikeCount(postId, 1);
+            forumFeedCache.adjustCounts(postId, 1, 0);
+            forumTrendingIndex.onLike(postId, true, newLike.getCreatedAt());
         }
-        postRepository.save(post);
     }
 
-    // 10.7 Add Comment
-    @Transactional
+    // 10.7 Add Comment (upload ngoài transaction, ghi DB trong transaction ngắn)
     public ForumDTO.CommentResponse createComment(String userId, String postId, ForumDTO.CommentRequest request) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
+        if (!postRepository.existsById(postId)) {
+            throw new ResourceNotFoundException("Post not found");
+        }
 
         validateFileSize(request.getImageFile(), MAX_IMAGE_SIZE, "ảnh");
         validateFileSize(request.getVideoFile(), MAX_VIDEO_SIZE, "video");
 
-        Comment comment = new Comment();
-        comment.setUser(user);
-        comment.setPost(post);
-        comment.setContent(request.getContent());
+        FileUploadService.UploadedMedia media = uploadMedia(request.getImageFile(), request.getVideoFile(),
+                "Lỗi upload media comment: ");
 
-        try {
-            if (request.getImageFile() != null && !request.getImageFile().isEmpty()) {
-                comment.setImageUrl(fileUploadService.uploadFile(request.getImageFile()));
-            }
-            if (request.getVideoFile() != null && !request.getVideoFile().isEmpty()) {
-                comment.setVideoUrl(fileUploadService.uploadFile(request.getVideoFile()));
-            }
-        } catch (Exception e) {
-            throw new RuntimeException("Lỗi upload media comment: " + e.getMessage());
-        }
+        return inTransactionOrDeleteMedia(media, () -> {
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
-        Comment savedComment = commentRepository.save(comment);
-        post.setCommentCount(post.getCommentCount() + 1);
-        postRepository.save(post);
-        return mapToCommentDTO(savedComment);
+            Comment comment = new Comment();
+            comment.setUser(user);
+            comment.setPost(postRepository.getReferenceById(postId));
+            comment.setContent(request.getContent());
+            comment.setImageUrl(media.imageUrl());
+            comment.setVideoUrl(media.videoUrl());
+
+            Comment savedComment = commentRepository.save(comment);
+            forumSearchIndex.indexComment(savedComment.getId(), postId, savedComment.getContent());
+            postRepository.incrementCommentCount(postId, 1);
+            forumFeedCache.adjustCounts(postId, 0, 1);
+            forumTrendingIndex.onComment(postId, true, savedComment.getCreatedAt());
+            return mapToCommentDTO(savedComment);
+        });
     }
 
-    @Transactional
+    // Update Comment (kiểm tra quyền trước, upload ngoài transaction, rồi ghi trong transaction ngắn)
     public ForumDTO.CommentResponse updateComment(String userId, String commentId, ForumDTO.UpdateCommentRequest request) {
 
-        Comment comment = commentRepository.findById(commentId)
+        Comment existing = commentRepository.findById(commentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy bình luận"));
 
-        if (comment.getUser() == null || !comment.getUser().getId().equals(userId)) {
+        if (existing.getUser() == null || !existing.getUser().getId().equals(userId)) {
             throw new AccessDeniedException("Bạn không có quyền chỉnh sửa bình luận này");
         }
 
@@ -231,27 +419,52 @@ public class ForumService {
         validateFileSize(request.getImageFile(), MAX_IMAGE_SIZE, "ảnh");
         validateFileSize(request.getVideoFile(), MAX_VIDEO_SIZE, "video");
 
-        if (request.getContent() != null) {
-            comment.setContent(request.getContent());
-        }
+        // 2. Upload ảnh/video mới (nếu có) song song
+        FileUploadService.UploadedMedia media = uploadMedia(request.getImageFile(), request.getVideoFile(),
+                "Lỗi cập nhật media comment: ");
 
-        try {
-            // 2. Cập nhật Ảnh (nếu có gửi file mới)
-            if (request.getImageFile() != null && !request.getImageFile().isEmpty()) {
-                comment.setImageUrl(fileUploadService.uploadFile(request.getImageFile()));
-            }
+        // 3. Lưu và trả về DTO (đã bao gồm videoUrl trong mapper); lỗi -> xóa file mới, thành công -> xóa file cũ
+        List<String> replacedUrls = new ArrayList<>();
+        ForumDTO.CommentResponse response = inTransactionOrDeleteMedia(media, () -> {
+            Comment comment = commentRepository.findById(commentId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy bình luận"));
 
-            // 3. Cập nhật Video (nếu có gửi file mới)
-            if (request.getVideoFile() != null && !request.getVideoFile().isEmpty()) {
-                comment.setVideoUrl(fileUploadService.uploadFile(request.getVideoFile()));
+            if (request.getContent() != null) {
+                comment.setContent(request.getContent());
+            }
+            if (media.imageUrl() != null) {
+                replacedUrls.add(comment.getImageUrl());
+                comment.setImageUrl(media.imageUrl());
             }
-        } catch (Exception e) {
-            throw new RuntimeException("Lỗi cập nhật media comment: " + e.getMessage());
+            if (media.videoUrl() != null) {
+                replacedUrls.add(comment.getVideoUrl());
+                comment.setVideoUrl(media.videoUrl());
+            }
+            Comment savedComment = commentRepository.save(comment);
+            forumSearchIndex.indexComment(commentId, savedComment.getPost().getId(), savedComment.getContent());
+            return mapToCommentDTO(savedComment);
+        });
+        fileUploadService.deleteUrls(replacedUrls.toArray(String[]::new));
+        return response;
+    }
+
+    // Helper: Upload ảnh + video song song (trước khi mở transaction), lỗi -> BadRequest
+    private FileUploadService.UploadedMedia uploadMedia(MultipartFile imageFile, MultipartFile videoFile, String errorPrefix) {
+        try {
+            return fileUploadService.uploadMediaParallel(imageFile, videoFile);
+        } catch (IOException e) {
+            throw new BadRequestException(errorPrefix + e.getMessage());
         }
+    }
 
-        // 4. Lưu và trả về DTO (đã bao gồm videoUrl trong mapper)
-        Comment savedComment = commentRepository.save(comment);
-        return mapToCommentDTO(savedComment);
+    // Helper: Ghi DB trong transaction ngắn; lỗi (kể cả lúc commit) -> xóa file vừa upload để không mồ côi trên Cloudinary
+    private <T> T inTransactionOrDeleteMedia(FileUploadService.UploadedMedia media, Supplier<T> work) {
+        try {
+            return transactionTemplate.execute(status -> work.get());
+        } catch (RuntimeException e) {
+            fileUploadService.deleteMedia(media);
+            throw e;
+        }
     }
 
     // 10.8 Delete Comment
@@ -264,11 +477,12 @@ public class ForumService {
             throw new ForbiddenException("You are not authorized to delete this comment");
         }
         
-        Post post = comment.getPost();
+        String postId = comment.getPost().getId();
         commentRepository.delete(comment);
-        
-        post.setCommentCount(Math.max(0, post.getCommentCount() - 1));
-        postRepository.save(post);
+        forumSearchIndex.removeComment(commentId);
+        postRepository.incrementCommentCount(postId, -1);
+        forumFeedCache.adjustCounts(postId, 0, -1);
+        forumTrendingIndex.onComment(postId, false, commentedAt(comment));
     }
 
     // 11.3 ADMIN: Delete Comment
@@ -277,11 +491,30 @@ public class ForumService {
         Comment comment = commentRepository.findById(commentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Comment not found"));
 
-        Post post = comment.getPost();
+        String postId = comment.getPost().getId();
         commentRepository.delete(comment);
+        forumSearchIndex.removeComment(commentId);
+        postRepository.incrementCommentCount(postId, -1);
+        forumFeedCache.adjustCounts(postId, 0, -1);
+        forumTrendingIndex.onComment(postId, false, commentedAt(comment));
+    }
 
-        post.setCommentCount(Math.max(0, post.getCommentCount() - 1));
-        postRepository.save(post);
+    // Helper: Thời điểm tạo comment để trừ đúng phần điểm trending đã cộng (comment cũ thiếu created_at: lúc đăng bài)
+    private static LocalDateTime commentedAt(Comment comment) {
+        return comment.getCreatedAt() != null ? comment.getCreatedAt() : comment.getPost().getCreatedAt();
+    }
+
+    // Helper: Gắn like/comment count đọc lại từ DB (like/comment đồng thời có thể đã cộng sau lúc nạp entity)
+    private ForumDTO.PostResponse withCurrentCounters(ForumDTO.PostResponse dto) {
+        List<Object[]> rows = postRepository.findCountersById(dto.getPostId());
+        if (rows.isEmpty()) {
+            return dto;
+        }
+        Object[] counters = rows.get(0);
+        return dto.toBuilder()
+                .likeCount(((Number) counters[0]).intValue())
+                .commentCount(((Number) counters[1]).intValue())
+                .build();
     }
 
     // Mappers
@@ -0,0 +1,258 @@
+package com.nutrimate.service;
+
+import com.nutrimate.repository.PostRepository;
+import com.nutrimate.util.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Điểm "trending" của bài viết = Σ trọng số sự kiện (đăng bài, like, comment) giảm dần theo thời gian.
+ *
+ * Dùng "forward decay": mỗi sự kiện ở thời điểm t đóng góp w * 2^(t / halfLife), lưu ở dạng log2.
+ * Vì mọi bài cùng bị chia cho 2^(now / halfLife) khi so sánh, thứ hạng không đổi theo thời gian
+ * -> không bao giờ phải tính lại điểm, mỗi sự kiện chỉ cộng thêm 1 lần (O(log K)).
+ *
+ * Giữ top-K trong bộ nhớ (TreeSet), checkpoint điểm xuống cột Posts.trending_score định kỳ,
+ * nạp lại lúc khởi động.
+ */
+@Component
+@Slf4j
+public class ForumTrendingIndex {
+
+    public static final int TOP_K = 200;
+
+    private static final double POST_WEIGHT = 3.0;
+    private static final double LIKE_WEIGHT = 1.0;
+    private static final double COMMENT_WEIGHT = 2.0;
+    private static final int LOAD_CHUNK_SIZE = 1000;
+
+    private final PostRepository postRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final double halfLifeSeconds;
+
+    private final Map<String, Double> scores = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    // Bài đã xóa / bị ẩn: bỏ qua sự kiện đến muộn (like, comment đã commit ngay sau lúc xóa) để không tạo lại điểm.
+    // Giữ 2 thế hệ, mỗi checkpoint bỏ thế hệ cũ -> mỗi bài chỉ nằm ở đây 1-2 chu kỳ checkpoint, không phình mãi
+    private volatile Set<String> removed = ConcurrentHashMap.newKeySet();
+    private volatile Set<String> removedBefore = ConcurrentHashMap.newKeySet();
+    private final TreeSet<Ranked> topK = new TreeSet<>(
+            Comparator.comparingDouble(Ranked::score).reversed().thenComparing(Ranked::postId));
+    private final Map<String, Ranked> topKByPost = new ConcurrentHashMap<>();
+
+    public ForumTrendingIndex(PostRepository postRepository,
+                              JdbcTemplate jdbcTemplate,
+                              @Value("${app.forum.trending.half-life-hours:24}") double halfLifeHours) {
+        this.postRepository = postRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.halfLifeSeconds = halfLifeHours * 3600;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        String afterId = "";
+        int loaded = 0;
+        while (true) {
+            List<Object[]> rows = postRepository.findTrendingRowsAfter(afterId, ForumService.HIDDEN_CONTENT,
+                    PageRequest.of(0, LOAD_CHUNK_SIZE));
+            if (rows.isEmpty()) break;
+            for (Object[] row : rows) {
+                String postId = (String) row[0];
+                Double stored = (Double) row[1];
+                if (stored == null) {
+                    // Bài chưa có điểm (trước khi có tính năng): ước lượng từ số like/comment hiện có tại thời điểm đăng
+                    LocalDateTime createdAt = (LocalDateTime) row[2];
+                    double weight = POST_WEIGHT
+                            + LIKE_WEIGHT * nz((Integer) row[3])
+                            + COMMENT_WEIGHT * nz((Integer) row[4]);
+                    stored = logContribution(weight, createdAt != null ? createdAt : LocalDateTime.now());
+                    dirty.add(postId);
+                }
+                scores.put(postId, stored);
+            }
+            loaded += rows.size();
+            afterId = (String) rows.get(rows.size() - 1)[0];
+        }
+        rebuildTopK();
+        log.info("ForumTrendingIndex: đã nạp điểm trending của {} bài viết", loaded);
+    }
+
+    /** Top-K postId theo điểm trending giảm dần (bản copy, O(K)). */
+    public List<String> topPostIds(int offset, int limit) {
+        List<String> ids = new ArrayList<>(limit);
+        synchronized (topK) {
+            int i = 0;
+            for (Ranked r : topK) {
+                if (i++ < offset) continue;
+                if (ids.size() >= limit) break;
+                ids.add(r.postId());
+            }
+        }
+        return ids;
+    }
+
+    public int size() {
+        synchronized (topK) {
+            return topK.size();
+        }
+    }
+
+    // --- Sự kiện (áp dụng sau commit) ---
+
+    public void onPostCreated(String postId, LocalDateTime createdAt) {
+        AfterCommit.run(() -> addEvent(postId, POST_WEIGHT, createdAt != null ? createdAt : LocalDateTime.now()));
+    }
+
+    // likedAt: thời điểm của like; khi bỏ like phải truyền thời điểm like gốc để trừ đúng phần đã cộng
+    public void onLike(String postId, boolean liked, LocalDateTime likedAt) {
+        AfterCommit.run(() -> addEvent(postId, liked ? LIKE_WEIGHT : -LIKE_WEIGHT, orNow(likedAt)));
+    }
+
+    // commentedAt: thời điểm tạo comment (kể cả khi xóa comment)
+    public void onComment(String postId, boolean added, LocalDateTime commentedAt) {
+        AfterCommit.run(() -> addEvent(postId, added ? COMMENT_WEIGHT : -COMMENT_WEIGHT, orNow(commentedAt)));
+    }
+
+    public void remove(String postId) {
+        AfterCommit.run(() -> {
+            removed.add(postId);
+            scores.remove(postId);
+            dirty.remove(postId);
+            synchronized (topK) {
+                Ranked old = topKByPost.remove(postId);
+                if (old != null) topK.remove(old);
+            }
+        });
+    }
+
+    // Checkpoint điểm đã thay đổi xuống DB (batch JDBC), dựng lại top-K từ toàn bộ điểm cho chính xác,
+    // rồi bỏ thế hệ "đã xóa" cũ (sự kiện muộn của các bài đó đã qua từ lâu)
+    @Scheduled(fixedDelayString = "${app.forum.trending.checkpoint-ms:300000}",
+            initialDelayString = "${app.forum.trending.checkpoint-ms:300000}")
+    public void checkpoint() {
+        if (!dirty.isEmpty()) {
+            List<Object[]> batch = new ArrayList<>();
+            for (String postId : new ArrayList<>(dirty)) {
+                dirty.remove(postId);
+                Double score = scores.get(postId);
+                if (score != null) {
+                    batch.add(new Object[]{score, postId});
+                }
+            }
+            jdbcTemplate.batchUpdate("UPDATE Posts SET trending_score = ? WHERE post_id = ?", batch);
+            log.info("ForumTrendingIndex: checkpoint {} điểm trending", batch.size());
+        }
+        rebuildTopK();
+        removedBefore = removed;
+        removed = ConcurrentHashMap.newKeySet();
+    }
+
+    /** Điểm trending hiện tại (log2, forward decay) của bài, null nếu không có. */
+    Double score(String postId) {
+        return scores.get(postId);
+    }
+
+    private void addEvent(String postId, double weight, LocalDateTime at) {
+        double contribution = logContribution(Math.abs(weight), at);
+        Double updated = scores.compute(postId, (id, current) -> {
+            if (isRemoved(id)) {
+                return null;
+            }
+            if (current == null) {
+                return weight > 0 ? contribution : null;
+            }
+            return weight > 0 ? logAdd(current, contribution) : logSubtract(current, contribution);
+        });
+        if (updated == null) return;
+        dirty.add(postId);
+        offer(postId);
+    }
+
+    private boolean isRemoved(String postId) {
+        return removed.contains(postId) || removedBefore.contains(postId);
+    }
+
+    // Đọc điểm mới nhất ngay trong lock: 2 sự kiện cùng bài vào lock ngược thứ tự vẫn không để lại điểm cũ
+    private void offer(String postId) {
+        synchronized (topK) {
+            Ranked old = topKByPost.remove(postId);
+            if (old != null) topK.remove(old);
+            Double score = scores.get(postId);
+            if (score == null) return; // bài đã bị xóa / ẩn
+            if (topK.size() < TOP_K || score > topK.last().score()) {
+                Ranked entry = new Ranked(postId, score);
+                topK.add(entry);
+                topKByPost.put(postId, entry);
+                if (topK.size() > TOP_K) {
+                    Ranked evicted = topK.pollLast();
+                    topKByPost.remove(evicted.postId());
+                }
+            }
+        }
+    }
+
+    // Dựng lại trong lock: offer() đồng thời phải chờ, nên không bị bản dựng lại (quét điểm trước đó) ghi đè mất
+    private void rebuildTopK() {
+        synchronized (topK) {
+            topK.clear();
+            topKByPost.clear();
+            scores.forEach((postId, score) -> {
+                if (topK.size() < TOP_K || score > topK.last().score()) {
+                    Ranked entry = new Ranked(postId, score);
+                    topK.add(entry);
+                    topKByPost.put(postId, entry);
+                    if (topK.size() > TOP_K) {
+                        topKByPost.remove(topK.pollLast().postId());
+                    }
+                }
+            });
+        }
+    }
+
+    private double logContribution(double weight, LocalDateTime at) {
+        return log2(weight) + at.toEpochSecond(ZoneOffset.UTC) / halfLifeSeconds;
+    }
+
+    // log2(2^a + 2^b)
+    private static double logAdd(double a, double b) {
+        double max = Math.max(a, b);
+        return max + log2(1 + Math.pow(2, Math.min(a, b) - max));
+    }
+
+    // log2(2^a - 2^b); nếu kết quả <= 0 thì giữ mức rất thấp thay vì âm vô cực
+    private static double logSubtract(double a, double b) {
+        if (b >= a) return a - 64;
+        return a + log2(1 - Math.pow(2, b - a));
+    }
+
+    private static double log2(double x) {
+        return Math.log(x) / Math.log(2);
+    }
+
+    private static LocalDateTime orNow(LocalDateTime at) {
+        return at != null ? at : LocalDateTime.now();
+    }
+
+    private static int nz(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private record Ranked(String postId, double score) {
+    }
+}
@@ -0,0 +1,70 @@
+package com.nutrimate.service;
+
+import com.nutrimate.entity.Booking;
+import com.nutrimate.entity.Booking.BookingStatus;
+import com.nutrimate.entity.UserSubscription;
+import com.nutrimate.repository.UserSubscriptionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bộ đếm lượt free session của gói (User_Subscriptions.free_sessions_used).
+ * Một lượt thuộc chu kỳ nếu booking_time nằm trong [startDate, endDate] của gói - giống cách đếm COUNT trước đây.
+ * Giữ / trả lượt bằng UPDATE nguyên tử trong transaction của nghiệp vụ; job đối soát đếm lại từ Bookings.
+ */
+@Component
+@RequiredArgsConstructor
+public class FreeSessionCounter {
+
+    // Trạng thái booking free vẫn tính là đã dùng lượt
+    private static final Set<BookingStatus> COUNTED_STATUSES =
+            EnumSet.of(BookingStatus.PENDING, BookingStatus.CONFIRMED, BookingStatus.COMPLETED, BookingStatus.DONE);
+
+    private final UserSubscriptionRepository subscriptionRepository;
+
+    public static int used(UserSubscription sub) {
+        return sub.getFreeSessionsUsed() != null ? sub.getFreeSessionsUsed() : 0;
+    }
+
+    public static boolean inCycle(UserSubscription sub, LocalDateTime bookingTime) {
+        return bookingTime != null
+                && !bookingTime.isBefore(sub.getStartDate())
+                && !bookingTime.isAfter(sub.getEndDate());
+    }
+
+    /** Giữ 1 lượt nếu còn (nguyên tử). false nếu đã hết lượt hoặc giờ hẹn nằm ngoài chu kỳ gói. */
+    public boolean claim(UserSubscription sub, int limit, LocalDateTime bookingTime) {
+        if (!inCycle(sub, bookingTime)) {
+            return false;
+        }
+        return subscriptionRepository.claimFreeSession(sub.getId(), limit) == 1;
+    }
+
+    // Booking free rời khỏi nhóm trạng thái được tính (hủy / từ chối / hết hạn) -> trả lượt cho gói đang hiệu lực
+    public void onBookingStatusChanged(Booking booking, BookingStatus oldStatus) {
+        if (!Boolean.TRUE.equals(booking.getIsFreeSession()) || booking.getMember() == null
+                || oldStatus == null || !COUNTED_STATUSES.contains(oldStatus)
+                || COUNTED_STATUSES.contains(booking.getStatus())) {
+            return;
+        }
+        release(booking.getMember().getId(), booking.getBookingTime());
+    }
+
+    // Trả 1 lượt cho gói đang hiệu lực của member nếu giờ hẹn thuộc chu kỳ gói đó
+    public void release(String memberId, LocalDateTime bookingTime) {
+        subscriptionRepository.findFirstByUser_IdAndStatusAndEndDateAfterOrderByEndDateDesc(
+                        memberId, UserSubscription.SubscriptionStatus.Active, LocalDateTime.now())
+                .filter(sub -> inCycle(sub, bookingTime))
+                .ifPresent(sub -> subscriptionRepository.releaseFreeSession(sub.getId()));
+    }
+
+    // Chu kỳ gói thay đổi (đổi gói / đổi ngày bắt đầu): đếm lại ngay cho gói đó
+    public void recount(String subscriptionId) {
+        subscriptionRepository.reconcileFreeSessions(List.of(subscriptionId));
+    }
+}
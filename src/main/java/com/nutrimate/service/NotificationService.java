@@ -6,17 +6,22 @@ import com.nutrimate.entity.User;
 import com.nutrimate.exception.ResourceNotFoundException;
 import com.nutrimate.repository.NotificationRepository;
 import com.nutrimate.repository.UserRepository;
+import com.nutrimate.util.AfterCommit;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -27,6 +32,11 @@ public class NotificationService {
     private final UserRepository userRepository;
     private final SimpMessagingTemplate messagingTemplate;
     private final EmailService emailService;
+    private final JdbcTemplate jdbcTemplate;
+
+    /** 1 thông báo trong lô gửi hàng loạt (userId phải là user đang tồn tại). */
+    public record BatchNotification(String userId, String title, String message, NotificationType type) {
+    }
 
     @Transactional
     public Notification createAndPush(String userId, String title, String message, NotificationType type) {
@@ -63,6 +73,47 @@ public class NotificationService {
         return saved;
     }
 
+    /**
+     * Lưu nhiều notification bằng 1 batch JDBC (không findById từng user, không qua persistence context)
+     * và chỉ bắn WebSocket sau khi transaction commit.
+     */
+    @Transactional
+    public int createAndPushAll(List<BatchNotification> notifications) {
+        if (notifications.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>(notifications.size());
+        List<Map<String, Object>> payloads = new ArrayList<>(notifications.size());
+        for (BatchNotification n : notifications) {
+            String id = UUID.randomUUID().toString();
+            rows.add(new Object[]{id, n.userId(), n.title(), n.message(), n.type().name(), false, now});
+
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("id", id);
+            payload.put("title", n.title());
+            payload.put("message", n.message());
+            payload.put("type", n.type().name());
+            payload.put("isRead", false);
+            payload.put("createdAt", now);
+            payloads.add(payload);
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO Notifications (id, user_id, title, message, type, is_read, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+
+        AfterCommit.run(() -> {
+            for (int i = 0; i < notifications.size(); i++) {
+                String userId = notifications.get(i).userId();
+                try {
+                    messagingTemplate.convertAndSend("/queue/notifications/" + userId, (Object) payloads.get(i));
+                } catch (Exception e) {
+                    log.warn("Failed to push WebSocket notification to user {}: {}", userId, e.getMessage());
+                }
+            }
+        });
+        return notifications.size();
+    }
+
     /**
      * Gửi nhắc nhở thử thách cho user: lưu Notification, bắn WebSocket và gửi Email HTML bất đồng bộ.
      */
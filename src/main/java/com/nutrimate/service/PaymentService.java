@@ -44,6 +44,10 @@ public class PaymentService {
     private final SubscriptionPlanRepository subscriptionPlanRepository;
     private final UserSubscriptionRepository userSubscriptionRepository;
     private final PaymentRepository paymentRepository;
+    private final DashboardStatsSnapshot dashboardStatsSnapshot;
+    private final RevenueRollupService revenueRollupService;
+    private final FreeSessionCounter freeSessionCounter;
+    private final BookingCleanupService bookingCleanupService;
 
     /**
      * Tạo orderCode duy nhất (timestamp ms + nano suffix).
@@ -156,8 +160,17 @@ public class PaymentService {
         if (bookingOpt.isPresent()) {
             Booking booking = bookingOpt.get();
             if (booking.getStatus() == BookingStatus.PENDING) {
+                // UPDATE có điều kiện: nếu job hết hạn vừa hủy booking thì không "hồi sinh" nó
+                // (slot có thể đã có người khác đặt)
+                if (bookingRepository.confirmPendingById(booking.getId()) == 0) {
+                    log.warn("Booking {} (orderCode={}) đã bị hủy do quá hạn trước khi nhận thanh toán - cần xử lý hoàn tiền thủ công",
+                            booking.getId(), orderCode);
+                    return;
+                }
                 booking.setStatus(BookingStatus.CONFIRMED);
-                bookingRepository.save(booking);
+                dashboardStatsSnapshot.onBookingStatusChanged(booking, BookingStatus.PENDING);
+                revenueRollupService.onBookingStatusChanged(booking, BookingStatus.PENDING);
+                bookingCleanupService.cancelExpiry(booking.getId());
                 log.info("Đã cập nhật Booking {} sang trạng thái CONFIRMED từ PayOS webhook", booking.getId());
             }
             return;
@@ -182,6 +195,8 @@ public class PaymentService {
                                 now);
 
                 UserSubscription sub;
+                DashboardStatsSnapshot.Contribution before = DashboardStatsSnapshot.contributionOf(activeOpt.orElse(null));
+                RevenueRollupService.DailyAmount revenueBefore = RevenueRollupService.amountOf(activeOpt.orElse(null));
 
                 if (activeOpt.isEmpty() || isFreePlan(activeOpt.get().getPlan())) {
                     // Chưa có gói trả phí hoặc đang dùng Free -> dùng/thay thế 1 record
@@ -216,6 +231,10 @@ public class PaymentService {
                 }
                 sub.setOrderCode(orderCode);
                 UserSubscription savedSub = userSubscriptionRepository.save(sub);
+                dashboardStatsSnapshot.onSubscriptionChanged(before, DashboardStatsSnapshot.contributionOf(savedSub));
+                revenueRollupService.onSubscriptionChanged(revenueBefore, savedSub);
+                // Chu kỳ gói có thể đã đổi (gói mới / gia hạn) -> đếm lại lượt free đã dùng trong chu kỳ mới
+                freeSessionCounter.recount(savedSub.getId());
 
                 Payment payment = new Payment();
                 payment.setUser(user);
@@ -0,0 +1,264 @@
+package com.nutrimate.service;
+
+import com.nutrimate.entity.Recipe;
+import com.nutrimate.repository.RecipeRepository;
+import com.nutrimate.util.AfterCommit;
+import com.nutrimate.util.InvertedIndex;
+import com.nutrimate.util.TextNormalizer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Index tìm kiếm công thức (tiêu đề + mô tả, không phân biệt dấu: gõ "bun bo" vẫn ra "Bún bò").
+ * - Trigram trên text đã bỏ dấu: tìm chuỗi con như LIKE '%kw%' cũ nhưng không quét bảng.
+ * - Inverted index theo từ (InvertedIndex): xếp hạng liên quan, tiêu đề x2, mô tả x1.
+ * - Build lại từ DB lúc khởi động (quét theo chunk) vào index mới, xong mới thay thế; cập nhật từng recipe sau khi commit tạo/sửa/xóa.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RecipeSearchIndex {
+
+    public enum MatchMode {
+        ALL_TERMS, // Khớp cả cụm hoặc đủ mọi từ (tìm kiếm /api/recipes)
+        ANY_TERM   // Khớp ít nhất 1 từ (lấy ngữ cảnh cho AI Coach)
+    }
+
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+    private static final double TITLE_WEIGHT = 2.0;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+    // Cộng thêm khi cả cụm từ khóa xuất hiện nguyên văn (ưu tiên tiêu đề)
+    private static final double TITLE_PHRASE_BONUS = 10.0;
+    private static final double DESCRIPTION_PHRASE_BONUS = 5.0;
+
+    private final RecipeRepository recipeRepository;
+
+    // Index hiện hành; rebuild dựng bản mới bên cạnh rồi thay thế nguyên khối (search không thấy index rỗng / dở dang)
+    private volatile State state = new State();
+    private final Object rebuildLock = new Object();
+    // Các thay đổi áp dụng trong lúc rebuild đang quét DB (null = không có rebuild), phát lại lên index mới trước khi swap
+    private List<Consumer<State>> appliedDuringRebuild;
+
+    private record Doc(String title, String description, Integer calories) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                appliedDuringRebuild = new ArrayList<>();
+            }
+            try {
+                long start = System.currentTimeMillis();
+                State fresh = new State();
+                String afterId = "";
+                int recipes = 0;
+                while (true) {
+                    List<Object[]> rows = recipeRepository.findSearchRowsAfter(afterId, PageRequest.of(0, REBUILD_CHUNK_SIZE));
+                    if (rows.isEmpty()) break;
+                    for (Object[] row : rows) {
+                        fresh.index((String) row[0], (String) row[1], (String) row[2], (Integer) row[3]);
+                    }
+                    recipes += rows.size();
+                    afterId = (String) rows.get(rows.size() - 1)[0];
+                }
+                synchronized (this) {
+                    // Thay đổi commit trong lúc quét mới hơn (hoặc bằng) dữ liệu vừa đọc -> phát lại theo đúng thứ tự
+                    appliedDuringRebuild.forEach(change -> change.accept(fresh));
+                    state = fresh;
+                }
+                log.info("RecipeSearchIndex: đã index {} công thức trong {} ms", recipes, System.currentTimeMillis() - start);
+            } finally {
+                synchronized (this) {
+                    appliedDuringRebuild = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Trả về recipeId theo thứ tự liên quan giảm dần, đã lọc theo khoảng calories [minCal, maxCal].
+     * Recipe thiếu calories bị loại khi có truyền khoảng calories (giống điều kiện SQL cũ).
+     */
+    public List<String> search(String keyword, Integer minCal, Integer maxCal, MatchMode mode) {
+        String phrase = normalizePhrase(keyword);
+        if (phrase.isEmpty()) {
+            return List.of();
+        }
+        State current = state;
+        Map<String, Double> scores = current.wordIndex().score(phrase);
+        int termCount = new LinkedHashSet<>(TextNormalizer.tokenize(phrase)).size();
+
+        Map<String, Double> ranked = new HashMap<>();
+        current.lock().readLock().lock();
+        try {
+            for (String id : current.phraseCandidates(phrase)) {
+                Doc doc = current.docs().get(id);
+                if (doc == null || !inCalorieRange(doc, minCal, maxCal)) continue;
+                double bonus = doc.title().contains(phrase) ? TITLE_PHRASE_BONUS
+                        : doc.description().contains(phrase) ? DESCRIPTION_PHRASE_BONUS : 0;
+                if (bonus > 0) {
+                    ranked.put(id, bonus + scores.getOrDefault(id, 0.0));
+                }
+            }
+            for (Map.Entry<String, Double> entry : scores.entrySet()) {
+                String id = entry.getKey();
+                Doc doc = current.docs().get(id);
+                if (ranked.containsKey(id) || doc == null || !inCalorieRange(doc, minCal, maxCal)) continue;
+                if (mode == MatchMode.ANY_TERM || matchesAllTerms(doc, phrase, termCount)) {
+                    ranked.put(id, entry.getValue());
+                }
+            }
+        } finally {
+            current.lock().readLock().unlock();
+        }
+
+        List<Map.Entry<String, Double>> entries = new ArrayList<>(ranked.entrySet());
+        entries.sort(Map.Entry.<String, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        return entries.stream().map(Map.Entry::getKey).toList();
+    }
+
+    // --- Cập nhật từng phần (chạy sau commit) ---
+
+    public void indexRecipe(Recipe recipe) {
+        String id = recipe.getId();
+        String title = recipe.getTitle();
+        String description = recipe.getDescription();
+        Integer calories = recipe.getCalories();
+        AfterCommit.run(() -> apply(target -> target.index(id, title, description, calories)));
+    }
+
+    public void removeRecipe(String recipeId) {
+        AfterCommit.run(() -> apply(target -> target.remove(recipeId)));
+    }
+
+    private synchronized void apply(Consumer<State> change) {
+        if (appliedDuringRebuild != null) {
+            appliedDuringRebuild.add(change);
+        }
+        change.accept(state);
+    }
+
+    private static boolean matchesAllTerms(Doc doc, String phrase, int termCount) {
+        Set<String> words = new HashSet<>(TextNormalizer.tokenize(doc.title()));
+        words.addAll(TextNormalizer.tokenize(doc.description()));
+        return termCount > 0 && words.containsAll(TextNormalizer.tokenize(phrase));
+    }
+
+    private static boolean inCalorieRange(Doc doc, Integer minCal, Integer maxCal) {
+        if (minCal == null && maxCal == null) return true;
+        if (doc.calories() == null) return false;
+        return (minCal == null || doc.calories() >= minCal) && (maxCal == null || doc.calories() <= maxCal);
+    }
+
+    private static Set<String> trigrams(Doc doc) {
+        Set<String> result = trigramsOf(doc.title());
+        result.addAll(trigramsOf(doc.description()));
+        return result;
+    }
+
+    private static Set<String> trigramsOf(String text) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            result.add(text.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    // Bỏ dấu + chữ thường + gộp khoảng trắng để so khớp chuỗi con
+    private static String normalizePhrase(String text) {
+        return TextNormalizer.fold(text).trim().replaceAll("\\s+", " ");
+    }
+
+    private static String titleKey(String recipeId) {
+        return "T:" + recipeId;
+    }
+
+    private static String descriptionKey(String recipeId) {
+        return "D:" + recipeId;
+    }
+
+    private record State(InvertedIndex<String> wordIndex, Map<String, Doc> docs,
+                         Map<String, Set<String>> trigramPostings, ReadWriteLock lock) {
+
+        State() {
+            this(new InvertedIndex<>(), new HashMap<>(), new HashMap<>(), new ReentrantReadWriteLock());
+        }
+
+        void index(String id, String title, String description, Integer calories) {
+            Doc doc = new Doc(normalizePhrase(title), normalizePhrase(description), calories);
+            lock.writeLock().lock();
+            try {
+                removeLocked(id);
+                docs.put(id, doc);
+                for (String trigram : trigrams(doc)) {
+                    trigramPostings.computeIfAbsent(trigram, t -> new HashSet<>()).add(id);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            wordIndex.put(titleKey(id), id, title, TITLE_WEIGHT);
+            wordIndex.put(descriptionKey(id), id, description, DESCRIPTION_WEIGHT);
+        }
+
+        void remove(String id) {
+            lock.writeLock().lock();
+            try {
+                removeLocked(id);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            wordIndex.removeDocument(id);
+        }
+
+        private void removeLocked(String id) {
+            Doc old = docs.remove(id);
+            if (old == null) return;
+            for (String trigram : trigrams(old)) {
+                Set<String> ids = trigramPostings.get(trigram);
+                if (ids == null) continue;
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    trigramPostings.remove(trigram);
+                }
+            }
+        }
+
+        // Recipe có thể chứa nguyên cụm: giao các tập trigram của cụm (cụm < 3 ký tự thì xét mọi recipe)
+        Collection<String> phraseCandidates(String phrase) {
+            if (phrase.length() < 3) {
+                return docs.keySet();
+            }
+            Set<String> result = null;
+            for (String trigram : trigramsOf(phrase)) {
+                Set<String> ids = trigramPostings.get(trigram);
+                if (ids == null) {
+                    return List.of();
+                }
+                if (result == null) {
+                    result = new HashSet<>(ids);
+                } else {
+                    result.retainAll(ids);
+                }
+                if (result.isEmpty()) break;
+            }
+            return result != null ? result : List.of();
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.nutrimate.exception.ResourceNotFoundException;
 import com.nutrimate.repository.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,7 +15,12 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -24,10 +30,29 @@ public class RecipeService {
     private final UserSubscriptionRepository userSubscriptionRepository;
     private final UserBenefitUsageRepository benefitUsageRepository;
     private final FileUploadService fileUploadService;
+    private final RecipeSearchIndex recipeSearchIndex;
+
+    // 1. Tìm kiếm
+    // Có từ khóa: lấy id từ index in-memory (không phân biệt dấu, xếp theo độ liên quan), chỉ nạp recipe của trang cần trả.
+    // Không có từ khóa: lọc calories + sort như cũ trên DB.
+    public Page<Recipe> getRecipes(String keyword, Integer minCal, Integer maxCal, Pageable pageable) {
+        if (keyword == null || keyword.isBlank()) {
+            return recipeRepository.findByCaloriesRange(minCal, maxCal, pageable);
+        }
+        List<String> ids = recipeSearchIndex.search(keyword, minCal, maxCal, RecipeSearchIndex.MatchMode.ALL_TERMS);
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        int to = Math.min(from + pageable.getPageSize(), ids.size());
+        return new PageImpl<>(getRecipesInOrder(ids.subList(from, to)), pageable, ids.size());
+    }
 
-    // 1. Tìm kiếm (Giữ nguyên)
-    public Page<Recipe> getRecipes(String keyword, Integer maxCal, Pageable pageable) {
-        return recipeRepository.searchRecipes(keyword, maxCal, pageable);
+    // Nạp recipe theo danh sách id (1 query), giữ đúng thứ tự id truyền vào
+    public List<Recipe> getRecipesInOrder(List<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Recipe> byId = recipeRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Recipe::getId, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
     }
 
     // 👇 HÀM 1: Lấy Recipe thuần túy (Dùng cho Admin Update/Delete hoặc Internal)
@@ -109,7 +134,9 @@ public class RecipeService {
             recipe.setImageUrl(dto.getImageUrl().trim());
         }
         
-        return recipeRepository.save(recipe);
+        Recipe saved = recipeRepository.save(recipe);
+        recipeSearchIndex.indexRecipe(saved);
+        return saved;
     }
 
     // 👇 SỬA HÀM UPDATE: Thêm tham số MultipartFile
@@ -132,7 +159,9 @@ public class RecipeService {
         }
         // Nếu file null thì giữ nguyên ảnh cũ
 
-        return recipeRepository.save(recipe);
+        Recipe saved = recipeRepository.save(recipe);
+        recipeSearchIndex.indexRecipe(saved);
+        return saved;
     }
 
     @Transactional
@@ -141,6 +170,7 @@ public class RecipeService {
             throw new ResourceNotFoundException("Recipe not found to delete");
         }
         recipeRepository.deleteById(id);
+        recipeSearchIndex.removeRecipe(id);
     }
 
     // Helper Map
@@ -0,0 +1,109 @@
+package com.nutrimate.service;
+
+import com.nutrimate.entity.Booking;
+import com.nutrimate.entity.Booking.BookingStatus;
+import com.nutrimate.entity.RevenueDaily;
+import com.nutrimate.entity.UserSubscription;
+import com.nutrimate.entity.UserSubscription.SubscriptionStatus;
+import com.nutrimate.repository.RevenueDailyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Ghi doanh thu vào bảng Revenue_Daily ngay trong transaction của nghiệp vụ (webhook, đổi trạng thái booking).
+ * Quy tắc giữ nguyên như các câu biểu đồ cũ:
+ * - Booking: final_price của đơn CONFIRMED/COMPLETED, tính vào ngày booking_time.
+ * - Subscription: giá gói của subscription ACTIVE, tính vào ngày start_date.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RevenueRollupService {
+
+    private static final Set<BookingStatus> REVENUE_BOOKING_STATUSES =
+            EnumSet.of(BookingStatus.CONFIRMED, BookingStatus.COMPLETED);
+
+    private final RevenueDailyRepository revenueDailyRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /** Doanh thu của 1 bản ghi trong bucket ngày (date = null nghĩa là không đóng góp). */
+    public record DailyAmount(LocalDate date, BigDecimal amount) {
+        public static final DailyAmount NONE = new DailyAmount(null, BigDecimal.ZERO);
+    }
+
+    public static DailyAmount amountOf(Booking booking, BookingStatus status) {
+        if (status == null || !REVENUE_BOOKING_STATUSES.contains(status)
+                || booking.getBookingTime() == null || booking.getFinalPrice() == null) {
+            return DailyAmount.NONE;
+        }
+        return new DailyAmount(booking.getBookingTime().toLocalDate(), booking.getFinalPrice());
+    }
+
+    public static DailyAmount amountOf(UserSubscription sub) {
+        if (sub == null || sub.getStatus() != SubscriptionStatus.Active || sub.getStartDate() == null
+                || sub.getPlan() == null || sub.getPlan().getPrice() == null) {
+            return DailyAmount.NONE;
+        }
+        return new DailyAmount(sub.getStartDate().toLocalDate(), sub.getPlan().getPrice());
+    }
+
+    // Booking đổi trạng thái (oldStatus = null khi vừa tạo mới)
+    public void onBookingStatusChanged(Booking booking, BookingStatus oldStatus) {
+        apply(RevenueDaily.Source.BOOKING, amountOf(booking, oldStatus), amountOf(booking, booking.getStatus()));
+    }
+
+    // Subscription thay đổi (kích hoạt / đổi gói / đổi ngày bắt đầu)
+    public void onSubscriptionChanged(DailyAmount before, UserSubscription after) {
+        apply(RevenueDaily.Source.SUBSCRIPTION, before, amountOf(after));
+    }
+
+    private void apply(RevenueDaily.Source source, DailyAmount before, DailyAmount after) {
+        if (before.date() != null && before.date().equals(after.date())) {
+            BigDecimal delta = after.amount().subtract(before.amount());
+            if (delta.signum() != 0) {
+                revenueDailyRepository.addRevenue(after.date(), source.name(), delta);
+            }
+            return;
+        }
+        if (before.date() != null && before.amount().signum() != 0) {
+            revenueDailyRepository.addRevenue(before.date(), source.name(), before.amount().negate());
+        }
+        if (after.date() != null && after.amount().signum() != 0) {
+            revenueDailyRepository.addRevenue(after.date(), source.name(), after.amount());
+        }
+    }
+
+    // Dựng lại rollup từ bảng gốc theo từng ngày, mỗi ngày 1 transaction ngắn (không xóa trắng bảng).
+    // INSERT ... SELECT khóa các dòng nguồn của đúng ngày đang tính: nghiệp vụ đổi trạng thái + addRevenue
+    // cùng ngày đó chờ tới khi ngày tính xong rồi cộng tiếp lên số mới, các ngày khác không bị ảnh hưởng.
+    public void rebuild() {
+        List<Object> days = revenueDailyRepository.findRevenueDays();
+        for (Object value : days) {
+            LocalDate day = toLocalDate(value);
+            LocalDateTime from = day.atStartOfDay();
+            LocalDateTime to = day.plusDays(1).atStartOfDay();
+            transactionTemplate.executeWithoutResult(status -> {
+                revenueDailyRepository.recomputeBookingDay(day, from, to);
+                revenueDailyRepository.recomputeSubscriptionDay(day, from, to);
+            });
+        }
+        log.info("RevenueRollup: đã dựng lại Revenue_Daily cho {} ngày", days.size());
+    }
+
+    public boolean isEmpty() {
+        return revenueDailyRepository.count() == 0;
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof java.sql.Date date ? date.toLocalDate() : (LocalDate) value;
+    }
+}
@@ -0,0 +1,44 @@
+package com.nutrimate.service;
+
+import com.nutrimate.dto.DailyLogResponseDTO;
+import com.nutrimate.util.AfterCommit;
+import com.nutrimate.util.TtlLruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Cache DailyLogResponseDTO theo (userId, date) cho GET /api/tracking/{date}.
+ * Ghi (thêm/sửa/xóa món) sẽ xóa đúng key đó: xóa ngay và xóa thêm lần nữa sau commit.
+ * Mỗi lần xóa tăng thế hệ của key nên request đọc đã bắt đầu load trước đó không put dữ liệu cũ vào cache.
+ */
+@Component
+public class TrackingLogCache {
+
+    private final TtlLruCache<Key, DailyLogResponseDTO> cache;
+
+    public TrackingLogCache(@Value("${app.tracking.cache.max-size:10000}") int maxSize,
+                            @Value("${app.tracking.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.cache = new TtlLruCache<>(maxSize, ttlSeconds * 1000);
+    }
+
+    public DailyLogResponseDTO getOrLoad(String userId, LocalDate date, Supplier<DailyLogResponseDTO> loader) {
+        return cache.getOrLoad(new Key(userId, date), loader);
+    }
+
+    public void evict(String userId, LocalDate date) {
+        Key key = new Key(userId, date);
+        cache.invalidate(key);
+        AfterCommit.run(() -> cache.invalidate(key));
+    }
+
+    public Map<String, Object> stats() {
+        return cache.stats();
+    }
+
+    private record Key(String userId, LocalDate date) {
+    }
+}
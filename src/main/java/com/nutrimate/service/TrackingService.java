@@ -1,8 +1,10 @@
 package com.nutrimate.service;
 
 import com.nutrimate.dto.DailyLogResponseDTO;
+import com.nutrimate.dto.TrackingRangeResponseDTO;
 import com.nutrimate.dto.TrackingRequestDTO;
 import com.nutrimate.entity.*;
+import com.nutrimate.exception.BadRequestException;
 import com.nutrimate.exception.ForbiddenException;
 import com.nutrimate.exception.ResourceNotFoundException;
 import com.nutrimate.repository.*;
@@ -10,9 +12,17 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,9 +33,23 @@ public class TrackingService {
     private final MealLogRepository mealLogRepository;
     private final RecipeRepository recipeRepository;
     private final UserRepository userRepository;
+    private final TrackingLogCache trackingLogCache;
 
-    // 7.1 Lấy log theo ngày
+    // Giới hạn khoảng ngày của API range (đủ cho biểu đồ tháng/quý)
+    private static final int MAX_RANGE_DAYS = 366;
+    // Giới hạn số món trong 1 lần đồng bộ batch
+    private static final int MAX_BATCH_ITEMS = 100;
+
+    // 7.1 Lấy log theo ngày (qua cache, bị xóa khi user thêm/sửa/xóa món của ngày đó)
     public DailyLogResponseDTO getLogByDate(String userId, LocalDate date) {
+        return trackingLogCache.getOrLoad(userId, date, () -> loadLogByDate(userId, date));
+    }
+
+    public Map<String, Object> getCacheStats() {
+        return trackingLogCache.stats();
+    }
+
+    private DailyLogResponseDTO loadLogByDate(String userId, LocalDate date) {
         Optional<DailyLog> logOpt = dailyLogRepository.findByUserIdAndLogDate(userId, date);
 
         if (logOpt.isEmpty()) {
@@ -33,6 +57,9 @@ public class TrackingService {
             DailyLogResponseDTO empty = new DailyLogResponseDTO();
             empty.setDate(date);
             empty.setTotalCalories(0);
+            empty.setTotalProtein(0.0);
+            empty.setTotalCarbs(0.0);
+            empty.setTotalFat(0.0);
             empty.setMeals(new ArrayList<>());
             return empty;
         }
@@ -43,15 +70,8 @@ public class TrackingService {
     // 7.2 Thêm món ăn vào nhật ký
     @Transactional
     public DailyLogResponseDTO addFoodLog(String userId, TrackingRequestDTO.AddFoodLog req) {
-        DailyLog dailyLog = dailyLogRepository.findByUserIdAndLogDate(userId, req.getDate())
-                .orElseGet(() -> {
-                    DailyLog newLog = new DailyLog();
-                    newLog.setUser(userRepository.findById(userId)
-                            .orElseThrow(() -> new ResourceNotFoundException("User not found")));
-                    newLog.setLogDate(req.getDate());
-                    newLog.setTotalCaloriesIn(0);
-                    return dailyLogRepository.save(newLog);
-                });
+        DailyLog dailyLog = getOrCreateDailyLog(userId, req.getDate());
+        trackingLogCache.evict(userId, req.getDate());
 
         Recipe recipe = recipeRepository.findById(req.getRecipeId())
                 .orElseThrow(() -> new ResourceNotFoundException("Recipe not found"));
@@ -66,9 +86,86 @@ public class TrackingService {
         mealLog.setCaloriesConsumed(calConsumed);
 
         mealLogRepository.save(mealLog);
-        updateDailyTotal(dailyLog);
+        NutritionDelta delta = new NutritionDelta();
+        delta.add(recipe, req.getAmount(), calConsumed);
+
+        return mapToDTO(applyNutritionDelta(dailyLog.getId(), delta));
+    }
+
+    // 7.2b Thêm nhiều món cùng lúc (mobile sync) - 1 transaction, 1 query IN cho Recipe, insert theo batch
+    @Transactional
+    public List<DailyLogResponseDTO> addFoodLogs(String userId, TrackingRequestDTO.BatchAddFoodLog req) {
+        if (req.getItems() == null || req.getItems().isEmpty()) {
+            throw new BadRequestException("Danh sách món ăn không được để trống");
+        }
+        if (req.getItems().size() > MAX_BATCH_ITEMS) {
+            throw new BadRequestException("Tối đa " + MAX_BATCH_ITEMS + " món mỗi lần đồng bộ");
+        }
 
-        return mapToDTO(dailyLog);
+        Set<String> recipeIds = req.getItems().stream()
+                .map(TrackingRequestDTO.AddFoodLog::getRecipeId)
+                .collect(Collectors.toSet());
+        Map<String, Recipe> recipes = recipeRepository.findAllById(recipeIds).stream()
+                .collect(Collectors.toMap(Recipe::getId, r -> r));
+        if (recipes.size() != recipeIds.size()) {
+            throw new ResourceNotFoundException("Recipe not found");
+        }
+
+        Map<LocalDate, DailyLog> logsByDate = new LinkedHashMap<>();
+        Map<String, NutritionDelta> deltas = new LinkedHashMap<>();
+        List<MealLog> mealLogs = new ArrayList<>();
+        for (TrackingRequestDTO.AddFoodLog item : req.getItems()) {
+            DailyLog dailyLog = logsByDate.computeIfAbsent(item.getDate(), d -> {
+                trackingLogCache.evict(userId, d);
+                return getOrCreateDailyLog(userId, d);
+            });
+            Recipe recipe = recipes.get(item.getRecipeId());
+
+            MealLog mealLog = new MealLog();
+            mealLog.setDailyLog(dailyLog);
+            mealLog.setRecipe(recipe);
+            mealLog.setMealType(item.getMealType());
+            mealLog.setAmount(item.getAmount());
+            int calConsumed = (int) (recipe.getCalories() * item.getAmount());
+            mealLog.setCaloriesConsumed(calConsumed);
+            mealLogs.add(mealLog);
+
+            deltas.computeIfAbsent(dailyLog.getId(), id -> new NutritionDelta())
+                    .add(recipe, item.getAmount(), calConsumed);
+        }
+
+        // Insert gom batch (hibernate.jdbc.batch_size), tổng của mỗi DailyLog chỉ cập nhật 1 lần
+        mealLogRepository.saveAll(mealLogs);
+        List<DailyLog> updated = new ArrayList<>(deltas.size());
+        deltas.forEach((logId, delta) -> updated.add(applyNutritionDelta(logId, delta)));
+
+        return updated.stream().map(this::mapToDTO).collect(Collectors.toList());
+    }
+
+    // 7.2c Copy toàn bộ món ăn từ ngày A sang ngày B ("ăn lại như hôm qua") - 1 lệnh INSERT ... SELECT
+    @Transactional
+    public DailyLogResponseDTO copyDay(String userId, TrackingRequestDTO.CopyDay req) {
+        if (req.getFromDate().equals(req.getToDate())) {
+            throw new BadRequestException("Ngày nguồn và ngày đích phải khác nhau");
+        }
+        DailyLog source = dailyLogRepository.findByUserIdAndLogDate(userId, req.getFromDate())
+                .orElseThrow(() -> new ResourceNotFoundException("Không có nhật ký ăn uống ở ngày " + req.getFromDate()));
+
+        DailyLog target = getOrCreateDailyLog(userId, req.getToDate());
+        trackingLogCache.evict(userId, req.getToDate());
+        int copied = mealLogRepository.copyMealLogs(source.getId(), target.getId());
+        if (copied == 0) {
+            throw new BadRequestException("Ngày " + req.getFromDate() + " chưa có món ăn nào để copy");
+        }
+
+        // Tổng của ngày nguồn đã được duy trì sẵn -> cộng thẳng vào ngày đích
+        NutritionDelta delta = new NutritionDelta();
+        delta.calories = nz(source.getTotalCaloriesIn());
+        delta.protein = nz(source.getTotalProteinIn());
+        delta.carbs = nz(source.getTotalCarbsIn());
+        delta.fat = nz(source.getTotalFatIn());
+
+        return mapToDTO(applyNutritionDelta(target.getId(), delta));
     }
 
     // 7.3 Update Food Log
@@ -81,15 +178,19 @@ public class TrackingService {
                 || !mealLog.getDailyLog().getUser().getId().equals(userId)) {
             throw new ForbiddenException("You are not authorized to edit this log");
         }
+        trackingLogCache.evict(userId, mealLog.getDailyLog().getLogDate());
 
+        int oldCal = mealLog.getCaloriesConsumed() != null ? mealLog.getCaloriesConsumed() : 0;
+        double oldAmount = mealLog.getAmount() != null ? mealLog.getAmount() : 0;
         mealLog.setAmount(req.getAmount());
         int newCal = (int) (mealLog.getRecipe().getCalories() * req.getAmount());
         mealLog.setCaloriesConsumed(newCal);
         
         mealLogRepository.save(mealLog);
-        updateDailyTotal(mealLog.getDailyLog());
+        NutritionDelta delta = new NutritionDelta();
+        delta.add(mealLog.getRecipe(), req.getAmount() - oldAmount, newCal - oldCal);
 
-        return mapToDTO(mealLog.getDailyLog());
+        return mapToDTO(applyNutritionDelta(mealLog.getDailyLog().getId(), delta));
     }
 
     // 7.4 Delete Food Log
@@ -102,26 +203,128 @@ public class TrackingService {
                 || !mealLog.getDailyLog().getUser().getId().equals(userId)) {
             throw new ForbiddenException("You are not authorized to delete this log");
         }
+        trackingLogCache.evict(userId, mealLog.getDailyLog().getLogDate());
         
         DailyLog parentLog = mealLog.getDailyLog();
         mealLogRepository.delete(mealLog);
-        
-        parentLog.setTotalCaloriesIn(parentLog.getTotalCaloriesIn() - mealLog.getCaloriesConsumed());
-        dailyLogRepository.save(parentLog);
-    }
-
-    // Helper: Tính lại tổng calo của DailyLog từ DB
-    private void updateDailyTotal(DailyLog dailyLog) {
-        // Lấy danh sách meal hiện tại
-        // Lưu ý: Nếu vừa save MealLog xong, list meals trong dailyLog có thể chưa update
-        // Nên query lại từ DB cho chắc
-        Integer total = mealLogRepository.findAll().stream()
-                .filter(m -> m.getDailyLog().getId().equals(dailyLog.getId()))
-                .mapToInt(MealLog::getCaloriesConsumed)
-                .sum();
-        
-        dailyLog.setTotalCaloriesIn(total);
-        dailyLogRepository.save(dailyLog);
+
+        int removedCal = mealLog.getCaloriesConsumed() != null ? mealLog.getCaloriesConsumed() : 0;
+        double removedAmount = mealLog.getAmount() != null ? mealLog.getAmount() : 0;
+        NutritionDelta delta = new NutritionDelta();
+        delta.add(mealLog.getRecipe(), -removedAmount, -removedCal);
+        applyNutritionDelta(parentLog.getId(), delta);
+    }
+
+    // 7.5 Tổng hợp theo khoảng ngày (biểu đồ tuần/tháng) - 1 query range trên Daily_Logs(user_id, log_date)
+    public TrackingRangeResponseDTO getLogsInRange(String userId, LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new BadRequestException("Khoảng ngày không hợp lệ: 'from' phải trước hoặc bằng 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new BadRequestException("Khoảng ngày tối đa là " + MAX_RANGE_DAYS + " ngày");
+        }
+
+        Map<LocalDate, DailyLog> logsByDate = new HashMap<>();
+        for (DailyLog log : dailyLogRepository.findByUserIdAndLogDateBetweenOrderByLogDateAsc(userId, from, to)) {
+            logsByDate.putIfAbsent(log.getLogDate(), log);
+        }
+
+        List<TrackingRangeResponseDTO.DaySummary> days = new ArrayList<>();
+        Map<LocalDate, TrackingRangeResponseDTO.WeekSummary> weeks = new LinkedHashMap<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            DailyLog log = logsByDate.get(date);
+
+            TrackingRangeResponseDTO.DaySummary day = new TrackingRangeResponseDTO.DaySummary();
+            day.setDate(date);
+            day.setLogId(log != null ? log.getId() : null);
+            day.setTotalCalories(log != null ? nz(log.getTotalCaloriesIn()) : 0);
+            day.setTotalProtein(log != null ? nz(log.getTotalProteinIn()) : 0.0);
+            day.setTotalCarbs(log != null ? nz(log.getTotalCarbsIn()) : 0.0);
+            day.setTotalFat(log != null ? nz(log.getTotalFatIn()) : 0.0);
+            days.add(day);
+
+            LocalDate weekStart = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            TrackingRangeResponseDTO.WeekSummary week = weeks.computeIfAbsent(weekStart, ws -> {
+                TrackingRangeResponseDTO.WeekSummary w = new TrackingRangeResponseDTO.WeekSummary();
+                w.setWeekStart(ws);
+                w.setWeekEnd(ws.plusDays(6));
+                w.setLoggedDays(0);
+                w.setTotalCalories(0);
+                w.setTotalProtein(0.0);
+                w.setTotalCarbs(0.0);
+                w.setTotalFat(0.0);
+                return w;
+            });
+            if (log != null) {
+                week.setLoggedDays(week.getLoggedDays() + 1);
+            }
+            week.setTotalCalories(week.getTotalCalories() + day.getTotalCalories());
+            week.setTotalProtein(week.getTotalProtein() + day.getTotalProtein());
+            week.setTotalCarbs(week.getTotalCarbs() + day.getTotalCarbs());
+            week.setTotalFat(week.getTotalFat() + day.getTotalFat());
+        }
+        weeks.values().forEach(w -> w.setAvgCaloriesPerLoggedDay(
+                w.getLoggedDays() > 0 ? (double) w.getTotalCalories() / w.getLoggedDays() : 0.0));
+
+        TrackingRangeResponseDTO dto = new TrackingRangeResponseDTO();
+        dto.setFrom(from);
+        dto.setTo(to);
+        dto.setDays(days);
+        dto.setWeeks(new ArrayList<>(weeks.values()));
+        return dto;
+    }
+
+    // Helper: Lấy DailyLog của user theo ngày, chưa có thì tạo mới (đã flush để MealLog/INSERT SELECT tham chiếu được)
+    private DailyLog getOrCreateDailyLog(String userId, LocalDate date) {
+        return dailyLogRepository.findByUserIdAndLogDate(userId, date)
+                .orElseGet(() -> {
+                    DailyLog newLog = new DailyLog();
+                    newLog.setUser(userRepository.findById(userId)
+                            .orElseThrow(() -> new ResourceNotFoundException("User not found")));
+                    newLog.setLogDate(date);
+                    newLog.setTotalCaloriesIn(0);
+                    newLog.setTotalProteinIn(0.0);
+                    newLog.setTotalCarbsIn(0.0);
+                    newLog.setTotalFatIn(0.0);
+                    return dailyLogRepository.saveAndFlush(newLog);
+                });
+    }
+
+    // Helper: Cộng/trừ phần chênh lệch calo + macro vào tổng của DailyLog bằng 1 lệnh UPDATE nguyên tử
+    // (không quét lại Meal_Logs, không đọc-sửa-ghi entity). Trả về DailyLog đọc lại sau khi cập nhật.
+    private DailyLog applyNutritionDelta(String dailyLogId, NutritionDelta delta) {
+        dailyLogRepository.addNutrition(dailyLogId, delta.calories, delta.protein, delta.carbs, delta.fat);
+        return dailyLogRepository.findById(dailyLogId)
+                .orElseThrow(() -> new ResourceNotFoundException("Daily log not found"));
+    }
+
+    // Phần chênh lệch calo + macro (recipe.macro * amountDelta) cộng dồn cho 1 DailyLog
+    private static class NutritionDelta {
+        private int calories;
+        private double protein;
+        private double carbs;
+        private double fat;
+
+        private void add(Recipe recipe, double amountDelta, int calDelta) {
+            calories += calDelta;
+            if (recipe != null) {
+                protein += macro(recipe.getProtein()) * amountDelta;
+                carbs += macro(recipe.getCarbs()) * amountDelta;
+                fat += macro(recipe.getFat()) * amountDelta;
+            }
+        }
+    }
+
+    private static double macro(Float value) {
+        return value != null ? value : 0.0;
+    }
+
+    private static int nz(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private static double nz(Double value) {
+        return value != null ? value : 0.0;
     }
 
     // Helper: Map Entity -> DTO
@@ -130,17 +333,17 @@ public class TrackingService {
         dto.setLogId(log.getId());
         dto.setDate(log.getLogDate());
         dto.setTotalCalories(log.getTotalCaloriesIn());
+        dto.setTotalProtein(nz(log.getTotalProteinIn()));
+        dto.setTotalCarbs(nz(log.getTotalCarbsIn()));
+        dto.setTotalFat(nz(log.getTotalFatIn()));
         
-        // Query meal logs (Nếu chưa fetch EAGER thì cần repo call hoặc transactional)
-        // Giả sử logic fetch đã ổn hoặc dùng lazy load trong transaction
-        // Cách an toàn là query list meal log
-        dto.setMeals(mealLogRepository.findAll().stream()
-                .filter(m -> m.getDailyLog().getId().equals(log.getId()))
+        // Query meal logs theo log_id (có index) + fetch Recipe cùng lúc để tránh N+1
+        dto.setMeals(mealLogRepository.findByDailyLogIdWithRecipe(log.getId()).stream()
                 .map(m -> {
                     DailyLogResponseDTO.MealLogDTO md = new DailyLogResponseDTO.MealLogDTO();
                     md.setMealLogId(m.getId());
-                    md.setRecipeId(m.getRecipe().getId());
-                    md.setRecipeName(m.getRecipe().getTitle());
+                    md.setRecipeId(m.getRecipe() != null ? m.getRecipe().getId() : null);
+                    md.setRecipeName(m.getRecipe() != null ? m.getRecipe().getTitle() : null);
                     md.setMealType(m.getMealType());
                     md.setAmount(m.getAmount());
                     md.setCalories(m.getCaloriesConsumed());
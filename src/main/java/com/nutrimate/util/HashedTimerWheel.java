@@ -0,0 +1,76 @@
+package com.nutrimate.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timer wheel: hẹn giờ cho rất nhiều key với chi phí O(1) khi thêm/hủy,
+ * mỗi tick chỉ duyệt 1 ô của bánh xe thay vì quét toàn bộ.
+ * Không tự chạy thread - bên gọi gọi advance(now) định kỳ (mỗi tick) để lấy các key đã đến hạn.
+ * Độ trễ tối đa so với deadline ~ 1 tick (+ chu kỳ gọi advance).
+ */
+public class HashedTimerWheel<K> {
+
+    private final long tickMillis;
+    private final List<Map<K, Long>> buckets;
+    private final Map<K, Long> deadlines = new HashMap<>();
+    private long lastTick;
+
+    public HashedTimerWheel(long tickMillis, int wheelSize, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new HashMap<>());
+        }
+        this.lastTick = nowMillis / tickMillis - 1;
+    }
+
+    /** Hẹn giờ cho key (đặt lại nếu key đã có). Deadline đã qua sẽ được trả ra ở lần advance kế tiếp. */
+    public synchronized void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        long tick = Math.max(deadlineMillis / tickMillis, lastTick + 1);
+        buckets.get(bucketIndex(tick)).put(key, deadlineMillis);
+        deadlines.put(key, tick);
+    }
+
+    public synchronized void cancel(K key) {
+        Long tick = deadlines.remove(key);
+        if (tick != null) {
+            buckets.get(bucketIndex(tick)).remove(key);
+        }
+    }
+
+    /** Quay bánh xe tới thời điểm now, trả về các key đã đến hạn (đồng thời gỡ khỏi bánh xe). */
+    public synchronized List<K> advance(long nowMillis) {
+        // Chỉ xử lý các tick đã trôi qua hẳn: mọi deadline trong đó đều < now
+        long upToTick = nowMillis / tickMillis - 1;
+        List<K> expired = new ArrayList<>();
+        // Chỉ cần quay tối đa 1 vòng: các ô sau đó lặp lại đúng những ô này
+        long from = Math.max(lastTick + 1, upToTick - buckets.size() + 1);
+        for (long tick = from; tick <= upToTick; tick++) {
+            Iterator<Map.Entry<K, Long>> it = buckets.get(bucketIndex(tick)).entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<K, Long> entry = it.next();
+                // Cùng ô nhưng khác vòng (deadline ở các vòng sau) thì để lại
+                if (entry.getValue() <= nowMillis) {
+                    expired.add(entry.getKey());
+                    deadlines.remove(entry.getKey());
+                    it.remove();
+                }
+            }
+        }
+        lastTick = Math.max(lastTick, upToTick);
+        return expired;
+    }
+
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    private int bucketIndex(long tick) {
+        return (int) Math.floorMod(tick, (long) buckets.size());
+    }
+}
@@ -0,0 +1,199 @@
+package com.nutrimate.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Inverted index in-memory: term (đã bỏ dấu) -> document -> trọng số.
+ * Mỗi document có thể gồm nhiều "source" (vd: nội dung bài viết + từng comment), mỗi source được
+ * thêm/xóa độc lập nên cập nhật chỉ tốn O(số từ của source đó), không phải build lại cả index.
+ * Thread-safe (read/write lock): nhiều luồng search song song, ghi tuần tự.
+ */
+public class InvertedIndex<K> {
+
+    private final Function<String, List<String>> tokenizer;
+
+    private final Map<String, Map<K, Double>> postings = new HashMap<>();
+    private final Map<String, Source<K>> sources = new HashMap<>();
+    private final Map<K, Set<String>> sourcesByDoc = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public InvertedIndex() {
+        this(TextNormalizer::tokenize);
+    }
+
+    public InvertedIndex(Function<String, List<String>> tokenizer) {
+        this.tokenizer = tokenizer;
+    }
+
+    /** Thêm/ghi đè 1 source của document. Text rỗng = xóa source. */
+    public void put(String sourceKey, K doc, String text, double weight) {
+        Map<String, Double> terms = new HashMap<>();
+        for (String token : tokenizer.apply(text)) {
+            terms.merge(token, weight, Double::sum);
+        }
+        lock.writeLock().lock();
+        try {
+            removeSourceLocked(sourceKey);
+            if (terms.isEmpty()) {
+                return;
+            }
+            terms.forEach((term, w) -> postings.computeIfAbsent(term, t -> new HashMap<>()).merge(doc, w, Double::sum));
+            sources.put(sourceKey, new Source<>(doc, terms));
+            sourcesByDoc.computeIfAbsent(doc, d -> new HashSet<>()).add(sourceKey);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeSource(String sourceKey) {
+        lock.writeLock().lock();
+        try {
+            removeSourceLocked(sourceKey);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeDocument(K doc) {
+        lock.writeLock().lock();
+        try {
+            Set<String> keys = sourcesByDoc.get(doc);
+            if (keys != null) {
+                new HashSet<>(keys).forEach(this::removeSourceLocked);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            sources.clear();
+            sourcesByDoc.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int documentCount() {
+        lock.readLock().lock();
+        try {
+            return sourcesByDoc.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Điểm liên quan của các document khớp ít nhất 1 từ trong query.
+     * Mỗi từ: idf * w / (w + 1) (bão hòa kiểu BM25), sau đó nhân (tỉ lệ số từ khớp)^2 để ưu tiên khớp đủ từ.
+     */
+    public Map<K, Double> score(String query) {
+        Set<String> queryTerms = new LinkedHashSet<>(tokenizer.apply(query));
+        Map<K, Double> scores = new HashMap<>();
+        accumulate(queryTerms).forEach((doc, acc) -> scores.put(doc, finalScore(acc, queryTerms.size())));
+        return scores;
+    }
+
+    /**
+     * Top-N document theo score(query) x boost(doc), giảm dần; boost <= 0 = loại document.
+     * Chọn bằng heap N phần tử thay vì dựng map kết quả rồi sort toàn bộ các document khớp.
+     */
+    public List<K> top(String query, int limit, ToDoubleFunction<K> boost) {
+        Set<String> queryTerms = new LinkedHashSet<>(tokenizer.apply(query));
+        if (limit <= 0) {
+            return List.of();
+        }
+        PriorityQueue<Ranked<K>> heap = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(Ranked::score));
+        accumulate(queryTerms).forEach((doc, acc) -> {
+            double factor = boost.applyAsDouble(doc);
+            if (factor <= 0) return;
+            double score = finalScore(acc, queryTerms.size()) * factor;
+            if (heap.size() < limit) {
+                heap.add(new Ranked<>(doc, score));
+            } else if (score > heap.peek().score()) {
+                heap.poll();
+                heap.add(new Ranked<>(doc, score));
+            }
+        });
+        List<K> ranked = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ranked.add(heap.poll().doc());
+        }
+        Collections.reverse(ranked);
+        return ranked;
+    }
+
+    // doc -> [tổng điểm các từ khớp, số từ khớp], 1 map duy nhất cho cả query
+    private Map<K, double[]> accumulate(Set<String> queryTerms) {
+        Map<K, double[]> acc = new HashMap<>();
+        if (queryTerms.isEmpty()) {
+            return acc;
+        }
+        lock.readLock().lock();
+        try {
+            int totalDocs = Math.max(1, sourcesByDoc.size());
+            for (String term : queryTerms) {
+                Map<K, Double> docs = postings.get(term);
+                if (docs == null) continue;
+                double idf = Math.log(1 + (double) totalDocs / docs.size());
+                docs.forEach((doc, w) -> {
+                    double[] a = acc.computeIfAbsent(doc, d -> new double[2]);
+                    a[0] += idf * w / (w + 1);
+                    a[1]++;
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return acc;
+    }
+
+    private static double finalScore(double[] acc, int queryTermCount) {
+        double coverage = acc[1] / queryTermCount;
+        return acc[0] * coverage * coverage;
+    }
+
+    private void removeSourceLocked(String sourceKey) {
+        Source<K> old = sources.remove(sourceKey);
+        if (old == null) {
+            return;
+        }
+        old.terms().forEach((term, w) -> {
+            Map<K, Double> docs = postings.get(term);
+            if (docs == null) return;
+            Double remaining = docs.computeIfPresent(old.doc(), (d, cur) -> cur - w > 1e-9 ? cur - w : null);
+            if (remaining == null && docs.isEmpty()) {
+                postings.remove(term);
+            }
+        });
+        Set<String> keys = sourcesByDoc.get(old.doc());
+        if (keys != null) {
+            keys.remove(sourceKey);
+            if (keys.isEmpty()) {
+                sourcesByDoc.remove(old.doc());
+            }
+        }
+    }
+
+    private record Source<K>(K doc, Map<String, Double> terms) {
+    }
+
+    private record Ranked<K>(K doc, double score) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.nutrimate.util;
+
+import com.nutrimate.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Cursor cho phân trang keyset theo (thời gian, id).
+ * Client chỉ nhận chuỗi opaque (Base64 URL-safe) và gửi lại nguyên văn để lấy trang tiếp theo.
+ */
+public record KeysetCursor(LocalDateTime time, String id) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = time + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String encode(LocalDateTime time, String id) {
+        return new KeysetCursor(time, id).encode();
+    }
+
+    /** Trả về null nếu cursor rỗng (trang đầu tiên). */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int idx = raw.indexOf(SEPARATOR);
+            if (idx <= 0 || idx == raw.length() - 1) {
+                throw new IllegalArgumentException("Missing separator");
+            }
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, idx)), raw.substring(idx + 1));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Cursor không hợp lệ");
+        }
+    }
+}
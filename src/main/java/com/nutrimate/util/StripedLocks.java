@@ -0,0 +1,24 @@
+package com.nutrimate.util;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tập lock cố định (striped) theo key: các key khác nhau phần lớn rơi vào lock khác nhau,
+ * cùng key luôn dùng chung 1 lock. Không tạo lock mới cho mỗi key nên không cần dọn dẹp.
+ * Chỉ có tác dụng trong 1 JVM - khi chạy nhiều instance vẫn cần ràng buộc ở DB.
+ */
+public class StripedLocks {
+
+    private final ReentrantLock[] locks;
+
+    public StripedLocks(int stripes) {
+        this.locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public ReentrantLock lockFor(Object key) {
+        return locks[Math.floorMod(key.hashCode(), locks.length)];
+    }
+}
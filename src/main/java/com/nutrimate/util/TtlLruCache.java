@@ -0,0 +1,161 @@
+package com.nutrimate.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cache in-process có giới hạn kích thước (LRU) + thời gian sống (TTL) cho từng entry.
+ * Đủ nhẹ cho các cache đọc nhiều / ghi ít trong app (không cần thêm thư viện cache ngoài).
+ * Có đếm hit/miss/eviction để theo dõi và chỉnh size/TTL.
+ * Mỗi key có "thế hệ" (chia stripe theo hash): invalidate / updateIfPresent tăng thế hệ, kết quả load bắt đầu
+ * từ thế hệ cũ sẽ không được put -> load chạy chen với 1 lần ghi không đưa dữ liệu cũ trở lại cache.
+ */
+public class TtlLruCache<K, V> {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entry<V>> map;
+    private final long[] generations = new long[GENERATION_STRIPES]; // đọc/ghi trong synchronized (map)
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TtlLruCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > TtlLruCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public V get(K key) {
+        synchronized (map) {
+            Entry<V> entry = map.get(key);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (entry.expireAt < System.currentTimeMillis()) {
+                map.remove(key);
+                evictions.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        }
+    }
+
+    /** Lấy từ cache, nếu miss thì gọi loader (ngoài lock) rồi put kết quả vào nếu key chưa bị ghi trong lúc load. */
+    public V getOrLoad(K key, Supplier<V> loader) {
+        V cached = get(key);
+        if (cached != null) return cached;
+        long generation = generation(key);
+        V loaded = loader.get();
+        if (loaded != null) putIfUnchanged(key, loaded, generation);
+        return loaded;
+    }
+
+    /** Thế hệ hiện tại của key: lấy trước khi đọc DB, truyền lại cho putIfUnchanged. */
+    public long generation(K key) {
+        synchronized (map) {
+            return generations[stripe(key)];
+        }
+    }
+
+    /** Put nếu key chưa bị invalidate / cập nhật kể từ lúc lấy generation; trả về false nếu bỏ qua. */
+    public boolean putIfUnchanged(K key, V value, long generation) {
+        synchronized (map) {
+            if (generations[stripe(key)] != generation) {
+                return false;
+            }
+            map.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+            return true;
+        }
+    }
+
+    public void put(K key, V value) {
+        synchronized (map) {
+            map.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    /** Cập nhật tại chỗ entry còn hạn (giữ nguyên hạn cũ); không có trong cache thì bỏ qua. */
+    public void updateIfPresent(K key, UnaryOperator<V> updater) {
+        synchronized (map) {
+            generations[stripe(key)]++;
+            Entry<V> entry = map.get(key);
+            if (entry != null && entry.expireAt >= System.currentTimeMillis()) {
+                map.put(key, new Entry<>(updater.apply(entry.value), entry.expireAt));
+            }
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (map) {
+            generations[stripe(key)]++;
+            map.remove(key);
+        }
+    }
+
+    public void invalidateIf(Predicate<K> predicate) {
+        synchronized (map) {
+            bumpAllGenerations();
+            map.keySet().removeIf(predicate);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (map) {
+            bumpAllGenerations();
+            map.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size());
+        stats.put("maxSize", maxSize);
+        stats.put("ttlSeconds", ttlMillis / 1000);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("evictions", evictions.sum());
+        stats.put("hitRate", h + m == 0 ? 0.0 : (double) h / (h + m));
+        return stats;
+    }
+
+    private void bumpAllGenerations() {
+        for (int i = 0; i < generations.length; i++) {
+            generations[i]++;
+        }
+    }
+
+    private static int stripe(Object key) {
+        return Math.floorMod(key.hashCode(), GENERATION_STRIPES);
+    }
+
+    private record Entry<V>(V value, long expireAt) {
+    }
+}
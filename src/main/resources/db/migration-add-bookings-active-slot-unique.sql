@@ -0,0 +1,20 @@
+-- Migration: Chống đặt trùng lịch - mỗi Expert chỉ có tối đa 1 booking PENDING/CONFIRMED tại cùng booking_time.
+-- MySQL không có partial index nên dùng cột sinh active_booking_time (NULL khi booking không còn giữ slot)
+-- rồi đặt UNIQUE trên (expert_user_id, active_booking_time); các dòng NULL không bị tính là trùng.
+-- Chỉ cần chạy một lần.
+
+-- MySQL:
+-- 1. Kiểm tra dữ liệu trùng hiện có (phải xử lý tay - hủy bớt booking trùng - trước khi tạo UNIQUE ở bước 3)
+SELECT expert_user_id, booking_time, COUNT(*) AS cnt
+FROM `Bookings`
+WHERE status IN ('PENDING', 'CONFIRMED')
+GROUP BY expert_user_id, booking_time
+HAVING COUNT(*) > 1;
+
+-- 2. Cột sinh
+ALTER TABLE `Bookings`
+    ADD COLUMN `active_booking_time` DATETIME(6)
+        GENERATED ALWAYS AS (IF(status IN ('PENDING', 'CONFIRMED'), booking_time, NULL)) VIRTUAL;
+
+-- 3. Unique
+CREATE UNIQUE INDEX `uk_booking_expert_active_time` ON `Bookings` (`expert_user_id`, `active_booking_time`);
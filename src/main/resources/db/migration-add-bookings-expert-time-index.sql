@@ -0,0 +1,6 @@
+-- Migration: Index (expert_user_id, booking_time) cho bảng Bookings
+-- để tra khung giờ đã đặt của Expert theo khoảng thời gian (thay cho DATE(booking_time) = ? không dùng được index).
+-- Chỉ cần chạy một lần.
+
+-- MySQL:
+CREATE INDEX `idx_booking_expert_time` ON `Bookings` (`expert_user_id`, `booking_time`);
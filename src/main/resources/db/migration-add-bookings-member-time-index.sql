@@ -0,0 +1,6 @@
+-- Migration: Index (member_id, booking_time) cho bảng Bookings
+-- để lịch sử booking của Member (phân trang keyset theo booking_time giảm dần) đọc theo index.
+-- Chỉ cần chạy một lần.
+
+-- MySQL:
+CREATE INDEX `idx_booking_member_time` ON `Bookings` (`member_id`, `booking_time`);
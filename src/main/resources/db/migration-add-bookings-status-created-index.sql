@@ -0,0 +1,6 @@
+-- Migration: Index (status, created_at) cho bảng Bookings
+-- để nạp timer wheel hết hạn booking PENDING lúc khởi động và sweep dự phòng không phải quét toàn bảng.
+-- Chỉ cần chạy một lần.
+
+-- MySQL:
+CREATE INDEX `idx_booking_status_created` ON `Bookings` (`status`, `created_at`);
@@ -0,0 +1,5 @@
+-- Migration: Index (post_id, created_at, comment_id) cho bảng Comments để phân trang comment bằng cursor
+-- Chỉ cần chạy một lần.
+
+-- MySQL:
+CREATE INDEX `idx_comment_post_created_id` ON `Comments` (`post_id`, `created_at`, `comment_id`);
@@ -0,0 +1,26 @@
+-- Migration: Thêm tổng macro (protein/carbs/fat) cho Daily_Logs + index (user_id, log_date) cho API range
+-- LƯU Ý:
+-- - Cột để NULL/DEFAULT 0 nên an toàn cho DB đang chạy.
+-- - Bước UPDATE backfill tổng macro cho các log cũ từ Meal_Logs x Recipes. Chỉ cần chạy một lần.
+
+-- MySQL:
+ALTER TABLE `Daily_Logs`
+  ADD COLUMN `total_protein_g` DOUBLE NULL DEFAULT 0,
+  ADD COLUMN `total_carbs_g` DOUBLE NULL DEFAULT 0,
+  ADD COLUMN `total_fat_g` DOUBLE NULL DEFAULT 0;
+
+CREATE INDEX `idx_daily_log_user_date` ON `Daily_Logs` (`user_id`, `log_date`);
+
+UPDATE `Daily_Logs` d
+  JOIN (
+    SELECT m.`log_id`,
+           SUM(COALESCE(r.`protein_g`, 0) * COALESCE(m.`amount`, 0)) AS protein,
+           SUM(COALESCE(r.`carbs_g`, 0) * COALESCE(m.`amount`, 0)) AS carbs,
+           SUM(COALESCE(r.`fat_g`, 0) * COALESCE(m.`amount`, 0)) AS fat
+    FROM `Meal_Logs` m
+    LEFT JOIN `Recipes` r ON r.`recipe_id` = m.`recipe_id`
+    GROUP BY m.`log_id`
+  ) t ON t.`log_id` = d.`log_id`
+SET d.`total_protein_g` = t.protein,
+    d.`total_carbs_g` = t.carbs,
+    d.`total_fat_g` = t.fat;
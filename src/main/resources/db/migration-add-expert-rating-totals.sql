@@ -0,0 +1,15 @@
+-- Migration: Tổng sao / số lượt feedback của Expert (Expert_Profiles.rating_sum, rating_count)
+-- thay cho AVG trên bảng feedbacks mỗi lần xem đánh giá. Chỉ cần chạy một lần.
+
+-- MySQL:
+ALTER TABLE `Expert_Profiles` ADD COLUMN `rating_sum` BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE `Expert_Profiles` ADD COLUMN `rating_count` INT NOT NULL DEFAULT 0;
+
+-- Backfill từ feedback hiện có (cùng điều kiện với job đối soát); expert chưa có feedback giữ nguyên rating
+UPDATE `Expert_Profiles` e
+LEFT JOIN (
+    SELECT f.expert_id, SUM(f.rating) AS total, COUNT(*) AS cnt FROM feedbacks f GROUP BY f.expert_id
+) agg ON agg.expert_id = e.expert_id
+SET e.rating_sum = COALESCE(agg.total, 0),
+    e.rating_count = COALESCE(agg.cnt, 0),
+    e.rating = IF(agg.cnt > 0, agg.total / agg.cnt, e.rating);
@@ -0,0 +1,7 @@
+-- Migration: Index cho Meal_Logs(log_id) để lấy món ăn theo Daily Log không phải quét cả bảng
+-- LƯU Ý:
+-- - MySQL có thể đã tạo index ngầm cho foreign key log_id. Kiểm tra bằng SHOW INDEX FROM `Meal_Logs`;
+--   nếu đã có index bắt đầu bằng log_id thì bỏ qua script này.
+
+-- MySQL:
+CREATE INDEX `idx_meal_log_log_id` ON `Meal_Logs` (`log_id`);
@@ -0,0 +1,9 @@
+-- Migration: Thêm cột created_at cho bảng Post_Likes (thời điểm like, dùng khi bỏ like để trừ điểm trending)
+-- LƯU Ý:
+-- - Cột để NULL được, nên an toàn cho DB đang chạy. Like cũ (NULL) được coi như xảy ra lúc đăng bài,
+--   khớp với cách ForumTrendingIndex ước lượng điểm của bài chưa có trending_score.
+-- - Chỉ cần chạy một lần.
+
+-- MySQL:
+ALTER TABLE `Post_Likes`
+  ADD COLUMN `created_at` DATETIME(6) NULL;
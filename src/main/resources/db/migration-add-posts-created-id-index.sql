@@ -0,0 +1,5 @@
+-- Migration: Index (created_at, post_id) cho bảng Posts để phân trang newsfeed bằng cursor (keyset)
+-- Chỉ cần chạy một lần.
+
+-- MySQL:
+CREATE INDEX `idx_post_created_id` ON `Posts` (`created_at`, `post_id`);
@@ -0,0 +1,8 @@
+-- Migration: Thêm cột trending_score cho bảng Posts (checkpoint điểm trending từ bộ nhớ)
+-- LƯU Ý:
+-- - Cột để NULL được, nên an toàn cho DB đang chạy. Bài có NULL sẽ được ước lượng điểm lúc khởi động.
+-- - Chỉ cần chạy một lần.
+
+-- MySQL:
+ALTER TABLE `Posts`
+  ADD COLUMN `trending_score` DOUBLE NULL;
@@ -0,0 +1,12 @@
+-- Migration: Bảng Revenue_Daily - doanh thu cộng dồn theo ngày và nguồn (BOOKING / SUBSCRIPTION)
+-- Dùng cho biểu đồ doanh thu Admin thay vì GROUP BY DATE_FORMAT trên toàn bộ Bookings / User_Subscriptions.
+-- Sau khi tạo bảng, ứng dụng tự backfill lúc khởi động nếu bảng rỗng (và dựng lại hằng đêm).
+
+-- MySQL:
+CREATE TABLE IF NOT EXISTS `Revenue_Daily` (
+    `id` VARCHAR(36) NOT NULL PRIMARY KEY,
+    `revenue_date` DATE NOT NULL,
+    `source` VARCHAR(20) NOT NULL,
+    `amount` DECIMAL(15,2) NOT NULL DEFAULT 0,
+    UNIQUE KEY `uk_revenue_daily_date_source` (`revenue_date`, `source`)
+);
@@ -0,0 +1,13 @@
+-- Migration: Bộ đếm lượt free session theo chu kỳ gói (User_Subscriptions.free_sessions_used)
+-- thay cho COUNT trên Bookings mỗi lần check giá / đặt lịch. Chỉ cần chạy một lần.
+
+-- MySQL:
+ALTER TABLE `User_Subscriptions` ADD COLUMN `free_sessions_used` INT NOT NULL DEFAULT 0;
+
+-- Backfill từ dữ liệu booking hiện có (cùng điều kiện với job đối soát)
+UPDATE `User_Subscriptions` s SET s.free_sessions_used = (
+    SELECT COUNT(*) FROM `Bookings` b
+    WHERE b.member_id = s.user_id AND b.is_free_session = true
+      AND b.status IN ('PENDING', 'CONFIRMED', 'COMPLETED', 'DONE')
+      AND b.booking_time BETWEEN s.start_date AND s.end_date
+);
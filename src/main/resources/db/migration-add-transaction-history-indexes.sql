@@ -0,0 +1,7 @@
+-- Migration: Index (thời gian, id) cho Bookings và User_Subscriptions
+-- để lịch sử giao dịch admin (UNION ALL + phân trang keyset) đọc theo index thay vì quét toàn bảng.
+-- Chỉ cần chạy một lần.
+
+-- MySQL:
+CREATE INDEX `idx_booking_time_id` ON `Bookings` (`booking_time`, `booking_id`);
+CREATE INDEX `idx_user_sub_start_id` ON `User_Subscriptions` (`start_date`, `subscription_id`);
@@ -0,0 +1,10 @@
+-- Migration: Đặt DEFAULT 0 cho like_count/comment_count của bảng Posts
+-- LƯU Ý:
+-- - Entity Post không còn INSERT/UPDATE 2 cột này (chỉ đổi qua UPDATE ... + :delta), bài mới lấy giá trị DEFAULT.
+-- - Chạy TRƯỚC khi deploy bản mới, nếu không INSERT bài mới sẽ lỗi thiếu giá trị cho cột NOT NULL.
+-- - Chỉ cần chạy một lần.
+
+-- MySQL:
+ALTER TABLE `Posts`
+  MODIFY COLUMN `like_count` INT NOT NULL DEFAULT 0,
+  MODIFY COLUMN `comment_count` INT NOT NULL DEFAULT 0;
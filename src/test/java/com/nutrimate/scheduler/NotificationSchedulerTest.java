@@ -0,0 +1,88 @@
+package com.nutrimate.scheduler;
+
+import com.nutrimate.entity.Notification.NotificationType;
+import com.nutrimate.repository.BookingRepository;
+import com.nutrimate.repository.UserChallengeRepository;
+import com.nutrimate.service.NotificationService;
+import com.nutrimate.service.NotificationService.BatchNotification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class NotificationSchedulerTest {
+
+    private BookingRepository bookingRepository;
+    private NotificationService notificationService;
+    private NotificationScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        notificationService = mock(NotificationService.class);
+        scheduler = new NotificationScheduler(bookingRepository, mock(UserChallengeRepository.class), notificationService);
+    }
+
+    @Test
+    void remindersAreInsertedAndMarkedInChunksOf500() {
+        List<Object[]> rows = upcoming(1_201);
+        when(bookingRepository.findUpcomingToRemind(any(), any())).thenReturn(rows);
+
+        scheduler.remindUpcomingAppointments();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<BatchNotification>> notifications = ArgumentCaptor.forClass(List.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<String>> marked = ArgumentCaptor.forClass(Collection.class);
+        verify(notificationService, times(3)).createAndPushAll(notifications.capture());
+        verify(bookingRepository, times(3)).markRemindedByIdIn(marked.capture());
+
+        assertEquals(List.of(500, 500, 201), notifications.getAllValues().stream().map(List::size).toList());
+        assertEquals(List.of(500, 500, 201), marked.getAllValues().stream().map(Collection::size).toList());
+        // Mỗi lô đánh dấu đúng các booking vừa được nhắc, theo cùng thứ tự
+        List<String> allMarked = marked.getAllValues().stream().flatMap(Collection::stream).toList();
+        assertEquals(rows.stream().map(row -> (String) row[0]).toList(), allMarked);
+
+        BatchNotification first = notifications.getAllValues().get(0).get(0);
+        assertEquals("member-0", first.userId());
+        assertEquals(NotificationType.APPOINTMENT, first.type());
+        assertTrue(first.message().contains("10:30"));
+        // Không còn lookup / gửi lẻ từng booking
+        verify(notificationService, never()).createAndPush(any(), any(), any(), any());
+    }
+
+    @Test
+    void nothingUpcomingWritesNothing() {
+        when(bookingRepository.findUpcomingToRemind(any(), any())).thenReturn(List.of());
+
+        scheduler.remindUpcomingAppointments();
+
+        verify(bookingRepository).findUpcomingToRemind(any(), any());
+        verify(bookingRepository, never()).markRemindedByIdIn(anyList());
+        verifyNoMoreInteractions(notificationService);
+    }
+
+    private static List<Object[]> upcoming(int count) {
+        LocalDateTime time = LocalDateTime.of(2024, 5, 17, 10, 30);
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{"booking-" + i, "member-" + i, time});
+        }
+        return rows;
+    }
+}
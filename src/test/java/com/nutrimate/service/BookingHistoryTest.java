@@ -0,0 +1,111 @@
+package com.nutrimate.service;
+
+import com.nutrimate.dto.BookingPageResponseDTO;
+import com.nutrimate.dto.BookingResponseDTO;
+import com.nutrimate.entity.Booking;
+import com.nutrimate.entity.Booking.BookingStatus;
+import com.nutrimate.entity.ExpertProfile;
+import com.nutrimate.entity.User.UserRole;
+import com.nutrimate.repository.BookingRepository;
+import com.nutrimate.repository.ExpertProfileRepository;
+import com.nutrimate.repository.UserRepository;
+import com.nutrimate.repository.UserSubscriptionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookingHistoryTest {
+
+    private static final String USER_ID = "user-1";
+    private static final String PROFILE_ID = "expert-profile-1";
+
+    private BookingRepository bookingRepository;
+    private ExpertProfileRepository expertProfileRepository;
+    private BookingService bookingService;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        expertProfileRepository = mock(ExpertProfileRepository.class);
+        bookingService = new BookingService(bookingRepository, expertProfileRepository,
+                mock(UserSubscriptionRepository.class), mock(UserRepository.class),
+                mock(DashboardStatsSnapshot.class), mock(RevenueRollupService.class),
+                mock(ExpertAvailabilityCache.class), mock(FreeSessionCounter.class),
+                mock(BookingCleanupService.class), new TransactionTemplate());
+
+        ExpertProfile profile = new ExpertProfile();
+        profile.setId(PROFILE_ID);
+        when(expertProfileRepository.findByUserId(USER_ID)).thenReturn(Optional.of(profile));
+    }
+
+    @Test
+    void expertSeesBookingsAssignedToTheirProfile() {
+        List<Booking> schedule = List.of(new Booking());
+        when(bookingRepository.findExpertBookings(PROFILE_ID)).thenReturn(schedule);
+
+        assertSame(schedule, bookingService.getMyBookings(USER_ID, UserRole.EXPERT));
+        verify(bookingRepository, never()).findMemberBookings(anyString());
+    }
+
+    @Test
+    void memberSeesOwnBookingsEvenWithoutAny() {
+        // Trước đây Member chưa đặt lịch nào bị rơi sang nhánh lịch làm việc Expert
+        when(bookingRepository.findMemberBookings(USER_ID)).thenReturn(List.of());
+
+        assertEquals(List.of(), bookingService.getMyBookings(USER_ID, UserRole.MEMBER));
+        verify(bookingRepository, never()).findExpertBookings(anyString());
+        verify(expertProfileRepository, never()).findByUserId(anyString());
+    }
+
+    @Test
+    void expertWithoutProfileHasEmptyHistory() {
+        when(expertProfileRepository.findByUserId("user-2")).thenReturn(Optional.empty());
+
+        assertEquals(List.of(), bookingService.getMyBookings("user-2", UserRole.EXPERT));
+        BookingPageResponseDTO page = bookingService.getMyBookingsPage("user-2", UserRole.EXPERT, null, 20);
+        assertTrue(page.getItems().isEmpty());
+        assertFalse(page.isHasMore());
+    }
+
+    @Test
+    void pagedHistoryFollowsTheRoleAndIssuesCursorWhileMoreRowsRemain() {
+        LocalDateTime time = LocalDateTime.of(2024, 5, 17, 9, 0);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            rows.add(new Object[]{"b" + i, "m1", "Member", PROFILE_ID, "Expert", time.minusHours(i),
+                    BookingStatus.CONFIRMED, null, null, false, null});
+        }
+        when(bookingRepository.findExpertBookingRows(eq(PROFILE_ID), any(), any(), any(Pageable.class))).thenReturn(rows);
+
+        BookingPageResponseDTO page = bookingService.getMyBookingsPage(USER_ID, UserRole.EXPERT, null, 2);
+
+        assertEquals(List.of("b0", "b1"), page.getItems().stream().map(BookingResponseDTO::getBookingId).toList());
+        assertTrue(page.isHasMore());
+        verify(bookingRepository, never()).findMemberBookingRows(anyString(), any(), any(), any(Pageable.class));
+
+        when(bookingRepository.findMemberBookingRows(eq(USER_ID), any(), any(), any(Pageable.class)))
+                .thenReturn(rows.subList(0, 1));
+        BookingPageResponseDTO memberPage = bookingService.getMyBookingsPage(USER_ID, UserRole.MEMBER, null, 2);
+        assertEquals(1, memberPage.getItems().size());
+        assertNull(memberPage.getNextCursor());
+    }
+}
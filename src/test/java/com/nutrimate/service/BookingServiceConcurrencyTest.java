@@ -0,0 +1,219 @@
+package com.nutrimate.service;
+
+import com.nutrimate.dto.BookingRequestDTO;
+import com.nutrimate.entity.Booking;
+import com.nutrimate.entity.ExpertProfile;
+import com.nutrimate.entity.User;
+import com.nutrimate.exception.BadRequestException;
+import com.nutrimate.repository.BookingRepository;
+import com.nutrimate.repository.ExpertProfileRepository;
+import com.nutrimate.repository.UserRepository;
+import com.nutrimate.repository.UserSubscriptionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Đặt lịch song song: striped lock + existsActiveAt + unique slot, chạy trên repository giả lập trong bộ nhớ
+ * (mỗi truy vấn "DB" tốn ~5 ms để lộ ra việc xếp hàng trên lock).
+ */
+class BookingServiceConcurrencyTest {
+
+    private static final long DB_ROUND_TRIP_MS = 5;
+    private static final LocalDateTime SLOT = LocalDateTime.of(2030, 1, 7, 9, 0);
+
+    private final Set<String> activeSlots = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger existsQueries = new AtomicInteger();
+    private volatile RuntimeException failSave;
+    private BookingRepository bookingRepository;
+    private BookingService bookingService;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = fakeBookingRepository();
+        ExpertProfileRepository expertProfileRepository = mock(ExpertProfileRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        // Chạy callback trực tiếp, không có transaction thật
+        TransactionTemplate transactionTemplate = new TransactionTemplate() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                return action.doInTransaction(null);
+            }
+        };
+
+        when(userRepository.findById(anyString())).thenAnswer(inv -> {
+            User user = new User();
+            user.setId(inv.getArgument(0));
+            return Optional.of(user);
+        });
+        when(expertProfileRepository.findById(anyString())).thenAnswer(inv -> {
+            ExpertProfile profile = new ExpertProfile();
+            profile.setId(inv.getArgument(0));
+            profile.setHourlyRate(new BigDecimal("200000"));
+            return Optional.of(profile);
+        });
+
+        bookingService = new BookingService(bookingRepository, expertProfileRepository,
+                mock(UserSubscriptionRepository.class), userRepository,
+                mock(DashboardStatsSnapshot.class), mock(RevenueRollupService.class),
+                new ExpertAvailabilityCache(bookingRepository, 1000, 600),
+                mock(FreeSessionCounter.class), mock(BookingCleanupService.class),
+                transactionTemplate);
+    }
+
+    @Test
+    void sameSlotIsBookedExactlyOnce() throws Exception {
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            String userId = "member-" + i;
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    bookingService.createBooking(userId, request("expert-1", SLOT));
+                    booked.incrementAndGet();
+                } catch (BadRequestException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(1, booked.get());
+        assertEquals(threads - 1, rejected.get());
+    }
+
+    @Test
+    void cachedBusySlotFailsFastWithoutQueryingDb() {
+        bookingService.getExpertAvailableSlots("expert-1", SLOT.toLocalDate()); // nạp bitmask ngày vào cache
+        bookingService.createBooking("member-1", request("expert-1", SLOT));
+        int queriesBefore = existsQueries.get();
+
+        assertThrows(BadRequestException.class,
+                () -> bookingService.createBooking("member-2", request("expert-1", SLOT)));
+        assertEquals(queriesBefore, existsQueries.get());
+    }
+
+    @Test
+    void otherIntegrityViolationsAreNotReportedAsSlotTaken() {
+        failSave = new DataIntegrityViolationException("could not execute statement",
+                new SQLIntegrityConstraintViolationException("Cannot add or update a child row: a foreign key constraint fails"));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> bookingService.createBooking("member-1", request("expert-1", SLOT)));
+    }
+
+    @Test
+    void distinctExpertsDoNotSerializeOnOneStripe() throws Exception {
+        int threads = 16;
+        int bookingsPerThread = 20;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String expertId = "expert-" + t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < bookingsPerThread; i++) {
+                    bookingService.createBooking("member-" + i, request(expertId, SLOT.plusDays(i)));
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        pool.shutdown();
+
+        int total = threads * bookingsPerThread;
+        assertEquals(total, activeSlots.size());
+        // Mỗi booking tốn 2 round trip: chạy tuần tự hoàn toàn sẽ mất total * 2 ms
+        double serialSeconds = total * 2 * DB_ROUND_TRIP_MS / 1000.0;
+        System.out.printf("createBooking: %d booking / %.2f s = %.0f booking/s (tuần tự ~%.0f booking/s)%n",
+                total, seconds, total / seconds, total / serialSeconds);
+        assertTrue(seconds < serialSeconds, "các expert khác nhau không được xếp hàng chung 1 lock");
+    }
+
+    // Repository giả bằng Proxy (không dùng stub Mockito: Mockito chạy các answer tuần tự, làm sai số đo song song)
+    private BookingRepository fakeBookingRepository() {
+        return (BookingRepository) Proxy.newProxyInstance(BookingRepository.class.getClassLoader(),
+                new Class<?>[]{BookingRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "existsActiveAt" -> {
+                        existsQueries.incrementAndGet();
+                        roundTrip();
+                        yield activeSlots.contains(slotKey((String) args[0], (LocalDateTime) args[1]));
+                    }
+                    case "saveAndFlush" -> {
+                        Booking booking = (Booking) args[0];
+                        roundTrip();
+                        if (failSave != null) {
+                            throw failSave;
+                        }
+                        if (!activeSlots.add(slotKey(booking.getExpert().getId(), booking.getBookingTime()))) {
+                            throw new DataIntegrityViolationException("could not execute statement",
+                                    new SQLIntegrityConstraintViolationException(
+                                            "Duplicate entry for key 'Bookings.uk_booking_expert_active_time'"));
+                        }
+                        yield booking;
+                    }
+                    case "findActiveBookingTimesInRange" -> List.of();
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "FakeBookingRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static BookingRequestDTO request(String expertId, LocalDateTime time) {
+        BookingRequestDTO req = new BookingRequestDTO();
+        req.setExpertId(expertId);
+        req.setBookingTime(time);
+        return req;
+    }
+
+    private static String slotKey(String expertId, LocalDateTime time) {
+        return expertId + "|" + time;
+    }
+
+    private static void roundTrip() throws InterruptedException {
+        Thread.sleep(DB_ROUND_TRIP_MS);
+    }
+}
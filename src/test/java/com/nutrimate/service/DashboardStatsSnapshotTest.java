@@ -0,0 +1,159 @@
+package com.nutrimate.service;
+
+import com.nutrimate.dto.DashboardResponseDTO;
+import com.nutrimate.entity.Booking;
+import com.nutrimate.entity.Booking.BookingStatus;
+import com.nutrimate.repository.BookingRepository;
+import com.nutrimate.repository.SystemFeedbackRepository;
+import com.nutrimate.repository.UserRepository;
+import com.nutrimate.repository.UserSubscriptionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.math.BigDecimal;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DashboardStatsSnapshotTest {
+
+    private UserRepository userRepository;
+    private BookingRepository bookingRepository;
+    private UserSubscriptionRepository subscriptionRepository;
+    private SystemFeedbackRepository feedbackRepository;
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        bookingRepository = mock(BookingRepository.class);
+        subscriptionRepository = mock(UserSubscriptionRepository.class);
+        feedbackRepository = mock(SystemFeedbackRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(bookingRepository.calculateTotalRevenue()).thenReturn(new BigDecimal("500"));
+        when(subscriptionRepository.calculateTotalRevenue()).thenReturn(new BigDecimal("200"));
+        when(bookingRepository.countSuccessfulBookings()).thenReturn(4L);
+        when(subscriptionRepository.countPaidActiveSubscriptions()).thenReturn(2L);
+        when(userRepository.count()).thenReturn(10L);
+        when(feedbackRepository.count()).thenReturn(3L);
+    }
+
+    @Test
+    void reconcileLoadsEveryCounter() {
+        DashboardStatsSnapshot snapshot = snapshot(Runnable::run);
+
+        snapshot.reconcile();
+
+        DashboardResponseDTO dto = snapshot.get();
+        assertEquals(new BigDecimal("700"), dto.getTotalRevenue());
+        assertEquals(6, dto.getTotalTransactions());
+        assertEquals(10, dto.getTotalUsers());
+        assertEquals(3, dto.getTotalFeedbacks());
+        assertFalse(dto.isPartial());
+    }
+
+    @Test
+    void rejectedQueriesReportPartialInsteadOfRunningOnTheCaller() {
+        Executor rejecting = task -> {
+            throw new RejectedExecutionException("full");
+        };
+        DashboardStatsSnapshot snapshot = snapshot(rejecting);
+
+        snapshot.reconcile();
+
+        assertTrue(snapshot.get().isPartial());
+        verify(userRepository, never()).count();
+    }
+
+    @Test
+    void eachQueryRunsInAReadOnlyTransactionWithAStatementTimeout() {
+        snapshot(Runnable::run).reconcile();
+
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, atLeastOnce()).getTransaction(definition.capture());
+        assertTrue(definition.getValue().isReadOnly());
+        assertEquals(3, definition.getValue().getTimeout()); // 2500ms làm tròn lên theo giây
+    }
+
+    @Test
+    void deltaCommittedAfterTheQuerySnapshotIsAddedOnTop() {
+        DashboardStatsSnapshot snapshot = snapshot(Runnable::run);
+        snapshot.reconcile();
+        when(userRepository.count()).thenAnswer(inv -> {
+            snapshot.onUserCreated(); // commit trong lúc aggregate đang chạy, snapshot chưa thấy
+            return 10L;
+        });
+
+        snapshot.reconcile();
+
+        assertEquals(11, snapshot.get().getTotalUsers());
+    }
+
+    @Test
+    void deltaCommittedBeforeTheQuerySnapshotIsNotCountedTwice() {
+        DashboardStatsSnapshot snapshot = snapshot(Runnable::run);
+        snapshot.reconcile();
+        AtomicBoolean committed = new AtomicBoolean();
+        when(userRepository.existsById("")).thenAnswer(inv -> {
+            if (committed.compareAndSet(false, true)) {
+                snapshot.onUserCreated(); // commit trước khi câu đếm user chốt snapshot -> đã nằm trong kết quả count
+            }
+            return false;
+        });
+        when(userRepository.count()).thenReturn(11L);
+
+        snapshot.reconcile();
+
+        assertEquals(11, snapshot.get().getTotalUsers());
+    }
+
+    @Test
+    void bookingStatusChangeAppliesRevenueAndTransactionDeltas() {
+        DashboardStatsSnapshot snapshot = snapshot(Runnable::run);
+        snapshot.reconcile();
+        Booking booking = new Booking();
+        booking.setFinalPrice(new BigDecimal("150"));
+        booking.setOrderCode(123L);
+        booking.setStatus(BookingStatus.CONFIRMED);
+
+        snapshot.onBookingStatusChanged(booking, BookingStatus.PENDING);
+
+        DashboardResponseDTO dto = snapshot.get();
+        assertEquals(new BigDecimal("850"), dto.getTotalRevenue());
+        assertEquals(7, dto.getTotalTransactions());
+
+        booking.setStatus(BookingStatus.CANCELLED);
+        snapshot.onBookingStatusChanged(booking, BookingStatus.CONFIRMED);
+        assertEquals(new BigDecimal("700"), snapshot.get().getTotalRevenue());
+    }
+
+    @Test
+    void reconcileReplacesDriftedCounters() {
+        DashboardStatsSnapshot snapshot = snapshot(Runnable::run);
+        snapshot.reconcile();
+        snapshot.onSystemFeedbackCreated();
+        assertEquals(4, snapshot.get().getTotalFeedbacks());
+
+        when(feedbackRepository.count()).thenReturn(2L); // feedback bị xóa tay trong DB
+        snapshot.reconcile();
+
+        assertEquals(2, snapshot.get().getTotalFeedbacks());
+    }
+
+    private DashboardStatsSnapshot snapshot(Executor executor) {
+        return new DashboardStatsSnapshot(userRepository, bookingRepository, subscriptionRepository,
+                feedbackRepository, executor, transactionManager, 2500, 0);
+    }
+}
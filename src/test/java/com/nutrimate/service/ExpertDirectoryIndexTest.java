@@ -0,0 +1,135 @@
+package com.nutrimate.service;
+
+import com.nutrimate.entity.ExpertProfile;
+import com.nutrimate.entity.ExpertProfile.ApprovalStatus;
+import com.nutrimate.repository.ExpertProfileRepository;
+import com.nutrimate.service.ExpertDirectoryIndex.SearchResult;
+import com.nutrimate.service.ExpertDirectoryIndex.SortBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExpertDirectoryIndexTest {
+
+    private ExpertProfileRepository repository;
+    private ExpertDirectoryIndex index;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ExpertProfileRepository.class);
+        when(repository.findByStatus(ApprovalStatus.APPROVED)).thenReturn(approvedExperts());
+        index = new ExpertDirectoryIndex(repository);
+        index.reload();
+    }
+
+    @Test
+    void sortsByRatingDescendingWithUnratedLast() {
+        assertEquals(List.of("e1", "e2", "e5", "e3", "e4"), ids(search(null, null, null, null, null, SortBy.RATING)));
+    }
+
+    @Test
+    void sortsByPriceAscendingWithUnpricedLast() {
+        assertEquals(List.of("e2", "e4", "e1", "e3", "e5"), ids(search(null, null, null, null, null, SortBy.PRICE)));
+    }
+
+    @Test
+    void ratingRangeCutsExcludeUnratedExperts() {
+        assertEquals(List.of("e1", "e2", "e5"), ids(search(4.0f, null, null, null, null, SortBy.RATING)));
+        assertEquals(List.of("e2", "e5", "e3"), ids(search(null, 4.5f, null, null, null, SortBy.RATING)));
+        assertEquals(List.of("e2", "e5"), ids(search(4.0f, 4.5f, null, null, null, SortBy.RATING)));
+    }
+
+    @Test
+    void priceRangeCutsExcludeUnpricedExperts() {
+        assertEquals(List.of("e4", "e1", "e3"), ids(search(null, null, price(200_000), null, null, SortBy.PRICE)));
+        assertEquals(List.of("e2", "e4"), ids(search(null, null, null, price(200_000), null, SortBy.PRICE)));
+        assertEquals(List.of("e4", "e1"), ids(search(null, null, price(200_000), price(300_000), null, SortBy.PRICE)));
+    }
+
+    @Test
+    void secondaryFiltersApplyOnTheOtherKey() {
+        assertEquals(List.of("e2", "e4"), ids(search(null, null, null, price(250_000), null, SortBy.RATING)));
+        assertEquals(List.of("e2", "e1", "e5"), ids(search(4.0f, null, null, null, null, SortBy.PRICE)));
+    }
+
+    @Test
+    void specializationMatchesWithoutDiacritics() {
+        assertEquals(List.of("e2", "e4"), ids(search(null, null, null, null, "giam can", SortBy.RATING)));
+        assertEquals(List.of("e1", "e5"), ids(search(null, null, null, null, "  DINH DUONG ", SortBy.RATING)));
+    }
+
+    @Test
+    void paginatesAndReportsTotalOfFilteredRange() {
+        SearchResult page = index.search(null, null, null, null, null, SortBy.RATING, 1, 2);
+        assertEquals(List.of("e5", "e3"), ids(page));
+        assertEquals(5, page.totalItems());
+
+        SearchResult filtered = index.search(4.0f, null, null, null, null, SortBy.RATING, 1, 2);
+        assertEquals(List.of("e5"), ids(filtered));
+        assertEquals(3, filtered.totalItems());
+
+        assertEquals(List.of(), ids(index.search(null, null, null, null, null, SortBy.RATING, 5, 2)));
+    }
+
+    @Test
+    void profileChangesUpdateTheSnapshot() {
+        ExpertProfile rejected = expert("e1", 4.8f, 300_000, "Dinh dưỡng thể thao");
+        rejected.setStatus(ApprovalStatus.REJECTED);
+        index.onProfileChanged(rejected);
+        index.onProfileChanged(expert("e6", 5.0f, 100_000, "Ăn chay"));
+
+        assertEquals(List.of("e6", "e2", "e5", "e3", "e4"), ids(search(null, null, null, null, null, SortBy.RATING)));
+        assertEquals(List.of("e6", "e2", "e4", "e3", "e5"), ids(search(null, null, null, null, null, SortBy.PRICE)));
+    }
+
+    @Test
+    void changesAppliedDuringReloadSurviveTheSwap() {
+        when(repository.findByStatus(ApprovalStatus.APPROVED)).thenAnswer(inv -> {
+            // Expert được duyệt và commit trong lúc reload đang query (kết quả query chưa thấy)
+            index.onProfileChanged(expert("e6", 5.0f, 100_000, "Ăn chay"));
+            return approvedExperts();
+        });
+
+        index.reload();
+
+        assertEquals(List.of("e6", "e1", "e2", "e5", "e3", "e4"), ids(search(null, null, null, null, null, SortBy.RATING)));
+    }
+
+    private SearchResult search(Float minRating, Float maxRating, BigDecimal minPrice, BigDecimal maxPrice,
+                                String specialization, SortBy sortBy) {
+        return index.search(minRating, maxRating, minPrice, maxPrice, specialization, sortBy, 0, 20);
+    }
+
+    private static List<String> ids(SearchResult result) {
+        return result.items().stream().map(ExpertProfile::getId).toList();
+    }
+
+    private static BigDecimal price(long value) {
+        return BigDecimal.valueOf(value);
+    }
+
+    private static List<ExpertProfile> approvedExperts() {
+        return List.of(
+                expert("e1", 4.8f, 300_000, "Dinh dưỡng thể thao"),
+                expert("e2", 4.2f, 150_000, "Giảm cân"),
+                expert("e3", 3.5f, 500_000, "Tiểu đường"),
+                expert("e4", null, 200_000, "Giảm cân sau sinh"),
+                expert("e5", 4.2f, null, "Dinh dưỡng trẻ em"));
+    }
+
+    private static ExpertProfile expert(String id, Float rating, Integer hourlyRate, String specialization) {
+        ExpertProfile profile = new ExpertProfile();
+        profile.setId(id);
+        profile.setRating(rating);
+        profile.setHourlyRate(hourlyRate != null ? BigDecimal.valueOf(hourlyRate) : null);
+        profile.setSpecialization(specialization);
+        profile.setStatus(ApprovalStatus.APPROVED);
+        return profile;
+    }
+}
@@ -0,0 +1,66 @@
+package com.nutrimate.service;
+
+import com.nutrimate.entity.ExpertProfile;
+import com.nutrimate.entity.User;
+import com.nutrimate.repository.ExpertProfileRepository;
+import com.nutrimate.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Câu UPDATE addRating dựa vào thứ tự gán trái -> phải của MySQL (rating tính từ tổng cũ + điểm mới).
+ * Kiểm tra trên MySQL thật, rollback sau mỗi test. Cần MySQL thật giống NutrimateApplicationTests.
+ */
+@SpringBootTest
+@Transactional
+class ExpertRatingTotalsTest {
+
+    @Autowired
+    private ExpertProfileRepository expertProfileRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void addRatingKeepsSumCountAndAverageInStep() {
+        String expertId = newExpert(3.0f);
+
+        expertProfileRepository.addRating(expertId, 5);
+        expertProfileRepository.addRating(expertId, 4);
+
+        Object[] totals = expertProfileRepository.findRatingTotals(expertId).get(0);
+        assertEquals(9L, ((Number) totals[0]).longValue());
+        assertEquals(2L, ((Number) totals[1]).longValue());
+        assertEquals(4.5f, expertProfileRepository.findById(expertId).orElseThrow().getRating(), 1e-6);
+    }
+
+    @Test
+    void entitySaveDoesNotOverwriteTotals() {
+        String expertId = newExpert(null);
+        expertProfileRepository.addRating(expertId, 2);
+
+        ExpertProfile profile = expertProfileRepository.findById(expertId).orElseThrow();
+        profile.setBio("Cập nhật hồ sơ");
+        expertProfileRepository.saveAndFlush(profile);
+
+        List<Object[]> totals = expertProfileRepository.findRatingTotals(expertId);
+        assertEquals(2L, ((Number) totals.get(0)[0]).longValue());
+        assertEquals(1L, ((Number) totals.get(0)[1]).longValue());
+    }
+
+    private String newExpert(Float rating) {
+        User user = new User();
+        user.setEmail("expert-" + UUID.randomUUID() + "@rating-test.local");
+        user.setFullName("Expert rating test");
+        ExpertProfile profile = new ExpertProfile();
+        profile.setUser(userRepository.save(user));
+        profile.setRating(rating);
+        return expertProfileRepository.saveAndFlush(profile).getId();
+    }
+}
@@ -0,0 +1,134 @@
+package com.nutrimate.service;
+
+import com.nutrimate.dto.FeedbackCreateRequest;
+import com.nutrimate.entity.Booking;
+import com.nutrimate.entity.Booking.BookingStatus;
+import com.nutrimate.entity.ExpertProfile;
+import com.nutrimate.entity.User;
+import com.nutrimate.exception.BadRequestException;
+import com.nutrimate.repository.BookingRepository;
+import com.nutrimate.repository.ExpertProfileRepository;
+import com.nutrimate.repository.FeedbackRepository;
+import com.nutrimate.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FeedbackServiceRatingTest {
+
+    private static final String MEMBER_ID = "member-1";
+    private static final String EXPERT_ID = "expert-1";
+
+    private FeedbackRepository feedbackRepository;
+    private BookingRepository bookingRepository;
+    private ExpertProfileRepository expertProfileRepository;
+    private ExpertDirectoryIndex expertDirectoryIndex;
+    private FeedbackService feedbackService;
+    private Booking booking;
+
+    @BeforeEach
+    void setUp() {
+        feedbackRepository = mock(FeedbackRepository.class);
+        bookingRepository = mock(BookingRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        expertProfileRepository = mock(ExpertProfileRepository.class);
+        expertDirectoryIndex = mock(ExpertDirectoryIndex.class);
+        feedbackService = new FeedbackService(feedbackRepository, bookingRepository, userRepository,
+                expertProfileRepository, expertDirectoryIndex);
+
+        User member = new User();
+        member.setId(MEMBER_ID);
+        ExpertProfile expert = new ExpertProfile();
+        expert.setId(EXPERT_ID);
+        booking = new Booking();
+        booking.setId("booking-1");
+        booking.setMember(member);
+        booking.setExpert(expert);
+        booking.setStatus(BookingStatus.COMPLETED);
+
+        when(userRepository.findById(MEMBER_ID)).thenReturn(Optional.of(member));
+        when(bookingRepository.findById("booking-1")).thenReturn(Optional.of(booking));
+        when(feedbackRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void feedbackAddsItsScoreAtomicallyThenRefreshesTheDirectory() {
+        ExpertProfile refreshed = new ExpertProfile();
+        refreshed.setId(EXPERT_ID);
+        refreshed.setRating(4.5f);
+        when(expertProfileRepository.findById(EXPERT_ID)).thenReturn(Optional.of(refreshed));
+
+        feedbackService.createFeedback(MEMBER_ID, request(4));
+
+        var order = inOrder(feedbackRepository, expertProfileRepository, expertDirectoryIndex);
+        order.verify(feedbackRepository).save(any());
+        order.verify(expertProfileRepository).addRating(EXPERT_ID, 4);
+        // Danh bạ nhận hồ sơ đọc lại sau UPDATE (rating mới), không phải entity cũ gắn trên booking
+        order.verify(expertDirectoryIndex).onProfileChanged(refreshed);
+    }
+
+    @Test
+    void rejectedFeedbackLeavesTotalsUntouched() {
+        assertThrows(BadRequestException.class, () -> feedbackService.createFeedback(MEMBER_ID, request(6)));
+
+        when(feedbackRepository.existsByBookingId("booking-1")).thenReturn(true);
+        assertThrows(BadRequestException.class, () -> feedbackService.createFeedback(MEMBER_ID, request(5)));
+
+        booking.setStatus(BookingStatus.CONFIRMED);
+        when(feedbackRepository.existsByBookingId("booking-1")).thenReturn(false);
+        assertThrows(BadRequestException.class, () -> feedbackService.createFeedback(MEMBER_ID, request(5)));
+
+        verify(expertProfileRepository, never()).addRating(anyString(), anyInt());
+    }
+
+    @Test
+    void summaryComesFromDenormalizedTotals() {
+        when(feedbackRepository.findByExpertId(eq(EXPERT_ID), any(Pageable.class))).thenReturn(List.of());
+        when(expertProfileRepository.findRatingTotals(EXPERT_ID))
+                .thenReturn(Collections.singletonList(new Object[]{23L, 5}));
+
+        Map<String, Object> response = feedbackService.getExpertFeedbacks(EXPERT_ID, 0, 2);
+
+        assertEquals(4.6, response.get("averageRating")); // 23 / 5 = 4.6
+        assertEquals(5L, response.get("totalReviews"));
+        assertEquals(5L, response.get("totalItems"));
+        assertEquals(3, response.get("totalPages"));
+    }
+
+    @Test
+    void expertWithoutFeedbackHasZeroSummary() {
+        when(feedbackRepository.findByExpertId(eq(EXPERT_ID), any(Pageable.class))).thenReturn(List.of());
+        when(expertProfileRepository.findRatingTotals(EXPERT_ID)).thenReturn(List.of());
+
+        Map<String, Object> response = feedbackService.getExpertFeedbacks(EXPERT_ID, 0, 10);
+
+        assertEquals(0.0, response.get("averageRating"));
+        assertEquals(0L, response.get("totalReviews"));
+        assertEquals(0, response.get("totalPages"));
+    }
+
+    private static FeedbackCreateRequest request(int rating) {
+        FeedbackCreateRequest req = new FeedbackCreateRequest();
+        req.setBookingId("booking-1");
+        req.setRating(rating);
+        req.setComment("Tư vấn rất kỹ");
+        return req;
+    }
+}
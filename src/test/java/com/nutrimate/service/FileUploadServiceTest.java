@@ -0,0 +1,66 @@
+package com.nutrimate.service;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.Uploader;
+import com.nutrimate.service.FileUploadService.UploadedAsset;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FileUploadServiceTest {
+
+    @Test
+    void parsesPublicIdAndResourceTypeFromDeliveryUrl() {
+        UploadedAsset image = FileUploadService.parseAssetUrl(
+                "http://res.cloudinary.com/demo/image/upload/v1712345678/abc123.jpg");
+        assertEquals("abc123", image.publicId());
+        assertEquals("image", image.resourceType());
+
+        UploadedAsset video = FileUploadService.parseAssetUrl(
+                "https://res.cloudinary.com/demo/video/upload/c_scale,w_640/v17/forum/clip.v2.mp4");
+        assertEquals("forum/clip.v2", video.publicId());
+        assertEquals("video", video.resourceType());
+    }
+
+    @Test
+    void ignoresUrlsThatAreNotCloudinaryUploads() {
+        assertNull(FileUploadService.parseAssetUrl(null));
+        assertNull(FileUploadService.parseAssetUrl(" "));
+        assertNull(FileUploadService.parseAssetUrl("https://example.com/avatar.png"));
+    }
+
+    @Test
+    void deleteMediaDestroysBothAssetsAndSwallowsErrors() throws Exception {
+        Cloudinary cloudinary = mock(Cloudinary.class);
+        Uploader uploader = mock(Uploader.class);
+        when(cloudinary.uploader()).thenReturn(uploader);
+        when(uploader.destroy(anyString(), anyMap())).thenThrow(new RuntimeException("timeout"));
+        FileUploadService service = new FileUploadService(cloudinary, Runnable::run);
+
+        service.deleteMedia(new FileUploadService.UploadedMedia(
+                "http://res.cloudinary.com/demo/image/upload/v1/img.png",
+                "http://res.cloudinary.com/demo/video/upload/v1/vid.mp4"));
+
+        verify(uploader).destroy("img", Map.of("resource_type", "image"));
+        verify(uploader).destroy("vid", Map.of("resource_type", "video"));
+    }
+
+    @Test
+    void deleteUrlsSkipsMissingUrls() throws Exception {
+        Cloudinary cloudinary = mock(Cloudinary.class);
+        FileUploadService service = new FileUploadService(cloudinary, Runnable::run);
+
+        service.deleteUrls(null, null);
+
+        verify(cloudinary, never()).uploader();
+    }
+}
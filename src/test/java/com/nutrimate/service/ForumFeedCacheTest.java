@@ -0,0 +1,70 @@
+package com.nutrimate.service;
+
+import com.nutrimate.dto.ForumDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ForumFeedCacheTest {
+
+    @Test
+    void adjustCountsReplacesThePostWithoutMutatingTheSharedCopy() {
+        ForumFeedCache cache = new ForumFeedCache(60);
+        ForumFeedCache.Snapshot loaded = cache.getOrLoad(() -> snapshot(post("p1", 2, 1), post("p2", 0, 0)));
+        ForumDTO.PostResponse shared = loaded.posts().get(0);
+
+        cache.adjustCounts("p1", 1, -1);
+
+        // Bản đang được request khác đọc không đổi
+        assertEquals(2, shared.getLikeCount());
+        assertEquals(1, shared.getCommentCount());
+        ForumDTO.PostResponse updated = cache.getOrLoad(() -> snapshot()).posts().get(0);
+        assertEquals(3, updated.getLikeCount());
+        assertEquals(0, updated.getCommentCount());
+    }
+
+    @Test
+    void countsNeverGoNegativeAndUnknownPostsAreIgnored() {
+        ForumFeedCache cache = new ForumFeedCache(60);
+        cache.getOrLoad(() -> snapshot(post("p1", 0, 0)));
+
+        cache.adjustCounts("p1", -1, -1);
+        cache.adjustCounts("missing", 5, 5);
+
+        ForumDTO.PostResponse post = cache.getOrLoad(() -> snapshot()).posts().get(0);
+        assertEquals(0, post.getLikeCount());
+        assertEquals(0, post.getCommentCount());
+    }
+
+    @Test
+    void invalidateDuringLoadDoesNotStoreTheStaleSnapshot() {
+        ForumFeedCache cache = new ForumFeedCache(60);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getOrLoad(() -> {
+            loads.incrementAndGet();
+            cache.invalidate(); // bài mới commit trong lúc đang nạp
+            return snapshot(post("old", 0, 0));
+        });
+        ForumFeedCache.Snapshot next = cache.getOrLoad(() -> {
+            loads.incrementAndGet();
+            return snapshot(post("new", 0, 0));
+        });
+
+        assertEquals(2, loads.get());
+        assertEquals("new", next.posts().get(0).getPostId());
+        assertSame(next, cache.getOrLoad(() -> snapshot()));
+    }
+
+    private static ForumFeedCache.Snapshot snapshot(ForumDTO.PostResponse... posts) {
+        return new ForumFeedCache.Snapshot(List.of(posts), posts.length, System.currentTimeMillis());
+    }
+
+    private static ForumDTO.PostResponse post(String id, int likes, int comments) {
+        return ForumDTO.PostResponse.builder().postId(id).likeCount(likes).commentCount(comments).build();
+    }
+}
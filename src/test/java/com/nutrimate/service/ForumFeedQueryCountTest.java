@@ -0,0 +1,124 @@
+package com.nutrimate.service;
+
+import com.nutrimate.dto.ForumDTO;
+import com.nutrimate.entity.Post;
+import com.nutrimate.entity.PostLike;
+import com.nutrimate.entity.User;
+import com.nutrimate.repository.PostLikeRepository;
+import com.nutrimate.repository.PostRepository;
+import com.nutrimate.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Số câu SQL mỗi trang newsfeed phải cố định, không phụ thuộc số bài / số tác giả trong trang.
+ * Fail nếu quay lại kiểu mỗi bài 1 query existsByUserIdAndPostId hoặc load tác giả lazy (N+1).
+ * Cần MySQL thật giống NutrimateApplicationTests.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ForumFeedQueryCountTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    @Autowired
+    private ForumService forumService;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private PostLikeRepository likeRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private final List<User> authors = new ArrayList<>();
+    private final List<Post> posts = new ArrayList<>();
+    private User reader;
+
+    @BeforeEach
+    void seed() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        reader = userRepository.save(user("reader"));
+        // Mỗi bài 1 tác giả khác nhau: load tác giả lazy sẽ thành N query
+        for (int i = 0; i < PAGE_SIZE * 3; i++) {
+            User author = userRepository.save(user("author-" + i));
+            authors.add(author);
+            Post post = new Post();
+            post.setUser(author);
+            post.setContent("feed query count " + i);
+            posts.add(postRepository.save(post));
+            if (i % 2 == 0) {
+                PostLike like = new PostLike();
+                like.setPost(post);
+                like.setUser(reader);
+                likeRepository.save(like);
+            }
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        postRepository.deleteAll(posts); // cascade Post_Likes
+        userRepository.deleteAll(authors);
+        userRepository.delete(reader);
+    }
+
+    @Test
+    void offsetPageRunsFeedCountAndLikeQueriesOnly() {
+        statistics.clear();
+
+        Page<ForumDTO.PostResponse> page = forumService.getNewsFeed(reader.getId(), PageRequest.of(1, PAGE_SIZE));
+
+        assertEquals(PAGE_SIZE, page.getContent().size());
+        // 1 (post + tác giả) + 1 (count) + 1 (like của user cho cả trang)
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void cursorPageRunsFeedAndLikeQueriesOnly() {
+        ForumDTO.FeedPageResponse first = forumService.getNewsFeedByCursor(reader.getId(), null, PAGE_SIZE);
+        statistics.clear();
+
+        ForumDTO.FeedPageResponse next = forumService.getNewsFeedByCursor(reader.getId(), first.getNextCursor(), PAGE_SIZE);
+
+        assertEquals(PAGE_SIZE, next.getItems().size());
+        // 1 (post + tác giả, không COUNT) + 1 (like)
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void cachedFirstPageRunsOnlyTheLikeQuery() {
+        forumService.getNewsFeed(null, PageRequest.of(0, PAGE_SIZE)); // nạp snapshot dùng chung
+        statistics.clear();
+
+        forumService.getNewsFeed(reader.getId(), PageRequest.of(0, PAGE_SIZE));
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        forumService.getNewsFeed(null, PageRequest.of(0, PAGE_SIZE));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    private static User user(String prefix) {
+        User user = new User();
+        String suffix = UUID.randomUUID().toString();
+        user.setEmail(prefix + "-" + suffix + "@feed-test.local");
+        user.setFullName(prefix);
+        return user;
+    }
+}
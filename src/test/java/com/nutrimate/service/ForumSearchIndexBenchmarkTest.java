@@ -0,0 +1,172 @@
+package com.nutrimate.service;
+
+import com.nutrimate.repository.CommentRepository;
+import com.nutrimate.repository.PostRepository;
+import com.nutrimate.util.TextNormalizer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Benchmark tìm kiếm forum trên corpus sinh ngẫu nhiên (tiếng Việt có dấu, tần suất từ theo Zipf):
+ * đo thời gian build index và độ trễ search (xếp hạng liên quan + độ mới, top 20), kiểm tra p95 trong ngân sách.
+ * In kèm độ trễ quét tuần tự contains() trên nội dung đã bỏ dấu sẵn trong RAM - mức sàn của LIKE '%...%'
+ * (LIKE thật còn đọc TEXT từ đĩa, không bỏ dấu và không xếp hạng).
+ * <p>
+ * Không cần DB: {@code mvn test -Pbenchmark -Dtest=ForumSearchIndexBenchmarkTest}.
+ * Kích thước corpus chỉnh bằng -Dbenchmark.forum.posts / -Dbenchmark.forum.comments,
+ * ngân sách p95 bằng -Dbenchmark.forum.p95-budget-ms (mặc định 50).
+ */
+@Tag("benchmark")
+class ForumSearchIndexBenchmarkTest {
+
+    // Từ vựng sinh từ phụ âm đầu + vần có dấu, tần suất theo phân phối Zipf như văn bản thật
+    private static final String[] ONSETS = {"b", "c", "ch", "d", "đ", "g", "gi", "h", "kh", "l", "m", "n", "ng", "nh",
+            "ph", "qu", "r", "s", "t", "th", "tr", "v", "x"};
+    private static final String[] RHYMES = {"a", "á", "à", "ả", "ã", "ạ", "an", "ang", "anh", "ao", "ăn", "âm", "e", "é",
+            "em", "en", "ê", "ết", "i", "ình", "o", "ó", "ồ", "ông", "ơ", "ớt", "u", "ú", "ùng", "ưa", "ước", "ương",
+            "y", "ay", "ấy", "oai", "uôi", "iên", "iếu"};
+    private static final int VOCABULARY_SIZE = 20_000;
+    private static final int WORDS_PER_TEXT = 14;
+    private static final int QUERIES = 200;
+
+    @Test
+    void searchLatencyStaysWithinBudget() {
+        int postCount = Integer.getInteger("benchmark.forum.posts", 50_000);
+        int commentCount = Integer.getInteger("benchmark.forum.comments", 150_000);
+        Random random = new Random(42);
+        vocabulary = buildVocabulary(random);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Object[]> posts = new ArrayList<>(postCount);
+        for (int i = 0; i < postCount; i++) {
+            posts.add(new Object[]{String.format("p%08d", i), text(random), now.minusMinutes(random.nextInt(500_000))});
+        }
+        List<Object[]> comments = new ArrayList<>(commentCount);
+        for (int i = 0; i < commentCount; i++) {
+            comments.add(new Object[]{String.format("c%08d", i), posts.get(random.nextInt(postCount))[0], text(random)});
+        }
+
+        PostRepository postRepository = mock(PostRepository.class);
+        CommentRepository commentRepository = mock(CommentRepository.class);
+        when(postRepository.findSearchRowsAfter(anyString(), any(Pageable.class)))
+                .thenAnswer(inv -> chunkAfter(posts, inv.getArgument(0), inv.getArgument(1)));
+        when(commentRepository.findSearchRowsAfter(anyString(), any(Pageable.class)))
+                .thenAnswer(inv -> chunkAfter(comments, inv.getArgument(0), inv.getArgument(1)));
+        ForumSearchIndex index = new ForumSearchIndex(postRepository, commentRepository);
+
+        long buildStart = System.nanoTime();
+        index.rebuild();
+        System.out.printf("[benchmark] build index %,d posts + %,d comments: %d ms%n",
+                postCount, commentCount, (System.nanoTime() - buildStart) / 1_000_000);
+
+        // Baseline: nội dung đã bỏ dấu sẵn, mỗi query quét contains() toàn bộ
+        List<String> folded = new ArrayList<>(postCount + commentCount);
+        posts.forEach(row -> folded.add(TextNormalizer.fold((String) row[1])));
+        comments.forEach(row -> folded.add(TextNormalizer.fold((String) row[2])));
+
+        List<String> queries = new ArrayList<>(QUERIES);
+        for (int i = 0; i < QUERIES; i++) {
+            queries.add(word(random) + " " + word(random));
+        }
+
+        long[] indexed = latencies(queries, q -> index.search(q, 20).size());
+        long[] scanned = latencies(queries, q -> {
+            String needle = TextNormalizer.fold(q);
+            int hits = 0;
+            for (String content : folded) {
+                if (content.contains(needle)) hits++;
+            }
+            return hits;
+        });
+        System.out.printf("[benchmark] search p50/p95: index = %.2f/%.2f ms, sequential scan = %.2f/%.2f ms%n",
+                millis(indexed, 0.50), millis(indexed, 0.95), millis(scanned, 0.50), millis(scanned, 0.95));
+
+        double budget = Double.parseDouble(System.getProperty("benchmark.forum.p95-budget-ms", "50"));
+        assertTrue(millis(indexed, 0.95) <= budget,
+                "index p95 " + millis(indexed, 0.95) + "ms vượt ngân sách " + budget + "ms");
+    }
+
+    private static long[] latencies(List<String> queries, ToIntFunction<String> search) {
+        for (int i = 0; i < 20; i++) { // warm-up
+            search.applyAsInt(queries.get(i));
+        }
+        long[] nanos = new long[queries.size()];
+        for (int i = 0; i < queries.size(); i++) {
+            long start = System.nanoTime();
+            search.applyAsInt(queries.get(i));
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private static double millis(long[] sortedNanos, double percentile) {
+        return sortedNanos[(int) Math.ceil(sortedNanos.length * percentile) - 1] / 1_000_000.0;
+    }
+
+    // Giả lập keyset chunk "id > afterId ORDER BY id" trên danh sách đã sắp theo id
+    private static List<Object[]> chunkAfter(List<Object[]> rows, String afterId, Pageable pageable) {
+        int from = 0;
+        if (!afterId.isEmpty()) {
+            int low = 0;
+            int high = rows.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (((String) rows.get(mid)[0]).compareTo(afterId) <= 0) low = mid + 1;
+                else high = mid;
+            }
+            from = low;
+        }
+        return rows.subList(from, Math.min(rows.size(), from + pageable.getPageSize()));
+    }
+
+    private String text(Random random) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < WORDS_PER_TEXT; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(word(random));
+        }
+        return sb.toString();
+    }
+
+    private String[] vocabulary;
+    private double[] cumulative;
+
+    private String[] buildVocabulary(Random random) {
+        Set<String> words = new LinkedHashSet<>();
+        while (words.size() < VOCABULARY_SIZE) {
+            String syllable = ONSETS[random.nextInt(ONSETS.length)] + RHYMES[random.nextInt(RHYMES.length)];
+            words.add(random.nextInt(3) == 0 ? syllable
+                    : syllable + ONSETS[random.nextInt(ONSETS.length)] + RHYMES[random.nextInt(RHYMES.length)]);
+        }
+        cumulative = new double[VOCABULARY_SIZE];
+        double sum = 0;
+        for (int rank = 0; rank < VOCABULARY_SIZE; rank++) {
+            sum += 1.0 / (rank + 1);
+            cumulative[rank] = sum;
+        }
+        return words.toArray(String[]::new);
+    }
+
+    private String word(Random random) {
+        double target = random.nextDouble() * cumulative[cumulative.length - 1];
+        int rank = Arrays.binarySearch(cumulative, target);
+        return vocabulary[rank >= 0 ? rank : Math.min(-rank - 1, vocabulary.length - 1)];
+    }
+}
@@ -0,0 +1,89 @@
+package com.nutrimate.service;
+
+import com.nutrimate.repository.CommentRepository;
+import com.nutrimate.repository.PostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ForumSearchIndexTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    private PostRepository postRepository;
+    private CommentRepository commentRepository;
+    private ForumSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        postRepository = mock(PostRepository.class);
+        commentRepository = mock(CommentRepository.class);
+        when(postRepository.findSearchRowsAfter(eq(""), any(Pageable.class))).thenReturn(List.of(
+                post("p1", "Bữa sáng yến mạch chuối", NOW.minusDays(1)),
+                post("p2", "Salad ức gà cho người giảm cân", NOW.minusDays(90)),
+                post("p3", ForumService.HIDDEN_CONTENT, NOW)));
+        when(postRepository.findSearchRowsAfter(eq("p3"), any(Pageable.class))).thenReturn(List.of());
+        when(commentRepository.findSearchRowsAfter(eq(""), any(Pageable.class))).thenReturn(List.<Object[]>of(
+                new Object[]{"c1", "p2", "Thêm yến mạch cũng ngon"}));
+        when(commentRepository.findSearchRowsAfter(eq("c1"), any(Pageable.class))).thenReturn(List.of());
+        index = new ForumSearchIndex(postRepository, commentRepository);
+        index.rebuild();
+    }
+
+    @Test
+    void postContentOutranksCommentsAndIgnoresDiacritics() {
+        assertEquals(List.of("p1", "p2"), index.search("yen mach", 10));
+        assertEquals(List.of("p2"), index.search("UC GA", 10));
+    }
+
+    @Test
+    void hiddenAndRemovedPostsAreNotReturned() {
+        index.hidePost("p1");
+        assertEquals(List.of("p2"), index.search("yến mạch", 10));
+
+        index.removeComment("c1");
+        assertEquals(List.of(), index.search("yến mạch", 10));
+    }
+
+    @Test
+    void searchServesTheOldIndexWhileRebuilding() {
+        List<List<String>> seenDuringRebuild = new ArrayList<>();
+        when(commentRepository.findSearchRowsAfter(eq(""), any(Pageable.class))).thenAnswer(inv -> {
+            seenDuringRebuild.add(index.search("salad", 10));
+            return List.of();
+        });
+
+        index.rebuild();
+
+        assertEquals(List.of(List.of("p2")), seenDuringRebuild);
+    }
+
+    @Test
+    void changesAppliedDuringRebuildSurviveTheSwap() {
+        when(commentRepository.findSearchRowsAfter(eq(""), any(Pageable.class))).thenAnswer(inv -> {
+            // Commit trong lúc rebuild đang quét (kết quả quét chưa thấy)
+            index.indexPost("p4", "Sinh tố bơ", NOW);
+            index.removePost("p2");
+            return List.of();
+        });
+
+        index.rebuild();
+
+        assertEquals(List.of("p4"), index.search("sinh to bo", 10));
+        assertEquals(List.of(), index.search("salad", 10));
+    }
+
+    private static Object[] post(String id, String content, LocalDateTime createdAt) {
+        return new Object[]{id, content, createdAt};
+    }
+}
@@ -0,0 +1,125 @@
+package com.nutrimate.service;
+
+import com.nutrimate.dto.ForumDTO;
+import com.nutrimate.entity.Post;
+import com.nutrimate.entity.PostLike;
+import com.nutrimate.entity.User;
+import com.nutrimate.repository.CommentRepository;
+import com.nutrimate.repository.PostLikeRepository;
+import com.nutrimate.repository.PostRepository;
+import com.nutrimate.repository.UserRepository;
+import jakarta.persistence.Column;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ForumServiceCounterTest {
+
+    private PostRepository postRepository;
+    private PostLikeRepository likeRepository;
+    private UserRepository userRepository;
+    private FileUploadService fileUploadService;
+    private ForumService forumService;
+
+    @BeforeEach
+    void setUp() {
+        postRepository = mock(PostRepository.class);
+        likeRepository = mock(PostLikeRepository.class);
+        userRepository = mock(UserRepository.class);
+        fileUploadService = mock(FileUploadService.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                return action.doInTransaction(null);
+            }
+        };
+        forumService = new ForumService(postRepository, mock(CommentRepository.class), likeRepository,
+                userRepository, fileUploadService, mock(ForumFeedCache.class), mock(ForumSearchIndex.class),
+                mock(ForumTrendingIndex.class), transactionTemplate);
+    }
+
+    @Test
+    void counterColumnsAreNeverWrittenByEntitySave() throws NoSuchFieldException {
+        for (String field : List.of("likeCount", "commentCount")) {
+            Column column = Post.class.getDeclaredField(field).getAnnotation(Column.class);
+            assertFalse(column.insertable(), field);
+            assertFalse(column.updatable(), field);
+        }
+    }
+
+    @Test
+    void likeAndUnlikeUseAtomicIncrements() {
+        when(postRepository.existsById("p1")).thenReturn(true);
+        when(userRepository.findById("u1")).thenReturn(Optional.of(user("u1")));
+        when(likeRepository.findByUserIdAndPostId("u1", "p1")).thenReturn(Optional.empty());
+
+        forumService.toggleLike("u1", "p1");
+        verify(postRepository).incrementLikeCount("p1", 1);
+
+        PostLike like = new PostLike();
+        like.setPost(post("p1", "u2"));
+        when(likeRepository.findByUserIdAndPostId("u1", "p1")).thenReturn(Optional.of(like));
+        forumService.toggleLike("u1", "p1");
+        verify(postRepository).incrementLikeCount("p1", -1);
+
+        verify(postRepository, never()).save(any());
+    }
+
+    @Test
+    void updatePostReportsCountersReadAfterTheWrite() throws IOException {
+        Post loaded = post("p1", "u1");
+        loaded.setLikeCount(3); // giá trị lúc nạp entity, trước khi có 4 like đồng thời
+        when(postRepository.findById("p1")).thenReturn(Optional.of(loaded));
+        when(fileUploadService.uploadMediaParallel(any(), any()))
+                .thenReturn(new FileUploadService.UploadedMedia(null, null));
+        when(postRepository.findCountersById("p1")).thenReturn(Collections.singletonList(new Object[]{7, 2}));
+
+        ForumDTO.PostResponse response = forumService.updatePost("u1", "p1", "nội dung mới", null, null);
+
+        assertEquals(7, response.getLikeCount());
+        assertEquals(2, response.getCommentCount());
+        verify(postRepository, never()).incrementLikeCount(anyString(), anyInt());
+    }
+
+    @Test
+    void adminHidePostReportsCountersReadAfterTheWrite() {
+        when(postRepository.findById("p1")).thenReturn(Optional.of(post("p1", "u1")));
+        when(postRepository.findCountersById("p1")).thenReturn(Collections.singletonList(new Object[]{5, 9}));
+
+        ForumDTO.PostResponse response = forumService.adminHidePost("p1");
+
+        assertEquals(ForumService.HIDDEN_CONTENT, response.getContent());
+        assertEquals(5, response.getLikeCount());
+        assertEquals(9, response.getCommentCount());
+    }
+
+    private static User user(String id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    private static Post post(String id, String authorId) {
+        Post post = new Post();
+        post.setId(id);
+        post.setUser(user(authorId));
+        post.setContent("nội dung cũ");
+        return post;
+    }
+}
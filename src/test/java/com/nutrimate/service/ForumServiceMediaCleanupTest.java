@@ -0,0 +1,100 @@
+package com.nutrimate.service;
+
+import com.nutrimate.dto.ForumDTO;
+import com.nutrimate.entity.Post;
+import com.nutrimate.entity.User;
+import com.nutrimate.repository.CommentRepository;
+import com.nutrimate.repository.PostLikeRepository;
+import com.nutrimate.repository.PostRepository;
+import com.nutrimate.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ForumServiceMediaCleanupTest {
+
+    private static final String NEW_IMAGE = "http://res.cloudinary.com/demo/image/upload/v2/new.jpg";
+    private static final String OLD_IMAGE = "http://res.cloudinary.com/demo/image/upload/v1/old.jpg";
+
+    private PostRepository postRepository;
+    private CommentRepository commentRepository;
+    private UserRepository userRepository;
+    private FileUploadService fileUploadService;
+    private ForumService forumService;
+    private final FileUploadService.UploadedMedia media = new FileUploadService.UploadedMedia(NEW_IMAGE, null);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        postRepository = mock(PostRepository.class);
+        commentRepository = mock(CommentRepository.class);
+        userRepository = mock(UserRepository.class);
+        fileUploadService = mock(FileUploadService.class);
+        when(fileUploadService.uploadMediaParallel(any(), any())).thenReturn(media);
+        when(postRepository.findCountersById(any())).thenReturn(List.of());
+        TransactionTemplate transactionTemplate = new TransactionTemplate() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                return action.doInTransaction(null);
+            }
+        };
+        forumService = new ForumService(postRepository, commentRepository, mock(PostLikeRepository.class),
+                userRepository, fileUploadService, mock(ForumFeedCache.class), mock(ForumSearchIndex.class),
+                mock(ForumTrendingIndex.class), transactionTemplate);
+    }
+
+    @Test
+    void createPostDeletesUploadedMediaWhenTheWriteFails() {
+        when(userRepository.findById("u1")).thenReturn(Optional.of(user("u1")));
+        when(postRepository.save(any())).thenThrow(new DataIntegrityViolationException("db down"));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> forumService.createPost("u1", "xin chào", null, null));
+
+        verify(fileUploadService).deleteMedia(media);
+    }
+
+    @Test
+    void createCommentDeletesUploadedMediaWhenTheWriteFails() {
+        when(postRepository.existsById("p1")).thenReturn(true);
+        when(userRepository.findById("u1")).thenReturn(Optional.empty());
+        ForumDTO.CommentRequest request = new ForumDTO.CommentRequest();
+        request.setContent("hay quá");
+
+        assertThrows(RuntimeException.class, () -> forumService.createComment("u1", "p1", request));
+
+        verify(fileUploadService).deleteMedia(media);
+    }
+
+    @Test
+    void updatePostDeletesTheReplacedImageAfterCommit() {
+        Post post = new Post();
+        post.setId("p1");
+        post.setUser(user("u1"));
+        post.setImageUrl(OLD_IMAGE);
+        when(postRepository.findById("p1")).thenReturn(Optional.of(post));
+
+        forumService.updatePost("u1", "p1", "sửa bài", null, null);
+
+        verify(fileUploadService).deleteUrls(OLD_IMAGE);
+        verify(fileUploadService, never()).deleteMedia(any());
+    }
+
+    private static User user(String id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+}
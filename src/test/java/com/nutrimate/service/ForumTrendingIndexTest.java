@@ -0,0 +1,110 @@
+package com.nutrimate.service;
+
+import com.nutrimate.repository.PostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+class ForumTrendingIndexTest {
+
+    private static final double EPS = 1e-9;
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+    private ForumTrendingIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ForumTrendingIndex(mock(PostRepository.class), mock(JdbcTemplate.class), 24);
+    }
+
+    @Test
+    void postOneHalfLifeNewerScoresTwiceAsMuch() {
+        index.onPostCreated("old", NOW.minusHours(24));
+        index.onPostCreated("new", NOW);
+
+        // log2: gấp đôi đóng góp = +1
+        assertEquals(1.0, index.score("new") - index.score("old"), EPS);
+        assertEquals(List.of("new", "old"), index.topPostIds(0, 10));
+    }
+
+    @Test
+    void eventsAddInLinearSpace() {
+        index.onPostCreated("p", NOW);
+        double postOnly = index.score("p");
+
+        index.onLike("p", true, NOW);   // 3 + 1
+        index.onComment("p", true, NOW); // + 2
+
+        assertEquals(log2(6.0 / 3.0), index.score("p") - postOnly, EPS);
+    }
+
+    @Test
+    void unlikeOfOldPostSubtractsAtTheOriginalLikeTime() {
+        // Bài đã qua nhiều chu kỳ bán rã: like "bây giờ" đóng góp lớn hơn cả điểm của bài,
+        // trừ theo thời điểm hiện tại sẽ rơi xuống mức sàn (điểm - 64)
+        index.onPostCreated("p", NOW.minusDays(10));
+        double postOnly = index.score("p");
+        LocalDateTime likedAt = NOW.minusHours(1);
+
+        index.onLike("p", true, likedAt);
+        index.onLike("p", false, likedAt);
+
+        // Trừ trong log-space mất vài chữ số khi like lấn át điểm của bài (2^10 lần)
+        assertEquals(postOnly, index.score("p"), 1e-6);
+    }
+
+    @Test
+    void deletingACommentRemovesExactlyItsContribution() {
+        index.onPostCreated("p", NOW.minusDays(3));
+        index.onLike("p", true, NOW.minusDays(2));
+        double beforeComment = index.score("p");
+        LocalDateTime commentedAt = NOW.minusDays(1);
+
+        index.onComment("p", true, commentedAt);
+        index.onComment("p", false, commentedAt);
+
+        assertEquals(beforeComment, index.score("p"), EPS);
+    }
+
+    @Test
+    void removedPostIgnoresLateEventsUntilTombstoneIsPruned() {
+        index.onPostCreated("p", NOW);
+        index.remove("p");
+
+        index.onLike("p", true, NOW); // like commit muộn sau khi xóa
+        assertNull(index.score("p"));
+        assertEquals(List.of(), index.topPostIds(0, 10));
+
+        index.checkpoint();
+        index.onComment("p", true, NOW); // vẫn trong chu kỳ checkpoint kế tiếp
+        assertNull(index.score("p"));
+
+        index.checkpoint(); // tombstone đã bị bỏ
+        index.onPostCreated("p", NOW);
+        assertNotNull(index.score("p"));
+    }
+
+    @Test
+    void topKKeepsHighestScoresAfterCheckpoint() {
+        for (int i = 0; i < ForumTrendingIndex.TOP_K + 10; i++) {
+            index.onPostCreated("p" + i, NOW.plusMinutes(i));
+        }
+
+        index.checkpoint();
+
+        assertEquals(ForumTrendingIndex.TOP_K, index.size());
+        assertEquals(List.of("p209", "p208"), index.topPostIds(0, 2));
+    }
+
+    private static double log2(double x) {
+        return Math.log(x) / Math.log(2);
+    }
+}
@@ -0,0 +1,180 @@
+package com.nutrimate.service;
+
+import com.nutrimate.entity.Booking;
+import com.nutrimate.entity.Booking.BookingStatus;
+import com.nutrimate.entity.User;
+import com.nutrimate.entity.UserSubscription;
+import com.nutrimate.entity.UserSubscription.SubscriptionStatus;
+import com.nutrimate.repository.UserSubscriptionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FreeSessionCounterTest {
+
+    private static final String MEMBER_ID = "member-1";
+    private static final String SUB_ID = "sub-1";
+    private static final LocalDateTime CYCLE_START = LocalDateTime.now().minusDays(10);
+    private static final LocalDateTime CYCLE_END = LocalDateTime.now().plusDays(20);
+
+    private UserSubscriptionRepository repository;
+    private FreeSessionCounter counter;
+    private UserSubscription subscription;
+    // Giả lập cột free_sessions_used với cùng điều kiện WHERE của 2 câu UPDATE
+    private final AtomicInteger used = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(UserSubscriptionRepository.class);
+        when(repository.claimFreeSession(eq(SUB_ID), anyInt())).thenAnswer(inv -> {
+            int limit = inv.getArgument(1);
+            int current;
+            do {
+                current = used.get();
+                if (current >= limit) {
+                    return 0;
+                }
+            } while (!used.compareAndSet(current, current + 1));
+            return 1;
+        });
+        when(repository.releaseFreeSession(SUB_ID)).thenAnswer(inv -> {
+            int current;
+            do {
+                current = used.get();
+                if (current <= 0) {
+                    return 0;
+                }
+            } while (!used.compareAndSet(current, current - 1));
+            return 1;
+        });
+
+        subscription = new UserSubscription();
+        subscription.setId(SUB_ID);
+        subscription.setStatus(SubscriptionStatus.Active);
+        subscription.setStartDate(CYCLE_START);
+        subscription.setEndDate(CYCLE_END);
+        when(repository.findFirstByUser_IdAndStatusAndEndDateAfterOrderByEndDateDesc(
+                eq(MEMBER_ID), eq(SubscriptionStatus.Active), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(subscription));
+
+        counter = new FreeSessionCounter(repository);
+    }
+
+    @Test
+    void claimStopsAtTheLimit() {
+        LocalDateTime slot = CYCLE_START.plusDays(1);
+
+        assertTrue(counter.claim(subscription, 2, slot));
+        assertTrue(counter.claim(subscription, 2, slot));
+        assertFalse(counter.claim(subscription, 2, slot));
+        assertEquals(2, used.get());
+    }
+
+    @Test
+    void claimOutsideTheCycleNeverTouchesTheCounter() {
+        assertFalse(counter.claim(subscription, 5, CYCLE_START.minusMinutes(1)));
+        assertFalse(counter.claim(subscription, 5, CYCLE_END.plusMinutes(1)));
+        assertFalse(counter.claim(subscription, 5, null));
+
+        verify(repository, never()).claimFreeSession(anyString(), anyInt());
+    }
+
+    @Test
+    void cycleBoundsAreInclusive() {
+        assertTrue(counter.claim(subscription, 5, CYCLE_START));
+        assertTrue(counter.claim(subscription, 5, CYCLE_END));
+    }
+
+    @Test
+    void concurrentClaimsNeverExceedTheLimit() throws InterruptedException {
+        int threads = 8;
+        AtomicInteger granted = new AtomicInteger();
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> {
+                if (counter.claim(subscription, 3, CYCLE_START.plusDays(2))) {
+                    granted.incrementAndGet();
+                }
+            });
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(3, granted.get());
+        assertEquals(3, used.get());
+    }
+
+    @Test
+    void cancellingFreeBookingReleasesItsSession() {
+        used.set(2);
+
+        counter.onBookingStatusChanged(freeBooking(BookingStatus.CANCELLED), BookingStatus.CONFIRMED);
+        counter.onBookingStatusChanged(freeBooking(BookingStatus.REJECTED), BookingStatus.PENDING);
+
+        assertEquals(0, used.get());
+    }
+
+    @Test
+    void transitionsThatKeepTheSessionCountedReleaseNothing() {
+        used.set(1);
+
+        counter.onBookingStatusChanged(freeBooking(BookingStatus.CONFIRMED), BookingStatus.PENDING);
+        counter.onBookingStatusChanged(freeBooking(BookingStatus.COMPLETED), BookingStatus.CONFIRMED);
+        // Đã hủy trước đó (lượt đã trả) -> không trả lần nữa
+        counter.onBookingStatusChanged(freeBooking(BookingStatus.CANCELLED), BookingStatus.CANCELLED);
+        // Vừa tạo mới
+        counter.onBookingStatusChanged(freeBooking(BookingStatus.CANCELLED), null);
+
+        Booking paid = freeBooking(BookingStatus.CANCELLED);
+        paid.setIsFreeSession(false);
+        counter.onBookingStatusChanged(paid, BookingStatus.CONFIRMED);
+
+        assertEquals(1, used.get());
+        verify(repository, never()).releaseFreeSession(anyString());
+    }
+
+    @Test
+    void releaseIgnoresBookingsOutsideTheActiveCycle() {
+        used.set(1);
+
+        counter.release(MEMBER_ID, CYCLE_START.minusDays(1));
+
+        assertEquals(1, used.get());
+        verify(repository, never()).releaseFreeSession(anyString());
+    }
+
+    @Test
+    void releaseNeverGoesBelowZero() {
+        counter.release(MEMBER_ID, CYCLE_START.plusDays(1));
+
+        assertEquals(0, used.get());
+    }
+
+    private static Booking freeBooking(BookingStatus status) {
+        User member = new User();
+        member.setId(MEMBER_ID);
+        Booking booking = new Booking();
+        booking.setMember(member);
+        booking.setIsFreeSession(true);
+        booking.setBookingTime(CYCLE_START.plusDays(3));
+        booking.setStatus(status);
+        return booking;
+    }
+}
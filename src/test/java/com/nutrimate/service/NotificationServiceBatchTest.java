@@ -0,0 +1,112 @@
+package com.nutrimate.service;
+
+import com.nutrimate.entity.Notification.NotificationType;
+import com.nutrimate.repository.NotificationRepository;
+import com.nutrimate.repository.UserRepository;
+import com.nutrimate.service.NotificationService.BatchNotification;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class NotificationServiceBatchTest {
+
+    private NotificationRepository notificationRepository;
+    private UserRepository userRepository;
+    private SimpMessagingTemplate messagingTemplate;
+    private JdbcTemplate jdbcTemplate;
+    private NotificationService notificationService;
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository = mock(NotificationRepository.class);
+        userRepository = mock(UserRepository.class);
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        notificationService = new NotificationService(notificationRepository, userRepository, messagingTemplate,
+                mock(EmailService.class), jdbcTemplate);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void insertsAllNotificationsInOneJdbcBatch() {
+        notificationService.createAndPushAll(List.of(
+                reminder("u1"), reminder("u2"), reminder("u3")));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), rows.capture());
+        assertEquals(3, rows.getValue().size());
+        assertEquals("u2", rows.getValue().get(1)[1]);
+        assertEquals("APPOINTMENT", rows.getValue().get(1)[4]);
+        assertNotEquals(rows.getValue().get(0)[0], rows.getValue().get(1)[0]);
+        // Không đi qua JPA: không findById từng user, không save entity
+        verifyNoInteractions(userRepository, notificationRepository);
+    }
+
+    @Test
+    void pushesOnlyAfterCommitWithTheInsertedIds() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        notificationService.createAndPushAll(List.of(reminder("u1"), reminder("u2")));
+
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate).convertAndSend(eq("/queue/notifications/u1"), payload.capture());
+        verify(messagingTemplate).convertAndSend(eq("/queue/notifications/u2"), any(Object.class));
+        assertEquals(rows.getValue().get(0)[0], ((Map<?, ?>) payload.getValue()).get("id"));
+    }
+
+    @Test
+    void failedPushDoesNotStopTheRest() {
+        doThrow(new IllegalStateException("broker down"))
+                .when(messagingTemplate).convertAndSend(eq("/queue/notifications/u1"), any(Object.class));
+
+        notificationService.createAndPushAll(List.of(reminder("u1"), reminder("u2")));
+
+        verify(messagingTemplate).convertAndSend(eq("/queue/notifications/u2"), any(Object.class));
+    }
+
+    @Test
+    void emptyBatchTouchesNothing() {
+        assertEquals(0, notificationService.createAndPushAll(List.of()));
+
+        verifyNoInteractions(jdbcTemplate, messagingTemplate);
+    }
+
+    private static BatchNotification reminder(String userId) {
+        return new BatchNotification(userId, "Nhắc lịch hẹn sắp tới", "Bạn có lịch hẹn lúc 10:30", NotificationType.APPOINTMENT);
+    }
+}
@@ -0,0 +1,138 @@
+package com.nutrimate.service;
+
+import com.nutrimate.entity.Recipe;
+import com.nutrimate.repository.RecipeRepository;
+import com.nutrimate.service.RecipeSearchIndex.MatchMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RecipeSearchIndexTest {
+
+    private RecipeRepository repository;
+    private RecipeSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(RecipeRepository.class);
+        when(repository.findSearchRowsAfter(anyString(), any(Pageable.class))).thenReturn(recipes(), List.of());
+        index = new RecipeSearchIndex(repository);
+        index.rebuild();
+    }
+
+    @Test
+    void exactPhraseRanksAboveScatteredTerms() {
+        // r1 chứa nguyên cụm "bun bo" trong tiêu đề, r2 chỉ có đủ 2 từ rời nhau
+        assertEquals(List.of("r1", "r2"), index.search("bun bo", null, null, MatchMode.ALL_TERMS));
+    }
+
+    @Test
+    void phraseMatchesSubstringInsideWords() {
+        assertEquals(List.of("r4"), index.search("chua ca", null, null, MatchMode.ALL_TERMS));
+        assertEquals(List.of("r3"), index.search("ức g", null, null, MatchMode.ALL_TERMS));
+    }
+
+    @Test
+    void allTermsRequiresEveryWordWhenNotAPhrase() {
+        // "bo" và "bun" đều có trong r1 (tiêu đề) và r2 (tiêu đề + mô tả), không đứng liền nhau theo thứ tự này
+        List<String> ids = index.search("bò bún", null, null, MatchMode.ALL_TERMS);
+
+        assertEquals(2, ids.size());
+        assertTrue(ids.containsAll(List.of("r1", "r2")));
+    }
+
+    @Test
+    void anyTermMatchesDocumentsWithAtLeastOneWord() {
+        List<String> all = index.search("bò bún", null, null, MatchMode.ALL_TERMS);
+        List<String> any = index.search("bò bún", null, null, MatchMode.ANY_TERM);
+
+        assertEquals(3, any.size());
+        assertTrue(any.containsAll(List.of("r1", "r2", "r3")));
+        assertEquals(any.subList(0, 2).stream().sorted().toList(), all.stream().sorted().toList());
+    }
+
+    @Test
+    void calorieRangeExcludesRecipesWithoutCalories() {
+        assertEquals(List.of("r3"), index.search("bun", null, 400, MatchMode.ANY_TERM));
+        assertEquals(List.of(), index.search("canh", 0, null, MatchMode.ALL_TERMS));
+        assertEquals(List.of("r4"), index.search("canh", null, null, MatchMode.ALL_TERMS));
+    }
+
+    @Test
+    void blankKeywordMatchesNothing() {
+        assertEquals(List.of(), index.search("   ", null, null, MatchMode.ANY_TERM));
+        assertEquals(List.of(), index.search(null, null, null, MatchMode.ANY_TERM));
+    }
+
+    @Test
+    void incrementalUpdatesReplaceAndRemoveRecipes() {
+        Recipe updated = new Recipe();
+        updated.setId("r2");
+        updated.setTitle("Phở gà");
+        updated.setDescription("Nước dùng trong");
+        updated.setCalories(400);
+        index.indexRecipe(updated);
+        index.removeRecipe("r1");
+
+        assertEquals(List.of(), index.search("bun bo", null, null, MatchMode.ALL_TERMS));
+        assertEquals(List.of("r2"), index.search("pho ga", null, null, MatchMode.ALL_TERMS));
+    }
+
+    @Test
+    void searchServesPreviousIndexWhileRebuilding() {
+        List<List<String>> seenDuringRebuild = new ArrayList<>();
+        when(repository.findSearchRowsAfter(anyString(), any(Pageable.class))).thenAnswer(inv -> {
+            seenDuringRebuild.add(index.search("bun bo", null, null, MatchMode.ALL_TERMS));
+            return "".equals(inv.getArgument(0)) ? recipes() : List.of();
+        });
+
+        index.rebuild();
+
+        assertEquals(List.of(List.of("r1", "r2"), List.of("r1", "r2")), seenDuringRebuild);
+        assertEquals(List.of("r1", "r2"), index.search("bun bo", null, null, MatchMode.ALL_TERMS));
+    }
+
+    @Test
+    void changesAppliedDuringRebuildSurviveTheSwap() {
+        when(repository.findSearchRowsAfter(anyString(), any(Pageable.class))).thenAnswer(inv -> {
+            if (!"".equals(inv.getArgument(0))) {
+                return List.of();
+            }
+            // Recipe được sửa / xóa và commit trong lúc rebuild đang quét (kết quả quét chưa thấy)
+            Recipe updated = new Recipe();
+            updated.setId("r5");
+            updated.setTitle("Bún bò chay");
+            updated.setDescription("Nấm và đậu hũ");
+            updated.setCalories(380);
+            index.indexRecipe(updated);
+            index.removeRecipe("r1");
+            return recipes();
+        });
+
+        index.rebuild();
+
+        assertEquals(List.of("r5", "r2"), index.search("bun bo", null, null, MatchMode.ALL_TERMS));
+    }
+
+    private static List<Object[]> recipes() {
+        return List.of(
+                row("r1", "Bún bò Huế", "Nước dùng đậm đà, sả và ớt", 550),
+                row("r2", "Phở bò tái", "Ăn kèm rau thơm, có thể thay bằng bún", 450),
+                row("r3", "Salad ức gà", "Ít calo, nhiều đạm; hợp với bún gạo lứt", 320),
+                row("r4", "Canh chua cá lóc", "Món canh miền Tây", null));
+    }
+
+    private static Object[] row(String id, String title, String description, Integer calories) {
+        return new Object[]{id, title, description, calories};
+    }
+}
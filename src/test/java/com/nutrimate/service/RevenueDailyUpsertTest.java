@@ -0,0 +1,62 @@
+package com.nutrimate.service;
+
+import com.nutrimate.entity.RevenueDaily;
+import com.nutrimate.repository.RevenueDailyRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Kiểm tra câu upsert / ghi đè của Revenue_Daily trên MySQL thật (ON DUPLICATE KEY UPDATE).
+ * Dùng 1 ngày ở tương lai xa (không có booking/subscription nào) và rollback sau mỗi test.
+ * Cần MySQL thật giống NutrimateApplicationTests.
+ */
+@SpringBootTest
+@Transactional
+class RevenueDailyUpsertTest {
+
+    private static final LocalDate DAY = LocalDate.of(2999, 1, 1);
+
+    @Autowired
+    private RevenueDailyRepository revenueDailyRepository;
+
+    @Test
+    void addRevenueAccumulatesIntoOneBucketPerDayAndSource() {
+        revenueDailyRepository.addRevenue(DAY, "BOOKING", new BigDecimal("300000"));
+        revenueDailyRepository.addRevenue(DAY, "BOOKING", new BigDecimal("-120000"));
+        revenueDailyRepository.addRevenue(DAY, "SUBSCRIPTION", new BigDecimal("99000"));
+
+        List<RevenueDaily> rows = rowsOf(DAY);
+        assertEquals(2, rows.size());
+        assertEquals(0, new BigDecimal("180000").compareTo(amount(rows, RevenueDaily.Source.BOOKING)));
+        assertEquals(0, new BigDecimal("99000").compareTo(amount(rows, RevenueDaily.Source.SUBSCRIPTION)));
+    }
+
+    @Test
+    void recomputeOverwritesDriftedBucketWithSourceTotal() {
+        revenueDailyRepository.addRevenue(DAY, "BOOKING", new BigDecimal("500000"));
+
+        revenueDailyRepository.recomputeBookingDay(DAY, DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay());
+        revenueDailyRepository.recomputeSubscriptionDay(DAY, DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay());
+
+        List<RevenueDaily> rows = rowsOf(DAY);
+        assertEquals(2, rows.size());
+        assertEquals(0, BigDecimal.ZERO.compareTo(amount(rows, RevenueDaily.Source.BOOKING)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(amount(rows, RevenueDaily.Source.SUBSCRIPTION)));
+    }
+
+    private List<RevenueDaily> rowsOf(LocalDate day) {
+        return revenueDailyRepository.findAll().stream().filter(r -> day.equals(r.getRevenueDate())).toList();
+    }
+
+    private static BigDecimal amount(List<RevenueDaily> rows, RevenueDaily.Source source) {
+        return rows.stream().filter(r -> r.getSource() == source).findFirst().orElseThrow().getAmount();
+    }
+}
@@ -0,0 +1,163 @@
+package com.nutrimate.service;
+
+import com.nutrimate.entity.Booking;
+import com.nutrimate.entity.Booking.BookingStatus;
+import com.nutrimate.entity.SubscriptionPlan;
+import com.nutrimate.entity.UserSubscription;
+import com.nutrimate.entity.UserSubscription.SubscriptionStatus;
+import com.nutrimate.repository.RevenueDailyRepository;
+import com.nutrimate.service.RevenueRollupService.DailyAmount;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class RevenueRollupServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 17);
+
+    private RevenueDailyRepository repository;
+    private RevenueRollupService service;
+    // Nhật ký các lệnh ghi kèm ranh giới transaction, để kiểm tra rebuild gom đúng theo ngày
+    private final List<String> events = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(RevenueDailyRepository.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                events.add("begin");
+                T result = action.doInTransaction(null);
+                events.add("commit");
+                return result;
+            }
+        };
+        service = new RevenueRollupService(repository, transactionTemplate);
+    }
+
+    @Test
+    void confirmingBookingAddsItsPriceOnTheBookingDay() {
+        Booking booking = booking(DAY.atTime(9, 0), 300_000, BookingStatus.CONFIRMED);
+
+        service.onBookingStatusChanged(booking, BookingStatus.PENDING);
+
+        verify(repository).addRevenue(DAY, "BOOKING", money(300_000));
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    void cancellingConfirmedBookingSubtractsItsPrice() {
+        Booking booking = booking(DAY.atTime(9, 0), 300_000, BookingStatus.CANCELLED);
+
+        service.onBookingStatusChanged(booking, BookingStatus.CONFIRMED);
+
+        verify(repository).addRevenue(DAY, "BOOKING", money(-300_000));
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    void statusChangeWithinRevenueStatusesWritesNothing() {
+        Booking booking = booking(DAY.atTime(9, 0), 300_000, BookingStatus.COMPLETED);
+
+        service.onBookingStatusChanged(booking, BookingStatus.CONFIRMED);
+        service.onBookingStatusChanged(booking(DAY.atTime(9, 0), 300_000, BookingStatus.REJECTED), BookingStatus.PENDING);
+
+        verify(repository, never()).addRevenue(any(), anyString(), any());
+    }
+
+    @Test
+    void samedaySubscriptionChangeWritesOnlyTheDelta() {
+        DailyAmount before = new DailyAmount(DAY, money(200_000));
+
+        service.onSubscriptionChanged(before, subscription(DAY.atTime(15, 0), 500_000));
+
+        verify(repository).addRevenue(DAY, "SUBSCRIPTION", money(300_000));
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    void movingToAnotherDaySubtractsOldBucketAndAddsNewOne() {
+        DailyAmount before = new DailyAmount(DAY, money(200_000));
+
+        service.onSubscriptionChanged(before, subscription(DAY.plusDays(3).atTime(8, 0), 500_000));
+
+        verify(repository).addRevenue(DAY, "SUBSCRIPTION", money(-200_000));
+        verify(repository).addRevenue(DAY.plusDays(3), "SUBSCRIPTION", money(500_000));
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    void newActiveSubscriptionAddsPlanPrice() {
+        service.onSubscriptionChanged(DailyAmount.NONE, subscription(DAY.atTime(0, 0), 99_000));
+
+        verify(repository).addRevenue(DAY, "SUBSCRIPTION", money(99_000));
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    void rebuildRecomputesEachDayInItsOwnTransaction() {
+        LocalDate nextDay = DAY.plusDays(1);
+        // Native query trả về java.sql.Date; JPQL/driver khác có thể trả LocalDate
+        when(repository.findRevenueDays()).thenReturn(List.of(java.sql.Date.valueOf(DAY), nextDay));
+        doAnswer(inv -> {
+            events.add("booking " + inv.getArgument(0) + " [" + inv.getArgument(1) + ", " + inv.getArgument(2) + ")");
+            return 1;
+        }).when(repository).recomputeBookingDay(any(), any(), any());
+        doAnswer(inv -> {
+            events.add("subscription " + inv.getArgument(0));
+            return 1;
+        }).when(repository).recomputeSubscriptionDay(any(), any(), any());
+
+        service.rebuild();
+
+        assertEquals(List.of(
+                "begin",
+                "booking 2024-05-17 [2024-05-17T00:00, 2024-05-18T00:00)",
+                "subscription 2024-05-17",
+                "commit",
+                "begin",
+                "booking 2024-05-18 [2024-05-18T00:00, 2024-05-19T00:00)",
+                "subscription 2024-05-18",
+                "commit"), events);
+        verify(repository, never()).deleteAll();
+    }
+
+    private static Booking booking(LocalDateTime bookingTime, long finalPrice, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setBookingTime(bookingTime);
+        booking.setFinalPrice(money(finalPrice));
+        booking.setStatus(status);
+        return booking;
+    }
+
+    private static UserSubscription subscription(LocalDateTime startDate, long planPrice) {
+        SubscriptionPlan plan = new SubscriptionPlan();
+        plan.setPrice(money(planPrice));
+        UserSubscription sub = new UserSubscription();
+        sub.setPlan(plan);
+        sub.setStartDate(startDate);
+        sub.setStatus(SubscriptionStatus.Active);
+        return sub;
+    }
+
+    private static BigDecimal money(long value) {
+        return BigDecimal.valueOf(value);
+    }
+}
@@ -0,0 +1,141 @@
+package com.nutrimate.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Benchmark GET /api/tracking/{date}: seed dần tới hàng triệu Meal_Logs bằng JDBC batch,
+ * đo độ trễ đọc 1 ngày (bỏ cache) sau mỗi bước. Nhờ index (user_id, log_date) và log_id,
+ * độ trễ phải gần như không đổi khi bảng lớn lên.
+ * <p>
+ * Cần MySQL thật (cấu hình DB_* như khi chạy app): {@code mvn test -Pbenchmark}.
+ * Số dòng chỉnh bằng -Dbenchmark.tracking.meal-logs (mặc định 1.000.000).
+ */
+@Tag("benchmark")
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TrackingServiceBenchmarkTest {
+
+    private static final String EMAIL_PREFIX = "bench-tracking-";
+    private static final int USERS = 200;
+    private static final int MEALS_PER_DAY = 5;
+    private static final int BATCH_SIZE = 5_000;
+    private static final int SAMPLES = 200;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2020, 1, 1);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TrackingService trackingService;
+    @Autowired
+    private TrackingLogCache trackingLogCache;
+
+    private final List<String> userIds = new ArrayList<>();
+    private int seededDays;
+
+    @Test
+    void dayLatencyStaysFlatAsMealLogsGrow() {
+        long target = Long.getLong("benchmark.tracking.meal-logs", 1_000_000L);
+        seedUsers();
+
+        long[] steps = {target / 100, target / 10, target};
+        double[] p95 = new double[steps.length];
+        for (int i = 0; i < steps.length; i++) {
+            seedMealLogsUpTo(steps[i]);
+            p95[i] = measureP95Millis();
+            System.out.printf("[benchmark] meal_logs=%,d -> p95 GET /api/tracking/{date} = %.2f ms%n",
+                    (long) seededDays * USERS * MEALS_PER_DAY, p95[i]);
+        }
+
+        // Dữ liệu tăng 100 lần: p95 không được tăng theo (cho phép nhiễu 3x hoặc +20ms)
+        double allowed = Math.max(p95[0] * 3, p95[0] + 20);
+        assertTrue(p95[steps.length - 1] <= allowed,
+                "p95 tăng từ " + p95[0] + "ms lên " + p95[steps.length - 1] + "ms");
+    }
+
+    private double measureP95Millis() {
+        String userId = userIds.get(USERS / 2);
+        LocalDate date = FIRST_DAY.plusDays(seededDays / 2);
+        for (int i = 0; i < 20; i++) { // warm-up
+            trackingLogCache.evict(userId, date);
+            trackingService.getLogByDate(userId, date);
+        }
+        long[] nanos = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            trackingLogCache.evict(userId, date);
+            long start = System.nanoTime();
+            trackingService.getLogByDate(userId, date);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[(int) (SAMPLES * 0.95) - 1] / 1_000_000.0;
+    }
+
+    private void seedUsers() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            String id = UUID.randomUUID().toString();
+            userIds.add(id);
+            rows.add(new Object[]{id, EMAIL_PREFIX + id + "@example.com"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO `Users` (user_id, email, role) VALUES (?, ?, 'MEMBER')", rows);
+    }
+
+    // Seed thêm ngày cho tất cả user tới khi đủ số meal log (mỗi ngày MEALS_PER_DAY món)
+    private void seedMealLogsUpTo(long mealLogs) {
+        int targetDays = (int) Math.max(1, mealLogs / ((long) USERS * MEALS_PER_DAY));
+        List<Object[]> dailyRows = new ArrayList<>(BATCH_SIZE);
+        List<Object[]> mealRows = new ArrayList<>(BATCH_SIZE);
+        for (int day = seededDays; day < targetDays; day++) {
+            Date logDate = Date.valueOf(FIRST_DAY.plusDays(day));
+            for (String userId : userIds) {
+                String logId = UUID.randomUUID().toString();
+                dailyRows.add(new Object[]{logId, userId, logDate, 400 * MEALS_PER_DAY});
+                for (int m = 0; m < MEALS_PER_DAY; m++) {
+                    mealRows.add(new Object[]{UUID.randomUUID().toString(), logId, "LUNCH", 1.0, 400});
+                }
+                if (mealRows.size() >= BATCH_SIZE) {
+                    flush(dailyRows, mealRows);
+                }
+            }
+        }
+        flush(dailyRows, mealRows);
+        seededDays = Math.max(seededDays, targetDays);
+    }
+
+    private void flush(List<Object[]> dailyRows, List<Object[]> mealRows) {
+        if (!dailyRows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO `Daily_Logs` (log_id, user_id, log_date, total_calories_in, "
+                    + "total_protein_g, total_carbs_g, total_fat_g) VALUES (?, ?, ?, ?, 0, 0, 0)", dailyRows);
+            dailyRows.clear();
+        }
+        if (!mealRows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO `Meal_Logs` (meal_log_id, log_id, meal_type, amount, "
+                    + "calories_consumed) VALUES (?, ?, ?, ?, ?)", mealRows);
+            mealRows.clear();
+        }
+    }
+
+    @AfterAll
+    void cleanUp() {
+        String seededUsers = "SELECT user_id FROM `Users` WHERE email LIKE '" + EMAIL_PREFIX + "%'";
+        jdbcTemplate.update("DELETE m FROM `Meal_Logs` m JOIN `Daily_Logs` d ON d.log_id = m.log_id "
+                + "WHERE d.user_id IN (" + seededUsers + ")");
+        jdbcTemplate.update("DELETE FROM `Daily_Logs` WHERE user_id IN (" + seededUsers + ")");
+        jdbcTemplate.update("DELETE FROM `Users` WHERE email LIKE '" + EMAIL_PREFIX + "%'");
+    }
+}
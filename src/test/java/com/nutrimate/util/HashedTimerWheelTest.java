@@ -0,0 +1,81 @@
+package com.nutrimate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedTimerWheelTest {
+
+    private static final long TICK = 1_000;
+    private static final int WHEEL_SIZE = 8;
+
+    @Test
+    void firesOnlyAfterTheDeadlineTickHasPassed() {
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(TICK, WHEEL_SIZE, 0);
+        wheel.schedule("a", 2_500);
+
+        assertTrue(wheel.advance(2_600).isEmpty()); // tick 2 chưa trôi qua hẳn
+        assertEquals(List.of("a"), wheel.advance(3_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void keepsEntriesOfLaterRoundsInTheSameBucket() {
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(TICK, WHEEL_SIZE, 0);
+        wheel.schedule("near", 2_500);                 // tick 2 -> ô 2
+        wheel.schedule("far", 2_500 + WHEEL_SIZE * TICK); // tick 10 -> cũng ô 2, vòng sau
+
+        assertEquals(List.of("near"), wheel.advance(3_000));
+        assertEquals(1, wheel.size());
+        assertTrue(wheel.advance(10_000).isEmpty());
+        assertEquals(List.of("far"), wheel.advance(11_000));
+    }
+
+    @Test
+    void advancingMoreThanOneLapExpiresEverythingDue() {
+        HashedTimerWheel<Integer> wheel = new HashedTimerWheel<>(TICK, WHEEL_SIZE, 0);
+        for (int i = 0; i < 20; i++) {
+            wheel.schedule(i, i * TICK + 500);
+        }
+
+        List<Integer> expired = wheel.advance(50_000);
+
+        assertEquals(20, expired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelledKeysNeverFire() {
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(TICK, WHEEL_SIZE, 0);
+        wheel.schedule("a", 1_500);
+        wheel.schedule("b", 1_500);
+
+        wheel.cancel("a");
+
+        assertEquals(List.of("b"), wheel.advance(5_000));
+        wheel.cancel("missing"); // không có key -> bỏ qua
+    }
+
+    @Test
+    void rescheduleReplacesPreviousDeadline() {
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(TICK, WHEEL_SIZE, 0);
+        wheel.schedule("a", 1_500);
+        wheel.schedule("a", 6_500);
+
+        assertTrue(wheel.advance(3_000).isEmpty());
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("a"), wheel.advance(7_000));
+    }
+
+    @Test
+    void overdueDeadlineSeededAtStartupFiresOnNextAdvance() {
+        long now = 100_000;
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(TICK, WHEEL_SIZE, now);
+        wheel.schedule("overdue", 1_000); // hết hạn từ lâu (vd: booking PENDING còn lại sau khi restart)
+
+        assertEquals(List.of("overdue"), wheel.advance(now + TICK));
+    }
+}
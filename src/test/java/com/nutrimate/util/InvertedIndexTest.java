@@ -0,0 +1,119 @@
+package com.nutrimate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InvertedIndexTest {
+
+    @Test
+    void scoresDocumentsIgnoringDiacritics() {
+        InvertedIndex<String> index = new InvertedIndex<>();
+        index.put("p1", "post-1", "Bún bò Huế cay", 1.0);
+        index.put("p2", "post-2", "Phở gà", 1.0);
+
+        Map<String, Double> scores = index.score("bun bo");
+
+        assertEquals(1, scores.size());
+        assertTrue(scores.containsKey("post-1"));
+    }
+
+    @Test
+    void documentsMatchingMoreQueryTermsRankHigher() {
+        InvertedIndex<String> index = new InvertedIndex<>();
+        index.put("a", "both", "ức gà luộc", 1.0);
+        index.put("b", "one", "ức bò", 1.0);
+
+        Map<String, Double> scores = index.score("ức gà");
+
+        assertTrue(scores.get("both") > scores.get("one"));
+    }
+
+    @Test
+    void higherWeightSourceScoresHigher() {
+        InvertedIndex<String> index = new InvertedIndex<>();
+        index.put("title", "doc-title", "salad", 2.0);
+        index.put("body", "doc-body", "salad", 1.0);
+
+        Map<String, Double> scores = index.score("salad");
+
+        assertTrue(scores.get("doc-title") > scores.get("doc-body"));
+    }
+
+    @Test
+    void removeSourceKeepsOtherSourcesOfSameDocument() {
+        InvertedIndex<String> index = new InvertedIndex<>();
+        index.put("post:1", "1", "yến mạch", 1.0);
+        index.put("comment:9", "1", "chuối", 1.0);
+
+        index.removeSource("comment:9");
+
+        assertFalse(index.score("chuối").containsKey("1"));
+        assertTrue(index.score("yến mạch").containsKey("1"));
+        assertEquals(1, index.documentCount());
+    }
+
+    @Test
+    void putOverwritesPreviousTextOfSource() {
+        InvertedIndex<String> index = new InvertedIndex<>();
+        index.put("post:1", "1", "trứng luộc", 1.0);
+
+        index.put("post:1", "1", "trứng chiên", 1.0);
+
+        assertFalse(index.score("luộc").containsKey("1"));
+        assertTrue(index.score("chiên").containsKey("1"));
+    }
+
+    @Test
+    void emptyTextRemovesSource() {
+        InvertedIndex<String> index = new InvertedIndex<>();
+        index.put("post:1", "1", "sữa chua", 1.0);
+
+        index.put("post:1", "1", "", 1.0);
+
+        assertEquals(0, index.documentCount());
+        assertTrue(index.score("sữa").isEmpty());
+    }
+
+    @Test
+    void removeDocumentDropsAllItsSources() {
+        InvertedIndex<String> index = new InvertedIndex<>();
+        index.put("post:1", "1", "cá hồi", 1.0);
+        index.put("comment:1", "1", "cá hồi áp chảo", 1.0);
+        index.put("post:2", "2", "cá thu", 1.0);
+
+        index.removeDocument("1");
+
+        assertEquals(Set.of("2"), index.score("cá").keySet());
+        assertEquals(1, index.documentCount());
+    }
+
+    @Test
+    void topReturnsHighestBoostedScoresFirstAndSkipsZeroBoost() {
+        InvertedIndex<String> index = new InvertedIndex<>();
+        index.put("a", "a", "ức gà luộc, ức gà xé", 1.0);
+        index.put("b", "b", "ức gà", 1.0);
+        index.put("c", "c", "gà rán", 1.0);
+        index.put("d", "d", "ức bò", 1.0);
+
+        assertEquals(List.of("a", "b"), index.top("ức gà", 2, doc -> 1.0));
+        List<String> withoutA = index.top("ức gà", 5, doc -> doc.equals("a") ? 0 : 1.0);
+        assertEquals("b", withoutA.get(0)); // c, d mỗi bài khớp 1 từ -> xếp sau
+        assertEquals(Set.of("b", "c", "d"), Set.copyOf(withoutA));
+        assertEquals(List.of("c", "a"), index.top("gà", 2, doc -> doc.equals("c") ? 3.0 : doc.equals("a") ? 2.0 : 1.0));
+    }
+
+    @Test
+    void blankQueryMatchesNothing() {
+        InvertedIndex<String> index = new InvertedIndex<>();
+        index.put("post:1", "1", "bơ", 1.0);
+
+        assertTrue(index.score("  ").isEmpty());
+    }
+}
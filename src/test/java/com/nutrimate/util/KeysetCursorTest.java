@@ -0,0 +1,57 @@
+package com.nutrimate.util;
+
+import com.nutrimate.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeysetCursorTest {
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        LocalDateTime time = LocalDateTime.of(2024, 5, 17, 8, 30, 15, 123_000_000);
+        String cursor = KeysetCursor.encode(time, "0b6e4c1a-9f1d-4a3e-b7a2-1f2e3d4c5b6a");
+
+        assertEquals(new KeysetCursor(time, "0b6e4c1a-9f1d-4a3e-b7a2-1f2e3d4c5b6a"), KeysetCursor.decode(cursor));
+    }
+
+    @Test
+    void encodedCursorIsUrlSafe() {
+        String cursor = KeysetCursor.encode(LocalDateTime.of(2024, 1, 1, 0, 0), "id?&/+=");
+
+        assertFalse(cursor.matches(".*[+/=?&].*"));
+    }
+
+    @Test
+    void idMayContainSeparator() {
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+        assertEquals("a|b", KeysetCursor.decode(KeysetCursor.encode(time, "a|b")).id());
+    }
+
+    @Test
+    void blankCursorMeansFirstPage() {
+        assertNull(KeysetCursor.decode(null));
+        assertNull(KeysetCursor.decode(""));
+        assertNull(KeysetCursor.decode("   "));
+    }
+
+    @Test
+    void malformedCursorIsBadRequest() {
+        assertThrows(BadRequestException.class, () -> KeysetCursor.decode("not base64 !!"));
+        assertThrows(BadRequestException.class, () -> KeysetCursor.decode(urlBase64("2024-01-01T00:00")));
+        assertThrows(BadRequestException.class, () -> KeysetCursor.decode(urlBase64("yesterday|abc")));
+        assertThrows(BadRequestException.class, () -> KeysetCursor.decode(urlBase64("2024-01-01T00:00|")));
+    }
+
+    private static String urlBase64(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
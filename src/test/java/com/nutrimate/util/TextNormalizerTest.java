@@ -0,0 +1,43 @@
+package com.nutrimate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TextNormalizerTest {
+
+    @Test
+    void foldRemovesVietnameseDiacriticsAndLowercases() {
+        assertEquals("bun bo hue", TextNormalizer.fold("Bún bò Huế"));
+        assertEquals("pho ga nuong", TextNormalizer.fold("PHỞ GÀ NƯỚNG"));
+        assertEquals("ca phe sua da", TextNormalizer.fold("Cà phê sữa đá"));
+    }
+
+    @Test
+    void foldMapsDToD() {
+        assertEquals("da nang", TextNormalizer.fold("Đà Nẵng"));
+        assertEquals("dau do", TextNormalizer.fold("đậu đỏ"));
+    }
+
+    @Test
+    void foldMatchesPrecomposedAndDecomposedInput() {
+        String precomposed = "Gỏi cuốn";
+        String decomposed = java.text.Normalizer.normalize(precomposed, java.text.Normalizer.Form.NFD);
+
+        assertEquals(TextNormalizer.fold(precomposed), TextNormalizer.fold(decomposed));
+    }
+
+    @Test
+    void foldReturnsEmptyForNullOrEmpty() {
+        assertEquals("", TextNormalizer.fold(null));
+        assertEquals("", TextNormalizer.fold(""));
+    }
+
+    @Test
+    void tokenizeSplitsOnNonAlphanumerics() {
+        assertEquals(List.of("com", "tam", "200g", "suon"), TextNormalizer.tokenize("Cơm tấm (200g) - sườn!"));
+        assertEquals(List.of(), TextNormalizer.tokenize("  ...  "));
+    }
+}
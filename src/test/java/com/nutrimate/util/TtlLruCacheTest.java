@@ -0,0 +1,109 @@
+package com.nutrimate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TtlLruCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedEntryWhenFull() {
+        TtlLruCache<String, Integer> cache = new TtlLruCache<>(2, 60_000);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a"); // "a" vừa được đọc -> "b" là cũ nhất
+        cache.put("c", 3);
+
+        assertEquals(1, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(1L, cache.stats().get("evictions"));
+    }
+
+    @Test
+    void expiresEntriesAfterTtl() throws InterruptedException {
+        TtlLruCache<String, Integer> cache = new TtlLruCache<>(10, 20);
+        cache.put("a", 1);
+        assertEquals(1, cache.get("a"));
+
+        Thread.sleep(40);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void updateIfPresentOnlyTouchesCachedKeys() {
+        TtlLruCache<String, Integer> cache = new TtlLruCache<>(10, 60_000);
+        cache.put("a", 1);
+
+        cache.updateIfPresent("a", v -> v | 4);
+        cache.updateIfPresent("b", v -> v | 4);
+
+        assertEquals(5, cache.get("a"));
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    void getOrLoadCachesLoadedValue() {
+        TtlLruCache<String, Integer> cache = new TtlLruCache<>(10, 60_000);
+        int[] loads = {0};
+
+        assertEquals(7, cache.getOrLoad("a", () -> ++loads[0] + 6));
+        assertEquals(7, cache.getOrLoad("a", () -> ++loads[0] + 6));
+        assertEquals(1, loads[0]);
+    }
+
+    @Test
+    void getOrLoadDoesNotCacheResultOfLoadRacingAnInvalidate() {
+        TtlLruCache<String, Integer> cache = new TtlLruCache<>(10, 60_000);
+
+        // Ghi + evict sau commit xảy ra trong lúc loader đang đọc dữ liệu cũ
+        Integer loaded = cache.getOrLoad("a", () -> {
+            cache.invalidate("a");
+            return 1;
+        });
+
+        assertEquals(1, loaded);
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void putIfUnchangedRejectsStaleGeneration() {
+        TtlLruCache<String, Integer> cache = new TtlLruCache<>(10, 60_000);
+        long generation = cache.generation("a");
+        cache.updateIfPresent("a", v -> v + 1); // key chưa có trong cache vẫn tăng thế hệ
+
+        assertFalse(cache.putIfUnchanged("a", 1, generation));
+        assertTrue(cache.putIfUnchanged("a", 2, cache.generation("a")));
+        assertEquals(2, cache.get("a"));
+    }
+
+    @Test
+    void invalidateAllAlsoInvalidatesLoadsInFlight() {
+        TtlLruCache<String, Integer> cache = new TtlLruCache<>(10, 60_000);
+        long generation = cache.generation("a");
+
+        cache.invalidateAll();
+
+        assertFalse(cache.putIfUnchanged("a", 1, generation));
+    }
+
+    @Test
+    void statsCountHitsAndMisses() {
+        TtlLruCache<String, Integer> cache = new TtlLruCache<>(10, 60_000);
+        cache.put("a", 1);
+        cache.get("a");
+        cache.get("b");
+
+        Map<String, Object> stats = cache.stats();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+        assertEquals(0.5, stats.get("hitRate"));
+    }
+}